@@ -1,25 +1,30 @@
 package com.jataxmltransformer.GUI;
 
+import com.jataxmltransformer.logic.data.ErrorIndex;
 import com.jataxmltransformer.logic.data.ErrorInfo;
+import com.jataxmltransformer.logic.data.LineIndex;
 import com.jataxmltransformer.logic.data.Ontology;
+import com.jataxmltransformer.logic.data.TextDocument;
+import com.jataxmltransformer.logic.xml.OntologyIndexFile;
 import com.jataxmltransformer.logic.xml.XMLFormatter;
+import com.jataxmltransformer.logic.xml.XPathIndexCache;
 import com.jataxmltransformer.logs.AppLogger;
 import com.jataxmltransformer.middleware.Middleware;
+import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
-import javafx.scene.control.TextField;
 import javafx.scene.control.cell.TextFieldListCell;
-import javafx.scene.layout.HBox;
-import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Popup;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -32,11 +37,15 @@ public class LoadVerifyController {
 
     private final List<ErrorInfo> errors = new ArrayList<>();
 
-    private List<String> ontologyLines;
+    private final TextDocument ontologyDocument = new TextDocument(); // The lines of the ontology being edited
     private Ontology ontologyData;
+    private ErrorIndex errorIndex = new ErrorIndex(List.of()); // The errors highlighted in the editor, by line
+    private int lastShownError; // The start line of the last error block shown by showNextError
+    private String transformedFingerprint; // The fingerprint of the transformed ontology shown last
+    private LineIndex transformedLines; // The lines of the formatted transformed ontology shown last
 
     @FXML
-    private ListView<HBox> ontologyListView; // ListView to display ontology lines with error highlighting
+    private ListView<Integer> ontologyListView; // ListView to display ontology lines with error highlighting
     @FXML
     private ListView<String> ontologyTransformedListView; // ListView to display ontology lines transformed
     @FXML
@@ -48,8 +57,12 @@ public class LoadVerifyController {
      */
     @FXML
     public void initialize() {
-        ontologyLines = new ArrayList<>();
+        ontologyDocument.load(List.of());
         ontologyData = new Ontology();
+        ontologyListView.setCellFactory(_ -> new OntologyEditorCell(ontologyDocument.asList(), () -> errorIndex,
+                (button, block) -> openDiffDialog(button, Math.max(block.startLine() - 1, 0),
+                        Math.min(block.endLine(), ontologyDocument.lineCount()) - 1,
+                        block.firstError().errorMessage(), block.firstError().elementDetails())));
         ontologyListView.onScrollToProperty().bindBidirectional(ontologyTransformedListView.onScrollToProperty());
     }
 
@@ -78,8 +91,8 @@ public class LoadVerifyController {
             ontologyData.setOntologyExtension(file.getName().substring(file.getName()
                     .lastIndexOf(".") + 1));
 
-            if (ontologyData.getXmlData() != null && !ontologyData.getXmlData().isEmpty()) {
-                ontologyLines = new ArrayList<>(List.of(ontologyData.getXmlData().split("\\n")));
+            if (ontologyData.hasXmlData()) {
+                ontologyDocument.load(loadIndexes(file.toPath()).lines()); // Decodes the lines, not the whole text
                 highlightErrors(new ArrayList<>());
             } else {
                 AppLogger.severe("Ontology file is empty or could not be loaded.");
@@ -90,13 +103,41 @@ public class LoadVerifyController {
             Middleware.getInstance().setOntologyInput(ontologyData);
 
             // Clearing the transformed ListView
-            ontologyTransformedListView.getItems().clear();
+            ontologyTransformedListView.setItems(FXCollections.observableArrayList());
         } else {
             AppLogger.severe("Ontology file is null");
             CustomAlert.showError("Error", "Ontology file is null.");
         }
     }
 
+    /**
+     * Gets the line index of the loaded ontology from its sidecar index file, and caches its XPath index for the
+     * verification. If the sidecar is missing or stale, the line index is built now and the sidecar is written in
+     * the background, so the next load of the file is faster.
+     *
+     * @param path The path of the loaded ontology file.
+     * @return The line index of the loaded ontology.
+     */
+    private LineIndex loadIndexes(Path path) {
+        OntologyIndexFile indexFile = OntologyIndexFile.open(path, ontologyData);
+        if (indexFile != null) {
+            XPathIndexCache.getInstance().putHashed(indexFile.getContentHash(), indexFile.getXPathIndex());
+            return indexFile.getLineIndex();
+        }
+
+        Ontology loaded = new Ontology(ontologyData); // The editor changes ontologyData later
+        Thread.ofVirtual().name("index-writer").start(() -> {
+            try {
+                OntologyIndexFile built = OntologyIndexFile.build(loaded);
+                XPathIndexCache.getInstance().putHashed(built.getContentHash(), built.getXPathIndex());
+                built.write(path);
+            } catch (Exception e) {
+                AppLogger.warning("Could not write the index file of " + path + ": " + e.getMessage());
+            }
+        });
+        return LineIndex.of(ontologyData);
+    }
+
     /**
      * Verifies the loaded ontology and performs the necessary transformations if the ontology is invalid.
      * The status label is updated with the verification status.
@@ -104,18 +145,16 @@ public class LoadVerifyController {
     @FXML
     public void verifyFile() {
         // Clearing the transformed ListView
-        ontologyTransformedListView.getItems().clear();
+        ontologyTransformedListView.setItems(FXCollections.observableArrayList());
         try {
-            if (ontologyLines.isEmpty()) {
+            // The snapshot is the current version of the lines, later edits do not change it
+            TextDocument.Snapshot snapshot = ontologyDocument.snapshot();
+            if (snapshot.lineCount() == 0) {
                 statusLabel.setText("The ontology to verify cannot be empty!");
                 return;
             }
 
-            StringBuilder data = new StringBuilder();
-            for (String line : ontologyLines)
-                data.append(line).append("\n");
-
-            ontologyData.setXmlData(data.toString());
+            ontologyData.setXmlData(snapshot.text());
 
             Middleware.getInstance().setOntologyInput(ontologyData);
 
@@ -159,13 +198,17 @@ public class LoadVerifyController {
     private void setTransformedOntologyLines() {
         try {
             Ontology transformedOntology = Middleware.getInstance().getOntologyOutput();
-            if (transformedOntology.isEmpty() || transformedOntology.getXmlData() == null) {
-                ontologyTransformedListView.getItems().clear();
+            if (transformedOntology.isEmpty()) {
+                ontologyTransformedListView.setItems(FXCollections.observableArrayList());
                 return;
             }
-            transformedOntology = XMLFormatter.formatOntology(transformedOntology, true);
-            ontologyTransformedListView.getItems().clear();
-            ontologyTransformedListView.getItems().addAll(transformedOntology.getXmlData().split("\\n"));
+            // An unchanged transformed ontology is not formatted and indexed again
+            if (!transformedOntology.getFingerprint().equals(transformedFingerprint)) {
+                transformedLines = LineIndex.of(XMLFormatter.formatOntology(transformedOntology, true));
+                transformedFingerprint = transformedOntology.getFingerprint();
+            }
+            // The ListView only reads the visible lines, which the index decodes on demand
+            ontologyTransformedListView.setItems(FXCollections.observableList(transformedLines.lines()));
             ontologyTransformedListView.setCellFactory(TextFieldListCell.forListView());
             ontologyTransformedListView.setEditable(false);
         } catch (Exception e) {
@@ -177,103 +220,68 @@ public class LoadVerifyController {
     /**
      * Highlights the errors in the ontology and displays them in the ListView.
      * Each error block is displayed with a "Fix" button that opens a diff dialog to correct the error.
+     * <p>
+     * The errors are indexed once in an {@link ErrorIndex}, which merges overlapping errors into a single block.
+     * The ListView is virtualized: its items are the rows computed on demand from the index, one per line and one
+     * per error block, and only the visible rows get an {@link OntologyEditorCell}, which is reused while
+     * scrolling. The controls in memory do not depend on the size of the ontology.
+     * </p>
      *
      * @param errorList The list of errors to be highlighted in the ontology lines.
      */
     @FXML
     public void highlightErrors(List<ErrorInfo> errorList) {
-        ontologyListView.getItems().clear(); // Clear previous error highlights
-
-        List<Integer> processedLines = new ArrayList<>();
-
-        for (int i = 0; i < ontologyLines.size(); i++) {
-            if (processedLines.contains(i))
-                continue; // Skip lines that were already grouped into an error block
-
-            HBox hbox = new HBox(10);
-            VBox block = new VBox();
-            HBox.setHgrow(block, Priority.ALWAYS);
-
-            boolean isErrorBlock = false;
-            String errorMessage = "";
-            String errorDetails = "";
-            int blockStart = i, blockEnd = i;
-
-            // Check if the current line starts an error block
-            for (ErrorInfo error : errorList) {
-                if (i >= (error.startLine() - 1) && i <= (error.endLine() - 1)) {
-                    isErrorBlock = true;
-                    errorMessage = error.errorMessage();
-                    errorDetails = error.elementDetails();
-                    blockStart = error.startLine() - 1;
-                    blockEnd = error.endLine() - 1;
-                    break;
-                }
+        errorIndex = new ErrorIndex(errorList);
+        lastShownError = 0;
+
+        // Row i shows the 0-based line returned for it, without storing the rows
+        ErrorIndex rows = errorIndex;
+        ontologyListView.setItems(FXCollections.observableList(new AbstractList<>() {
+            @Override
+            public Integer get(int index) {
+                return rows.lineOfRow(index + 1) - 1;
             }
 
-            // Collect all lines in this error block
-            for (int j = blockStart; j <= blockEnd; j++) {
-                if (j < ontologyLines.size()) {
-                    if (isErrorBlock) {
-                        // Instead of a TextField, create a Label for error messages
-                        Label errorLabel = new Label(ontologyLines.get(j));
-                        errorLabel.setStyle("-fx-background-color: transparent; " +
-                                "-fx-border-color: transparent; " +
-                                "-fx-padding: 2px 5px; " +
-                                "-fx-font-size: 12px; -fx-text-fill: red;");
-                        block.getChildren().add(errorLabel);
-                    } else {
-                        // Add TextField if there is no error
-                        TextField textField = new TextField(ontologyLines.get(j));
-                        HBox.setHgrow(textField, Priority.ALWAYS); // Ensures horizontal growth
-                        textField.setStyle("-fx-background-color: transparent; " +
-                                "-fx-border-color: transparent; " +
-                                "-fx-padding: 2px 5px; " +
-                                "-fx-font-size: 12px;");
-
-                        // Add listener to update ontologyLines when the text is changed
-                        int finalJ = j;
-                        textField.textProperty().addListener((_, _, newValue)
-                                -> ontologyLines.set(finalJ, newValue));
-
-                        block.getChildren().add(textField);
-                    }
-                    processedLines.add(j);
-                }
+            @Override
+            public int size() {
+                return rows.rowCount(ontologyDocument.lineCount());
             }
+        }));
+        ontologyListView.refresh(); // Cells showing the same line may now show an error block
+    }
 
-            // Style the error block
-            if (isErrorBlock) {
-                block.setStyle("-fx-background-color: rgba(255, 0, 0, 0.2); -fx-padding: 5; -fx-border-color: red;");
-
-                // Create the "Fix" button
-                Button errorButton = new Button("Fix");
-                errorButton.getStyleClass().add("button-blue");
-                int finalStart = blockStart;
-                int finalEnd = blockEnd;
-                String finalErrorMessage = errorMessage;
-                String finalErrorDetails = errorDetails;
-
-                errorButton.setOnAction(_ ->
-                        openDiffDialog(finalStart, finalEnd, finalErrorMessage, finalErrorDetails));
-                hbox.getChildren().addAll(block, errorButton);
-            } else
-                hbox.getChildren().add(block);
-
-            ontologyListView.getItems().add(hbox);
+    /**
+     * Scrolls the ontology editor to the next error block, starting over from the first one after the last.
+     */
+    @FXML
+    private void showNextError() {
+        if (errorIndex == null || errorIndex.isEmpty()) {
+            statusLabel.setText("There are no errors to show.");
+            return;
         }
+
+        ErrorIndex.Block next = errorIndex.nextBlock(lastShownError);
+        if (next == null)
+            next = errorIndex.nextBlock(0);
+        lastShownError = next.startLine();
+
+        int row = errorIndex.rowOfLine(next.startLine()) - 1;
+        ontologyListView.scrollTo(row);
+        ontologyListView.getSelectionModel().select(row);
     }
 
     /**
      * Opens a popup dialog displaying the differences for a selected error block, allowing the user
      * to fix the error by modifying the corresponding ontology lines.
      *
+     * @param sourceButton   The "Fix" button of the error block, the popup is shown next to it.
      * @param startLineIndex The starting line index of the error block.
      * @param endLineIndex   The ending line index of the error block.
      * @param errorMessage   The message describing the error.
      * @param errorDetails   Additional details about the error.
      */
-    private void openDiffDialog(int startLineIndex, int endLineIndex, String errorMessage, String errorDetails) {
+    private void openDiffDialog(Button sourceButton, int startLineIndex, int endLineIndex, String errorMessage,
+                                String errorDetails) {
         Popup popup = new Popup();
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/GUI/Popup_layout.fxml"));
 
@@ -287,21 +295,13 @@ public class LoadVerifyController {
         }
 
         PopupController controller = loader.getController();
-        String blockText = String.join("\n", ontologyLines
-                .subList(startLineIndex, Math.min(endLineIndex + 1, ontologyLines.size())));
+        List<String> lines = ontologyDocument.snapshot().lines();
+        String blockText = String.join("\n", lines
+                .subList(startLineIndex, Math.min(endLineIndex + 1, lines.size())));
         controller.setPopupContext(startLineIndex, endLineIndex, blockText,
                 errorMessage, errorDetails, popup, this);
 
         // Position the popup near the first line of the error block
-        if (startLineIndex >= ontologyListView.getItems().size()) {
-            AppLogger.severe("Invalid block index for popup: " + startLineIndex);
-            CustomAlert.showError("Error", "Invalid block index for popup, check Logs for details.");
-            return;
-        }
-
-        HBox sourceHBox = ontologyListView.getItems().get(startLineIndex);
-        Button sourceButton = (Button) sourceHBox.getChildren().get(1);
-
         double x = sourceButton.localToScreen(sourceButton.getBoundsInLocal()).getMinX();
         double y = sourceButton.localToScreen(sourceButton.getBoundsInLocal()).getMinY();
 
@@ -315,8 +315,8 @@ public class LoadVerifyController {
      */
     @FXML
     private void clearAll() {
-        this.ontologyLines.clear();
-        this.ontologyListView.getItems().clear();
+        this.ontologyDocument.load(List.of());
+        highlightErrors(new ArrayList<>());
         Middleware.getInstance().setOntologyInput(null);
     }
 
@@ -326,17 +326,56 @@ public class LoadVerifyController {
      * @return A list of ontology lines.
      */
     public List<String> getOntologyLines() {
-        return new ArrayList<>(ontologyLines);
+        return new ArrayList<>(ontologyDocument.snapshot().lines());
     }
 
     /**
-     * Sets the list of ontology lines from a given list.
+     * Returns the number of ontology lines.
+     *
+     * @return The number of lines.
+     */
+    public int getLineCount() {
+        return ontologyDocument.lineCount();
+    }
+
+    /**
+     * Sets the list of ontology lines from a given list. The change can be undone.
      *
      * @param ontologyLines The list of ontology lines to be set.
      */
     public void setOntologyLines(List<String> ontologyLines) {
-        this.ontologyLines.clear();
-        this.ontologyLines.addAll(ontologyLines);
+        ontologyDocument.splice(0, ontologyDocument.lineCount(), ontologyLines);
+    }
+
+    /**
+     * Replaces a range of ontology lines. The change can be undone.
+     *
+     * @param from  The index of the first line to replace.
+     * @param to    The index following the last line to replace.
+     * @param lines The lines to insert instead.
+     */
+    public void replaceLines(int from, int to, List<String> lines) {
+        ontologyDocument.splice(from, Math.min(to, ontologyDocument.lineCount()), lines);
+    }
+
+    /**
+     * Undoes the last change of the ontology lines. The error highlights are cleared, since their lines may
+     * have moved.
+     */
+    @FXML
+    private void undoEdit() {
+        if (ontologyDocument.undo())
+            highlightErrors(new ArrayList<>());
+    }
+
+    /**
+     * Redoes the last undone change of the ontology lines. The error highlights are cleared, since their lines
+     * may have moved.
+     */
+    @FXML
+    private void redoEdit() {
+        if (ontologyDocument.redo())
+            highlightErrors(new ArrayList<>());
     }
 
     /**
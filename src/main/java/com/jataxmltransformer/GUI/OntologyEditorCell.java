@@ -0,0 +1,134 @@
+package com.jataxmltransformer.GUI;
+
+import com.jataxmltransformer.logic.data.ErrorIndex;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A reusable cell of the ontology editor, showing one row: either an editable line or a whole error block.
+ * <p>
+ * The ListView only creates the cells that are visible and moves them to other rows while scrolling, so the
+ * controls of a cell are created once and only their content changes in {@link #updateItem(Integer, boolean)}.
+ * The item of a cell is the 0-based index of the first line it shows; the error block of the line, if any, is
+ * looked up in the {@link ErrorIndex} when the cell is rendered.
+ * </p>
+ */
+public class OntologyEditorCell extends ListCell<Integer> {
+
+    private static final String LINE_STYLE = "-fx-background-color: transparent; " +
+            "-fx-border-color: transparent; " +
+            "-fx-padding: 2px 5px; " +
+            "-fx-font-size: 12px;";
+    private static final String ERROR_LINE_STYLE = LINE_STYLE + " -fx-text-fill: red;";
+    private static final String ERROR_BLOCK_STYLE =
+            "-fx-background-color: rgba(255, 0, 0, 0.2); -fx-padding: 5; -fx-border-color: red;";
+
+    private final List<String> lines;
+    private final Supplier<ErrorIndex> errorIndex;
+    private final ErrorAction onFix;
+
+    private final HBox row = new HBox(10);
+    private final VBox block = new VBox();
+    private final TextField textField = new TextField();
+    private final Button fixButton = new Button("Fix");
+    private final List<Label> errorLabels = new ArrayList<>(); // Reused by the error blocks shown by this cell
+
+    private int line = -1; // The line edited by the text field, -1 while the cell shows an error block
+    private ErrorIndex.Block error; // The error block shown by the cell
+
+    /**
+     * Constructs a cell of the ontology editor.
+     *
+     * @param lines      The lines of the ontology, updated when a line is edited.
+     * @param errorIndex Supplies the current index of the errors.
+     * @param onFix      The action run by the "Fix" button of an error block.
+     */
+    public OntologyEditorCell(List<String> lines, Supplier<ErrorIndex> errorIndex, ErrorAction onFix) {
+        this.lines = lines;
+        this.errorIndex = errorIndex;
+        this.onFix = onFix;
+
+        HBox.setHgrow(block, Priority.ALWAYS);
+        HBox.setHgrow(textField, Priority.ALWAYS); // Ensures horizontal growth
+        textField.setStyle(LINE_STYLE);
+        fixButton.getStyleClass().add("button-blue");
+
+        // Update the lines when the text is changed by the user, not when the cell moves to another line
+        textField.textProperty().addListener((_, _, newValue) -> {
+            if (line >= 0 && line < lines.size() && !newValue.equals(lines.get(line)))
+                lines.set(line, newValue);
+        });
+        fixButton.setOnAction(_ -> {
+            if (error != null)
+                onFix.fix(fixButton, error);
+        });
+    }
+
+    @Override
+    protected void updateItem(Integer item, boolean empty) {
+        super.updateItem(item, empty);
+        setText(null);
+        if (empty || item == null || item >= lines.size()) {
+            line = -1;
+            error = null;
+            setGraphic(null);
+            return;
+        }
+
+        error = errorIndex.get().blockAt(item + 1);
+        block.getChildren().clear();
+        row.getChildren().clear();
+
+        if (error == null) {
+            // Add TextField if there is no error
+            line = -1; // Do not write back the text set for the new line
+            textField.setText(lines.get(item));
+            line = item;
+            block.setStyle(null);
+            block.getChildren().add(textField);
+            row.getChildren().add(block);
+        } else {
+            line = -1;
+            int start = Math.max(error.startLine() - 1, 0);
+            int end = Math.min(error.endLine(), lines.size());
+            for (int i = start; i < end; i++) {
+                int index = i - start;
+                if (index == errorLabels.size()) {
+                    Label label = new Label();
+                    label.setStyle(ERROR_LINE_STYLE);
+                    errorLabels.add(label);
+                }
+                Label errorLabel = errorLabels.get(index);
+                errorLabel.setText(lines.get(i));
+                block.getChildren().add(errorLabel);
+            }
+            block.setStyle(ERROR_BLOCK_STYLE);
+            row.getChildren().addAll(block, fixButton);
+        }
+        setGraphic(row);
+    }
+
+    /**
+     * The action run by the "Fix" button of an error block.
+     */
+    @FunctionalInterface
+    public interface ErrorAction {
+
+        /**
+         * Runs the action.
+         *
+         * @param source The button that was pressed, to anchor a popup.
+         * @param block  The error block to fix; its first error describes it.
+         */
+        void fix(Button source, ErrorIndex.Block block);
+    }
+}
@@ -92,22 +92,13 @@ public class PopupController {
      * Saves the changes made to the erroneous line(s) and updates the ontology file.
      */
     private void saveChanges() {
-        if (lineIndex < 0 || lineIndex >= parentController.getOntologyLines().size())
+        if (lineIndex < 0 || lineIndex >= parentController.getLineCount())
             return;
 
-        List<String> ontologyLines = parentController.getOntologyLines(); // Get current lines
-
         String[] text = editedText.getText().split("\n"); // Get modified text
 
-        // Remove the erroneous lines from the ontology list
-        ontologyLines.subList(lineIndex, endIndex + 1).clear();
-
-        // Insert the corrected lines at the original position
-        for (int i = 0; i < text.length; i++)
-            ontologyLines.add(lineIndex + i, text[i]);
-
-        // Update ontology lines in the parent controller
-        parentController.setOntologyLines(ontologyLines);
+        // Replace the erroneous lines with the corrected ones in the parent controller
+        parentController.replaceLines(lineIndex, endIndex + 1, List.of(text));
 
         // Refresh the ListView to reflect changes
         parentController.highlightErrors(parentController.getErrors());
@@ -126,16 +117,11 @@ public class PopupController {
      * Removes the erroneous line(s) from the ontology file.
      */
     private void removeLine() {
-        if (lineIndex < 0 || lineIndex >= parentController.getOntologyLines().size())
+        if (lineIndex < 0 || lineIndex >= parentController.getLineCount())
             return;
 
-        List<String> ontologyLines = parentController.getOntologyLines(); // Get current lines
-
-        // Remove the lines within the specified range
-        ontologyLines.subList(lineIndex, endIndex + 1).clear();
-
-        // Update ontology lines in the parent controller
-        parentController.setOntologyLines(ontologyLines);
+        // Remove the lines within the specified range in the parent controller
+        parentController.replaceLines(lineIndex, endIndex + 1, List.of());
 
         // Refresh the ListView to reflect changes
         parentController.highlightErrors(parentController.getErrors());
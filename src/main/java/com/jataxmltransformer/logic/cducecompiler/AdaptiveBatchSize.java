@@ -0,0 +1,82 @@
+package com.jataxmltransformer.logic.cducecompiler;
+
+import java.time.Duration;
+
+/**
+ * Chooses how many ontologies a single CDuce run processes.
+ * <p>
+ * Each run pays the startup and type-checking of the CDuce code once, so the cost per file falls as batches grow,
+ * until the work on the files themselves dominates. The size doubles after every full batch that lowered the cost
+ * per file by at least 5% and finished within the target duration; it halves when a batch takes longer than the
+ * target or fails, so a failing file is retried among fewer others.
+ * </p>
+ *
+ * <h3>Usage Example:</h3>
+ * <pre>
+ *     AdaptiveBatchSize batchSize = new AdaptiveBatchSize(16, 1024, Duration.ofMinutes(1));
+ *     int files = Math.min(batchSize.get(), remaining);
+ *     long start = System.nanoTime();
+ *     // run the batch
+ *     batchSize.record(files, System.nanoTime() - start);
+ * </pre>
+ */
+public final class AdaptiveBatchSize {
+
+    private static final double MIN_IMPROVEMENT = 0.95; // A bigger batch must cost 5% less per file
+
+    private final int maxSize;
+    private final long targetNanos;
+    private int size;
+    private double bestNanosPerFile = Double.MAX_VALUE;
+
+    /**
+     * Constructs a batch size.
+     *
+     * @param initialSize The size of the first batch.
+     * @param maxSize     The largest size.
+     * @param target      The longest a batch should take.
+     */
+    public AdaptiveBatchSize(int initialSize, int maxSize, Duration target) {
+        if (initialSize < 1 || maxSize < initialSize)
+            throw new IllegalArgumentException("Invalid batch sizes: " + initialSize + ", " + maxSize);
+        this.size = initialSize;
+        this.maxSize = maxSize;
+        this.targetNanos = target.toNanos();
+    }
+
+    /**
+     * Gets the size of the next batch.
+     *
+     * @return The number of files.
+     */
+    public synchronized int get() {
+        return size;
+    }
+
+    /**
+     * Records how long a successful batch took.
+     *
+     * @param files        The number of files of the batch.
+     * @param elapsedNanos The duration of the batch.
+     */
+    public synchronized void record(int files, long elapsedNanos) {
+        if (elapsedNanos > targetNanos) {
+            size = Math.max(1, Math.min(size, files) / 2);
+            return;
+        }
+        if (files < size)
+            return; // A partial batch, the last of the inputs, says nothing about the size
+
+        double nanosPerFile = (double) elapsedNanos / files;
+        if (nanosPerFile < bestNanosPerFile * MIN_IMPROVEMENT)
+            size = Math.min(maxSize, size * 2);
+        bestNanosPerFile = Math.min(bestNanosPerFile, nanosPerFile);
+    }
+
+    /**
+     * Records that a batch failed.
+     */
+    public synchronized void failed() {
+        size = Math.max(1, size / 2);
+    }
+}
@@ -0,0 +1,102 @@
+package com.jataxmltransformer.logic.cducecompiler;
+
+import com.jataxmltransformer.logs.AppLogger;
+
+import java.util.function.Consumer;
+
+/**
+ * The report of a CDuce run over a batch of ontologies, filled line by line while the output arrives.
+ * <p>
+ * The batch code prints a {@code JXT FILE <index>} record, numbered from 1, before the records of each file, so the
+ * records that follow are handed to the {@link CDuceReport} of that file. Lines printed before the first file, such
+ * as compilation errors, go to a separate report, and {@code JXT END} closes the run.
+ * </p>
+ */
+public final class CDuceBatchReport implements Consumer<String> {
+
+    private static final String FILE_RECORD = CDuceReport.PREFIX + "FILE ";
+    private static final String END_RECORD = CDuceReport.PREFIX + "END";
+
+    private final CDuceReport[] reports;
+    private final CDuceReport preamble = new CDuceReport();
+    private CDuceReport current = preamble;
+    private boolean ended;
+
+    /**
+     * Constructs the report of a batch.
+     *
+     * @param files The number of files of the batch.
+     */
+    public CDuceBatchReport(int files) {
+        reports = new CDuceReport[files];
+    }
+
+    /**
+     * Consumes a line of output.
+     *
+     * @param line The line, without its terminator.
+     */
+    @Override
+    public void accept(String line) {
+        if (line.startsWith(FILE_RECORD)) {
+            try {
+                int index = Integer.parseInt(line.substring(FILE_RECORD.length()).strip());
+                current = new CDuceReport();
+                reports[index - 1] = current;
+            } catch (RuntimeException e) { // Not a number, or not a file of the batch
+                AppLogger.warning("Malformed CDuce record: " + line);
+            }
+        } else if (line.strip().equals(END_RECORD))
+            ended = true;
+        else
+            current.accept(line);
+    }
+
+    /**
+     * Gets the number of files of the batch.
+     *
+     * @return The number of files.
+     */
+    public int size() {
+        return reports.length;
+    }
+
+    /**
+     * Gets the report of a file.
+     *
+     * @param index The 0-based index of the file in the batch.
+     * @return The report, or {@code null} if the run did not reach the file.
+     */
+    public CDuceReport getReport(int index) {
+        return reports[index];
+    }
+
+    /**
+     * Checks whether a file was processed to the end, whether it was saved or not.
+     *
+     * @param index The 0-based index of the file in the batch.
+     * @return {@code true} if the report of the file holds the result of its transformation.
+     */
+    public boolean isComplete(int index) {
+        return reports[index] != null && reports[index].getSaved() != null;
+    }
+
+    /**
+     * Checks whether the run reached its end.
+     *
+     * @return {@code true} if the end record was read.
+     */
+    public boolean isEnded() {
+        return ended;
+    }
+
+    /**
+     * Gets the last lines of the output that are not records, printed before the first file or for the file the
+     * run stopped at.
+     *
+     * @return The lines, joined by new lines.
+     */
+    public String getOtherOutput() {
+        return current.getOtherOutput();
+    }
+}
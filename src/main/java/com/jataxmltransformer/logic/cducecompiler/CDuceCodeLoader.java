@@ -1,7 +1,10 @@
 package com.jataxmltransformer.logic.cducecompiler;
 
+import com.jataxmltransformer.logic.data.CheckStructure;
+import com.jataxmltransformer.logic.data.StructureProfile;
 import com.jataxmltransformer.logs.AppLogger;
 import io.github.cdimascio.dotenv.Dotenv;
+import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.FileReader;
@@ -17,6 +20,49 @@ import java.util.Map;
  */
 public class CDuceCodeLoader {
 
+    private static volatile StructureProfile lastLoadedProfile; // The profile whose code is in init_code.cd
+    private static volatile CDuceFilterGenerator.Mode filterMode = defaultFilterMode();
+    private static volatile boolean linearFilters = defaultLinearFilters();
+
+    /**
+     * Sets how the filter branches are generated for the structures compiled from now on. The default is read from
+     * the optional {@code CDUCE_FILTER_MODE} environment variable, {@code PER_ELEMENT} if it is not set.
+     *
+     * @param mode the code generation mode.
+     */
+    public static void setFilterMode(CDuceFilterGenerator.Mode mode) {
+        filterMode = mode == null ? CDuceFilterGenerator.Mode.PER_ELEMENT : mode;
+    }
+
+    /**
+     * Gets how the filter branches are generated.
+     *
+     * @return the code generation mode.
+     */
+    public static CDuceFilterGenerator.Mode getFilterMode() {
+        return filterMode;
+    }
+
+    /**
+     * Sets whether the filter functions of the structures compiled from now on are linear, built on
+     * {@code transform}, or recursive. The default is read from the optional {@code CDUCE_LINEAR_FILTERS}
+     * environment variable, recursive if it is not set.
+     *
+     * @param linear {@code true} for linear filters.
+     */
+    public static void setLinearFilters(boolean linear) {
+        linearFilters = linear;
+    }
+
+    /**
+     * Checks whether the filter functions are linear.
+     *
+     * @return {@code true} for linear filters, {@code false} for recursive ones.
+     */
+    public static boolean isLinearFilters() {
+        return linearFilters;
+    }
+
     /**
      * Loads and replaces placeholders in the CDuce code templates for checking ontology structure.
      *
@@ -27,31 +73,61 @@ public class CDuceCodeLoader {
      */
     public static void loadCheckStructure(List<String> namespaces, List<String> structure,
                                           List<String> attributes, List<String> classes) {
-        try {
-            // Convert lists to single strings for placeholders
-            String namespaceString = String.join("\n", namespaces);
-            String structureString = String.join("\n", structure);
+        CheckStructure checkStructure = new CheckStructure();
+        checkStructure.getNamespaces().addAll(namespaces);
+        checkStructure.setStructure(structure);
+        checkStructure.setAttributes(attributes);
+        checkStructure.setClasses(classes);
+        loadCheckStructure(compileCheckStructure(null, checkStructure));
+    }
 
-            // Initialize the placeholder replacer
+    /**
+     * Writes the CDuce code checking the ontology structure from a precompiled profile. Nothing is written if the
+     * profile is the one written last.
+     *
+     * @param profile the profile whose generated code is written.
+     */
+    public static void loadCheckStructure(StructureProfile profile) {
+        if (profile == lastLoadedProfile)
+            return;
+        try {
+            // Perform placeholder replacement
             CDucePlaceholderReplacer placeholderReplacer =
                     new CDucePlaceholderReplacer("base_code.cd", "init_code.cd");
-
-            // Map the placeholders to the actual content
-            Map<String, String> placeholders = new HashMap<>();
-            placeholders.put("{NAMESPACE_PLACEHOLDER}", namespaceString);
-            placeholders.put("{STRUCTURE_PLACEHOLDER}", structureString);
-            placeholders.put("{FILTER_ATTRIBUTES_PLACEHOLDER}",
-                    loadTemplateAndSubstitute("FILTER_ATTRIBUTES", attributes));
-            placeholders.put("{FILTER_CLASSES_PLACEHOLDER}",
-                    loadTemplateAndSubstitute("FILTER_CLASSES", classes));
-
-            // Perform placeholder replacement
-            placeholderReplacer.replacePlaceholders(placeholders);
+            placeholderReplacer.replacePlaceholders(profile.getCduceCode());
+            lastLoadedProfile = profile;
         } catch (Exception e) {
+            lastLoadedProfile = null;
             AppLogger.severe("Error loading structure check template: " + e.getMessage());
         }
     }
 
+    /**
+     * Generates the CDuce code checking an ontology structure, substituting each template once, and returns it
+     * with a snapshot of the structure as an immutable profile.
+     *
+     * @param name           the name of the profile, {@code null} for an unnamed one.
+     * @param checkStructure the namespaces, structure, attributes and classes; the namespaces include the default
+     *                       ones.
+     * @return the compiled profile.
+     */
+    public static StructureProfile compileCheckStructure(String name, CheckStructure checkStructure) {
+        CDuceFilterGenerator generator = new CDuceFilterGenerator(loadTemplates(), filterMode, linearFilters);
+
+        // Map the placeholders to the actual content
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put("{NAMESPACE_PLACEHOLDER}", String.join("\n", checkStructure.getNamespaces()));
+        placeholders.put("{STRUCTURE_PLACEHOLDER}", String.join("\n", checkStructure.getStructure()));
+        placeholders.put("{FILTER_FUNCTIONS_PLACEHOLDER}",
+                generator.filterFunctions(checkStructure.getAttributes(), checkStructure.getClasses()));
+        AppLogger.fine("Generated " + placeholders.values().stream().mapToInt(v -> v == null ? 0 : v.length()).sum()
+                + " characters of structure code in " + generator.getMode() + " mode, "
+                + (generator.isLinear() ? "linear" : "recursive") + " filters.");
+
+        return new StructureProfile(name, checkStructure.getNamespaces(), checkStructure.getStructure(),
+                checkStructure.getClasses(), checkStructure.getAttributes(), placeholders);
+    }
+
     /**
      * Loads the CDuce verification code template and replaces the placeholders with the provided ontology input.
      *
@@ -61,8 +137,8 @@ public class CDuceCodeLoader {
         try {
             // Prepare placeholders for verification
             Map<String, String> placeholders = new HashMap<>();
-            placeholders.put("{INPUT_FILE_PLACEHOLDER}", ontologyInput);
-            placeholders.put("{ENTRYPOINT_PLACEHOLDER}", loadTemplate("ENTRYPOINT_VERIFY"));
+            placeholders.put("{ENTRYPOINT_PLACEHOLDER}", substitute(loadTemplate("ENTRYPOINT_VERIFY"),
+                    Map.of("{INPUT_FILE_PLACEHOLDER}", ontologyInput)));
 
             // Replace placeholders in the template
             CDucePlaceholderReplacer placeholderReplacer =
@@ -83,9 +159,8 @@ public class CDuceCodeLoader {
         try {
             // Prepare placeholders for transformation
             Map<String, String> placeholders = new HashMap<>();
-            placeholders.put("{INPUT_FILE_PLACEHOLDER}", ontologyInput);
-            placeholders.put("{ENTRYPOINT_PLACEHOLDER}", loadTemplate("ENTRYPOINT_TRANSFORM"));
-            placeholders.put("{OUTPUT_FILE_PLACEHOLDER}", ontologyOutput);
+            placeholders.put("{ENTRYPOINT_PLACEHOLDER}", substitute(loadTemplate("ENTRYPOINT_TRANSFORM"),
+                    Map.of("{INPUT_FILE_PLACEHOLDER}", ontologyInput, "{OUTPUT_FILE_PLACEHOLDER}", ontologyOutput)));
 
             // Replace placeholders in the transformation template
             CDucePlaceholderReplacer placeholderReplacer =
@@ -97,24 +172,63 @@ public class CDuceCodeLoader {
     }
 
     /**
-     * Loads a template and substitutes placeholders for each element in the provided list.
+     * Loads the CDuce batch code template and replaces the placeholders with the manifest of the batch, so that a
+     * single CDuce run verifies and transforms every input file.
      *
-     * @param templateName the name of the template to be loaded.
-     * @param elements     the elements to be substituted in the template.
-     * @return the substituted template content as a string.
+     * @param ontologyInputs  the paths to the ontology input files.
+     * @param ontologyOutputs the paths to the ontology output files, one for each input.
+     * @throws IOException if the batch code could not be written, in which case the batch must not be run, since
+     *                     {@code batch_code.cd} may still hold the manifest of an earlier batch.
      */
-    private static String loadTemplateAndSubstitute(String templateName, List<String> elements) {
-        StringBuilder elementsBlock = new StringBuilder();
+    static void loadBatchMain(List<String> ontologyInputs, List<String> ontologyOutputs) throws IOException {
+        try {
+            // One call of process_file for each file, numbered from 1
+            StringBuilder manifest = new StringBuilder();
+            for (int i = 0; i < ontologyInputs.size(); i++)
+                manifest.append("process_file ").append(i + 1).append(' ').append(literal(ontologyInputs.get(i)))
+                        .append(' ').append(literal(ontologyOutputs.get(i))).append(";;\n");
 
-        for (String element : elements) {
-            String template = loadTemplate(templateName);
-            if (template == null) {
-                return null; // Return null if the template couldn't be loaded
-            }
-            // Substitute the placeholder in the template for each element
-            elementsBlock.append(template.replace("{PLACEHOLDER}", element)).append("\n");
+            String entrypoint = substitute(loadTemplate("ENTRYPOINT_BATCH"),
+                    Map.of("{BATCH_FILES_PLACEHOLDER}", manifest.toString()));
+            if (entrypoint == null)
+                throw new IOException("The batch entry point template could not be loaded.");
+            Map<String, String> placeholders = new HashMap<>();
+            placeholders.put("{ENTRYPOINT_PLACEHOLDER}", entrypoint);
+
+            // Replace placeholders in the batch template
+            CDucePlaceholderReplacer placeholderReplacer =
+                    new CDucePlaceholderReplacer("init_code.cd", "batch_code.cd");
+            placeholderReplacer.replacePlaceholders(placeholders);
+        } catch (Exception e) {
+            AppLogger.severe("Error loading batch code template: " + e.getMessage());
+            throw new IOException("Error loading batch code template: " + e.getMessage(), e);
         }
-        return elementsBlock.toString();
+    }
+
+    /**
+     * Replaces the placeholders of a template before it is itself substituted in the code, since the placeholder
+     * replacer does not replace the placeholders of the values it inserts in a predictable order.
+     *
+     * @param template     the template, or {@code null} if it could not be loaded.
+     * @param placeholders the placeholders and their values.
+     * @return the substituted template, or {@code null} if the template is {@code null}.
+     */
+    private static String substitute(String template, Map<String, String> placeholders) {
+        if (template == null)
+            return null;
+        for (Map.Entry<String, String> placeholder : placeholders.entrySet())
+            template = template.replace(placeholder.getKey(), placeholder.getValue());
+        return template;
+    }
+
+    /**
+     * Quotes a string as a CDuce string literal.
+     *
+     * @param value the string.
+     * @return the literal, with its backslashes and quotes escaped.
+     */
+    private static String literal(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
     }
 
     /**
@@ -124,6 +238,18 @@ public class CDuceCodeLoader {
      * @return the template content as a string.
      */
     private static String loadTemplate(String templateName) {
+        String template = loadTemplates().get(templateName);
+        if (template == null)
+            AppLogger.severe("The template '" + templateName + "' doesn't exist or could not be loaded.");
+        return template;
+    }
+
+    /**
+     * Loads all the non-empty templates of the CDuce template JSON file.
+     *
+     * @return the templates by name, empty if the file could not be loaded.
+     */
+    private static Map<String, String> loadTemplates() {
         // Read the template JSON file
         try (FileReader reader = new FileReader(Dotenv.load().get("CDUCE_TEMPLATE_PATH"))) {
             // Read the content of the file into a string
@@ -133,19 +259,43 @@ public class CDuceCodeLoader {
                 jsonContent.append((char) i);
             }
 
-            // Parse the JSON content to retrieve the template
+            // Parse the JSON content to retrieve the templates
             JSONObject jsonObject = new JSONObject(jsonContent.toString());
-            String template = jsonObject.optString(templateName);
-
-            if (template.isEmpty()) {
-                AppLogger.severe("The template '" + templateName + "' is empty.");
-                return null;
+            Map<String, String> templates = new HashMap<>();
+            for (String templateName : jsonObject.keySet()) {
+                String template = jsonObject.optString(templateName);
+                if (!template.isEmpty())
+                    templates.put(templateName, template);
             }
+            return templates;
+        } catch (IOException | JSONException e) {
+            AppLogger.severe("The CDuce templates could not be loaded: " + e.getMessage());
+            return Map.of();
+        }
+    }
 
-            return template;
-        } catch (IOException e) {
-            AppLogger.severe("The template '" + templateName + "' doesn't exist or could not be loaded.");
-            return null;
+    /**
+     * Reads whether the filters are linear by default from the environment.
+     *
+     * @return {@code true} if {@code CDUCE_LINEAR_FILTERS} is {@code true}.
+     */
+    private static boolean defaultLinearFilters() {
+        return Boolean.parseBoolean(Dotenv.configure().ignoreIfMissing().load().get("CDUCE_LINEAR_FILTERS"));
+    }
+
+    /**
+     * Reads the default code generation mode from the environment.
+     *
+     * @return the mode named by {@code CDUCE_FILTER_MODE}, or {@code PER_ELEMENT}.
+     */
+    private static CDuceFilterGenerator.Mode defaultFilterMode() {
+        try {
+            String mode = Dotenv.configure().ignoreIfMissing().load().get("CDUCE_FILTER_MODE");
+            return mode == null || mode.isBlank() ? CDuceFilterGenerator.Mode.PER_ELEMENT
+                    : CDuceFilterGenerator.Mode.valueOf(mode.strip().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            AppLogger.warning("Unknown CDUCE_FILTER_MODE, using PER_ELEMENT: " + e.getMessage());
+            return CDuceFilterGenerator.Mode.PER_ELEMENT;
         }
     }
 }
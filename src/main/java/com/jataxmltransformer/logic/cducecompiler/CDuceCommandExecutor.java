@@ -3,10 +3,17 @@ package com.jataxmltransformer.logic.cducecompiler;
 import com.jataxmltransformer.logic.data.Ontology;
 import com.jataxmltransformer.logic.shellinterface.ProcessExecutor;
 import com.jataxmltransformer.logic.shellinterface.ProcessExecutorInterface;
+import com.jataxmltransformer.logs.AppLogger;
 import com.jataxmltransformer.logic.utilities.PathUtility;
 import io.github.cdimascio.dotenv.Dotenv;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * CDuceCommandExecutor is responsible for executing CDuce commands to verify and transform ontologies.
@@ -16,6 +23,26 @@ public class CDuceCommandExecutor implements CDuceCommandExecutorInterface {
 
     private static final Dotenv dotenv = Dotenv.load(); // Load environment variables only once
 
+    private final ProcessExecutorInterface processExecutor;
+    private final AdaptiveBatchSize batchSize = new AdaptiveBatchSize(16, 1024, Duration.ofMinutes(1));
+    private CDuceReport lastReport; // The report of the last run
+
+    /**
+     * Constructs an executor running CDuce through a {@link ProcessExecutor}.
+     */
+    public CDuceCommandExecutor() {
+        this(new ProcessExecutor());
+    }
+
+    /**
+     * Constructs an executor running CDuce through the given process executor.
+     *
+     * @param processExecutor the executor of the shell commands.
+     */
+    public CDuceCommandExecutor(ProcessExecutorInterface processExecutor) {
+        this.processExecutor = processExecutor;
+    }
+
     /**
      * Verifies the given ontology using CDuce verification command.
      *
@@ -34,11 +61,11 @@ public class CDuceCommandExecutor implements CDuceCommandExecutorInterface {
         // Prepare the shell commands for executing the verification
         List<String> commands = prepareCommands(dotenv.get("CDUCE_CODE_PATH_ABSOLUTE"), "verify_code.cd");
 
-        // Execute the commands and capture the output
-        String output = executeShellCommands(commands);
+        // Execute the commands, reading the records of the output as they arrive
+        CDuceReport report = executeShellCommands(commands);
 
-        // Check if the output contains valid or invalid ontology information
-        return parseVerificationOutput(output);
+        // Check if the report holds valid or invalid ontology information
+        return parseVerificationOutput(report);
     }
 
     /**
@@ -60,11 +87,92 @@ public class CDuceCommandExecutor implements CDuceCommandExecutorInterface {
         // Prepare the shell commands for executing the transformation
         List<String> commands = prepareCommands(dotenv.get("CDUCE_CODE_PATH_ABSOLUTE"), "transform_code.cd");
 
-        // Execute the commands and capture the output
-        String output = executeShellCommands(commands);
+        // Execute the commands, reading the records of the output as they arrive
+        CDuceReport report = executeShellCommands(commands);
 
         // Analyze the result and return the transformed ontology if successful
-        return parseTransformationOutput(output);
+        return parseTransformationOutput(report);
+    }
+
+    /**
+     * Verifies and transforms a batch of ontology files, running CDuce once for many files so its startup and
+     * type-checking are paid once per batch. The number of files per run is chosen adaptively, and kept across calls.
+     * <p>
+     * If CDuce stops in the middle of a run, the files it completed keep their results, the file it stopped at is
+     * reported as failed, and the remaining files are run again in smaller batches.
+     * </p>
+     *
+     * @param inputs          the ontology files; their names must be distinct.
+     * @param outputDirectory the directory where the transformed ontologies are saved, under the names of the inputs.
+     * @return the result of each file, in the order of the inputs.
+     * @throws Exception if the batch code cannot be written, or CDuce cannot be run or fails before processing any file.
+     */
+    public List<BatchResult> processBatch(List<Path> inputs, Path outputDirectory) throws Exception {
+        List<Path> outputs = new ArrayList<>();
+        Set<Path> names = new HashSet<>();
+        for (Path input : inputs) {
+            if (!names.add(input.getFileName()))
+                throw new IllegalArgumentException("Duplicate ontology file name: " + input.getFileName());
+            outputs.add(outputDirectory.resolve(input.getFileName()));
+        }
+
+        List<BatchResult> results = new ArrayList<>();
+        while (results.size() < inputs.size()) {
+            int first = results.size();
+            int count = Math.min(batchSize.get(), inputs.size() - first);
+            List<Path> batchInputs = inputs.subList(first, first + count);
+            List<Path> batchOutputs = outputs.subList(first, first + count);
+
+            // Load the batch code with the manifest of the files, a failure aborts the batch
+            loadBatchCode(batchInputs, batchOutputs);
+            List<String> commands = prepareCommands(dotenv.get("CDUCE_CODE_PATH_ABSOLUTE"), "batch_code.cd");
+
+            long start = System.nanoTime();
+            CDuceBatchReport report = new CDuceBatchReport(count);
+            processExecutor.execute(commands, report);
+            long elapsed = System.nanoTime() - start;
+            AppLogger.fine("Batch of " + count + " ontologies took " + elapsed / 1_000_000 + " ms.");
+
+            // Keep the results of the files completed in order
+            int done = 0;
+            while (done < count && report.isComplete(done)) {
+                results.add(new BatchResult(batchInputs.get(done), batchOutputs.get(done), report.getReport(done)));
+                done++;
+            }
+            if (done == count) {
+                batchSize.record(count, elapsed);
+                continue;
+            }
+
+            batchSize.failed();
+            if (report.getReport(done) != null) // CDuce stopped on this file
+                results.add(new BatchResult(batchInputs.get(done), batchOutputs.get(done), report.getReport(done)));
+            else if (done == 0)
+                throw new Exception("Unexpected output from CDuce batch: " + report.getOtherOutput());
+            AppLogger.warning("CDuce batch stopped at " + batchInputs.get(done) + ", running the remaining files again.");
+        }
+        return results;
+    }
+
+    /**
+     * Writes the CDuce code of a batch, {@code batch_code.cd}, with the manifest of its files.
+     *
+     * @param inputs  the ontology files of the batch.
+     * @param outputs the files where the transformed ontologies are saved, one for each input.
+     * @throws IOException if the code cannot be written; the batch must then not be run.
+     */
+    protected void loadBatchCode(List<Path> inputs, List<Path> outputs) throws IOException {
+        CDuceCodeLoader.loadBatchMain(wslPaths(inputs), wslPaths(outputs));
+    }
+
+    /**
+     * Converts paths to absolute WSL paths.
+     *
+     * @param paths the paths.
+     * @return the WSL paths.
+     */
+    private static List<String> wslPaths(List<Path> paths) {
+        return paths.stream().map(path -> PathUtility.convertToWslPath(path.toAbsolutePath().toString())).toList();
     }
 
     /**
@@ -79,48 +187,91 @@ public class CDuceCommandExecutor implements CDuceCommandExecutorInterface {
     }
 
     /**
-     * Executes the shell commands and returns the output.
+     * Gets the report of the last verification or transformation, with the elements it removed.
+     *
+     * @return The report, or {@code null} if nothing was run yet.
+     */
+    public CDuceReport getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * Executes the shell commands and parses the records of the output while it is read. The time CDuce takes to
+     * compile and run the script is logged, so the generated code can be compared across code generation modes.
      *
      * @param commands the commands to be executed.
-     * @return the output from the shell execution.
+     * @return the report of the run.
      * @throws Exception if there is an error during execution.
      */
-    private String executeShellCommands(List<String> commands) throws Exception {
-        ProcessExecutorInterface processExecutor = new ProcessExecutor();
-        String output = processExecutor.execute(commands);
+    private CDuceReport executeShellCommands(List<String> commands) throws Exception {
+        CDuceReport report = new CDuceReport();
+        long start = System.nanoTime();
+        processExecutor.execute(commands, report);
+        AppLogger.fine("'" + commands.getLast() + "' took " + (System.nanoTime() - start) / 1_000_000 + " ms.");
 
-        if (output == null) throw new Exception("Unexpected output: null");
-        return output;
+        lastReport = report;
+        return report;
     }
 
     /**
-     * Parses the output of the ontology verification and returns the result.
+     * Gets the result of the ontology verification from its report.
      *
-     * @param output the output from the verification command.
+     * @param report the report of the verification command.
      * @return true if the ontology is valid, false if it is invalid.
-     * @throws Exception if the output is unexpected.
+     * @throws Exception if the output holds no result.
      */
-    private boolean parseVerificationOutput(String output) throws Exception {
-        if (output.contains("LOADED\nVALID ONTOLOGY\n")) return true; // Valid ontology
-        else if (output.contains("LOADED\nINVALID ONTOLOGY\n") || output.contains("SYNTAX ERROR"))
-            return false; // Invalid ontology or syntax error
-        else throw new Exception("Unexpected output from CDuce verification: " + output); // Handle unexpected output
+    private boolean parseVerificationOutput(CDuceReport report) throws Exception {
+        Boolean valid = report.getValid(); // Invalid ontology or syntax error if false
+        if (valid == null)
+            throw new Exception("Unexpected output from CDuce verification: " + report.getOtherOutput());
+        return valid;
     }
 
     /**
-     * Parses the output of the ontology transformation and returns the result.
+     * Gets the result of the ontology transformation from its report.
      *
-     * @param output the output from the transformation command.
+     * @param report the report of the transformation command.
      * @return the transformed ontology if successful, or null if the transformation failed.
-     * @throws Exception if the output is unexpected.
+     * @throws Exception if the output holds no result.
      */
-    private Ontology parseTransformationOutput(String output) throws Exception {
-        if (output.contains("LOADED") && output.contains("FILE SAVED")) {
-            Ontology result = new Ontology();
-            result.loadXmlFromFile(dotenv.get("ONTOLOGY_OUTPUT_ABSOLUTE"));
-            return result;
-        } else if ((output.contains("LOADED") && output.contains("FAILED")) || output.contains("SYNTAX ERROR"))
+    private Ontology parseTransformationOutput(CDuceReport report) throws Exception {
+        Boolean saved = report.getSaved();
+        if (saved == null)
+            throw new Exception("Unexpected output from CDuce transformation: " + report.getOtherOutput());
+        if (!saved)
             return null; // Invalid ontology or transformation failure
-        else throw new Exception("Unexpected output from CDuce transformation: " + output);
+
+        Ontology result = new Ontology();
+        // Read rather than mapped: the next run rewrites the file while the result may still be cached
+        result.loadXmlFromFile(dotenv.get("ONTOLOGY_OUTPUT_ABSOLUTE"), false);
+        return result;
+    }
+
+    /**
+     * The result of an ontology file of a batch.
+     *
+     * @param input  the ontology file.
+     * @param output the file where the transformed ontology is saved, if it is.
+     * @param report the report of the file, with its validity and the elements removed from it.
+     */
+    public record BatchResult(Path input, Path output, CDuceReport report) {
+
+        /**
+         * Checks whether the ontology was valid as it was.
+         *
+         * @return {@code true} if it was valid, {@code false} if it was not or could not be processed.
+         */
+        public boolean valid() {
+            return Boolean.TRUE.equals(report.getValid());
+        }
+
+        /**
+         * Checks whether a valid, possibly transformed, ontology was saved to the output file.
+         *
+         * @return {@code true} if the output file was written.
+         */
+        public boolean saved() {
+            return Boolean.TRUE.equals(report.getSaved());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,230 @@
+package com.jataxmltransformer.logic.cducecompiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Generates the match branches of the CDuce filter functions, {@code filter_valid_attributes} and
+ * {@code filter_valid_classes}, from the substitution templates.
+ * <p>
+ * In {@link Mode#PER_ELEMENT} mode every attribute and every class gets its own branch, so the generated code, and
+ * the time CDuce needs to compile it, grows with the number of entries. In {@link Mode#GROUPED} mode the attributes
+ * are merged into a single branch matching the union type {@code (A1 | A2 | ...)}, and the classes, which all share
+ * the same attribute filter, into a single branch matching the union of their patterns. A grouped class branch
+ * rebuilds an element with the tag and attributes it had, rather than only the attributes named in its pattern;
+ * class patterns that are not plain tag patterns keep their own branch.
+ * </p>
+ * <p>
+ * Independently of the mode, the filter functions are either recursive, matching the head of the list and appending
+ * it to the filtered tail with {@code @}, which costs quadratic time and a stack frame per element, or linear, built on
+ * CDuce's {@code transform ... with}, which maps every element to a sequence and concatenates them in one pass.
+ * </p>
+ *
+ * <h3>Usage Example:</h3>
+ * <pre>
+ *     CDuceFilterGenerator generator = new CDuceFilterGenerator(templates, CDuceFilterGenerator.Mode.GROUPED);
+ *     String attributeBranches = generator.attributeFilter(List.of("Label", "Comment"));
+ * </pre>
+ */
+public final class CDuceFilterGenerator {
+
+    /**
+     * The template of an attribute branch, with the type to match in place of {@code {PLACEHOLDER}}.
+     */
+    public static final String FILTER_ATTRIBUTES = "FILTER_ATTRIBUTES";
+
+    /**
+     * The template of a class branch, with the class pattern in place of {@code {PLACEHOLDER}}.
+     */
+    public static final String FILTER_CLASSES = "FILTER_CLASSES";
+
+    /**
+     * The template of a grouped class branch, with the union of the class patterns in place of {@code {PLACEHOLDER}}.
+     */
+    public static final String FILTER_CLASSES_GROUPED = "FILTER_CLASSES_GROUPED";
+
+    /**
+     * The template of the filter functions, with the branches in place of {@code {ATTRIBUTE_BRANCHES}} and
+     * {@code {CLASS_BRANCHES}}.
+     */
+    public static final String FILTER_FUNCTIONS = "FILTER_FUNCTIONS";
+
+    /**
+     * The suffix of the linear variant of each template.
+     */
+    public static final String LINEAR_SUFFIX = "_LINEAR";
+
+    // A tag pattern such as <owl:Class rdf:about=cls>, and the capture variables of its attributes (string literals
+    // are matched too, so that they are skipped)
+    private static final Pattern TAG_PATTERN = Pattern.compile("<([^<>\"]|\"[^\"]*\")+>");
+    private static final Pattern CAPTURE = Pattern.compile("\"[^\"]*\"|=\\s*[a-z_][A-Za-z0-9_']*");
+
+    /**
+     * The code generation modes.
+     */
+    public enum Mode {
+        /**
+         * One branch per attribute and per class.
+         */
+        PER_ELEMENT,
+        /**
+         * One union branch for the attributes and one for the classes.
+         */
+        GROUPED
+    }
+
+    private final Map<String, String> templates;
+    private final Mode mode;
+    private final boolean linear;
+
+    /**
+     * Constructs a generator of recursive filters.
+     *
+     * @param templates The templates by name; a missing template makes the code using it {@code null}.
+     * @param mode      The code generation mode.
+     */
+    public CDuceFilterGenerator(Map<String, String> templates, Mode mode) {
+        this(templates, mode, false);
+    }
+
+    /**
+     * Constructs a generator.
+     *
+     * @param templates The templates by name; a missing template makes the code using it {@code null}.
+     * @param mode      The code generation mode.
+     * @param linear    {@code true} to use the linear templates, {@code false} for the recursive ones.
+     */
+    public CDuceFilterGenerator(Map<String, String> templates, Mode mode, boolean linear) {
+        this.templates = templates;
+        this.mode = mode;
+        this.linear = linear;
+    }
+
+    /**
+     * Gets the code generation mode.
+     *
+     * @return The mode.
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Checks whether the linear templates are used.
+     *
+     * @return {@code true} for linear filters, {@code false} for recursive ones.
+     */
+    public boolean isLinear() {
+        return linear;
+    }
+
+    /**
+     * Generates the filter functions, {@code filter_valid_attributes} and {@code filter_valid_classes}, with their
+     * branches.
+     *
+     * @param attributes The attribute types.
+     * @param classes    The class patterns.
+     * @return The functions, or {@code null} if a template is missing.
+     */
+    public String filterFunctions(List<String> attributes, List<String> classes) {
+        String functions = template(FILTER_FUNCTIONS);
+        String attributeBranches = attributeFilter(attributes);
+        String classBranches = classFilter(classes);
+        if (functions == null || attributeBranches == null || classBranches == null)
+            return null;
+        return functions.replace("{ATTRIBUTE_BRANCHES}", attributeBranches).replace("{CLASS_BRANCHES}", classBranches);
+    }
+
+    /**
+     * Generates the branches of {@code filter_valid_attributes}.
+     *
+     * @param attributes The attribute types.
+     * @return The branches, empty if there are no attributes, or {@code null} if the template is missing.
+     */
+    public String attributeFilter(List<String> attributes) {
+        if (attributes.isEmpty())
+            return "";
+        String template = template(FILTER_ATTRIBUTES);
+        if (template == null)
+            return null;
+        if (mode == Mode.PER_ELEMENT || attributes.size() == 1)
+            return substituteEach(template, attributes);
+        return template.replace("{PLACEHOLDER}", "(" + String.join(" | ", attributes) + ")") + "\n";
+    }
+
+    /**
+     * Generates the branches of {@code filter_valid_classes}.
+     *
+     * @param classes The class patterns.
+     * @return The branches, empty if there are no classes, or {@code null} if a template is missing.
+     */
+    public String classFilter(List<String> classes) {
+        if (classes.isEmpty())
+            return "";
+        String template = template(FILTER_CLASSES);
+        String groupedTemplate = template(FILTER_CLASSES_GROUPED);
+        if (template == null)
+            return null;
+        if (mode == Mode.PER_ELEMENT || groupedTemplate == null || classes.size() == 1)
+            return substituteEach(template, classes);
+
+        List<String> alternatives = new ArrayList<>();
+        List<String> ungrouped = new ArrayList<>();
+        for (String element : classes) {
+            String trimmed = element.strip();
+            if (TAG_PATTERN.matcher(trimmed).matches())
+                alternatives.add(withoutCaptures(trimmed) + " _");
+            else
+                ungrouped.add(element);
+        }
+
+        StringBuilder branches = new StringBuilder();
+        if (alternatives.size() > 1)
+            branches.append(groupedTemplate.replace("{PLACEHOLDER}", String.join(" | ", alternatives))).append("\n");
+        else
+            ungrouped = classes; // Nothing to merge, keep the original branches in their order
+        branches.append(substituteEach(template, ungrouped));
+        return branches.toString();
+    }
+
+    /**
+     * Gets a template in the variant of the generator.
+     *
+     * @param name The name of the recursive template.
+     * @return The template, or {@code null} if it is missing.
+     */
+    private String template(String name) {
+        return templates.get(linear ? name + LINEAR_SUFFIX : name);
+    }
+
+    /**
+     * Substitutes the template once for each element.
+     *
+     * @param template The template.
+     * @param elements The elements.
+     * @return One branch per element.
+     */
+    private static String substituteEach(String template, List<String> elements) {
+        StringBuilder elementsBlock = new StringBuilder();
+        for (String element : elements) {
+            // Substitute the placeholder in the template for each element
+            elementsBlock.append(template.replace("{PLACEHOLDER}", element)).append("\n");
+        }
+        return elementsBlock.toString();
+    }
+
+    /**
+     * Replaces the capture variables of a tag pattern with wildcards, so that patterns binding different variables
+     * can be alternatives of the same union.
+     *
+     * @param tagPattern The tag pattern, such as {@code <owl:Class rdf:about=cls>}.
+     * @return The pattern without captures, such as {@code <owl:Class rdf:about=_>}.
+     */
+    private static String withoutCaptures(String tagPattern) {
+        return CAPTURE.matcher(tagPattern).replaceAll(match -> match.group().startsWith("\"")
+                ? Matcher.quoteReplacement(match.group()) : "=_");
+    }
+}
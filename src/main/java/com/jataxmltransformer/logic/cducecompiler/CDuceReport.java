@@ -0,0 +1,219 @@
+package com.jataxmltransformer.logic.cducecompiler;
+
+import com.jataxmltransformer.logs.AppLogger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The report of a CDuce run, filled line by line while the output arrives.
+ * <p>
+ * The generated CDuce code prints one record per line, each starting with {@code JXT}:
+ * </p>
+ * <ul>
+ *     <li>{@code JXT LOADED} or {@code JXT SYNTAX_ERROR}, once the input has been loaded;</li>
+ *     <li>{@code JXT VALID} or {@code JXT INVALID}, the result of a verification;</li>
+ *     <li>{@code JXT REMOVED CLASS <class> <reason>} and {@code JXT REMOVED ATTRIBUTE <class> <attribute> <reason>},
+ *     for each element the transformation drops, with its 1-based position among the children of the root and
+ *     among the children of its class;</li>
+ *     <li>{@code JXT COUNTS <removed classes> <removed attributes>}, the counters of the transformation;</li>
+ *     <li>{@code JXT SAVED} or {@code JXT FAILED}, the result of a transformation;</li>
+ *     <li>{@code JXT END}, the end of the run.</li>
+ * </ul>
+ * <p>
+ * Other lines, such as debugging output or CDuce warnings, are not records: only the last few are kept, to describe
+ * an unexpected output. The validity, the counters and the removed elements are therefore known without scanning or
+ * buffering the whole output.
+ * </p>
+ */
+public final class CDuceReport implements Consumer<String> {
+
+    /**
+     * The prefix of every record.
+     */
+    public static final String PREFIX = "JXT ";
+
+    private static final int KEPT_LINES = 20; // Lines kept to describe an unexpected output
+
+    /**
+     * The kinds of removed elements.
+     */
+    public enum Kind {
+        /**
+         * A child of the root, a class.
+         */
+        CLASS,
+        /**
+         * A child of a class, an attribute.
+         */
+        ATTRIBUTE
+    }
+
+    /**
+     * An element dropped by the transformation.
+     *
+     * @param kind              Whether a class or an attribute was removed.
+     * @param classPosition     The 1-based position of the class among the children of the root.
+     * @param attributePosition The 1-based position of the attribute among the children of its class, {@code 0} for
+     *                          a class.
+     * @param reason            Why it was removed: {@code unknown} if it matches no class or attribute, {@code empty}
+     *                          for a class left without valid attributes.
+     */
+    public record RemovedElement(Kind kind, int classPosition, int attributePosition, String reason) {
+    }
+
+    private final List<RemovedElement> removedElements = new ArrayList<>();
+    private final Deque<String> otherLines = new ArrayDeque<>();
+    private boolean loaded;
+    private boolean syntaxError;
+    private Boolean valid;
+    private Boolean saved;
+    private int removedClasses;
+    private int removedAttributes;
+    private boolean ended;
+
+    /**
+     * Consumes a line of output.
+     *
+     * @param line The line, without its terminator.
+     */
+    @Override
+    public void accept(String line) {
+        if (!line.startsWith(PREFIX)) {
+            if (otherLines.size() == KEPT_LINES)
+                otherLines.removeFirst();
+            otherLines.addLast(line);
+            return;
+        }
+
+        String[] fields = line.substring(PREFIX.length()).strip().split(" ");
+        try {
+            switch (fields[0]) {
+                case "LOADED" -> loaded = true;
+                case "SYNTAX_ERROR" -> syntaxError = true;
+                case "VALID" -> valid = true;
+                case "INVALID" -> valid = false;
+                case "SAVED" -> saved = true;
+                case "FAILED" -> saved = false;
+                case "END" -> ended = true;
+                case "COUNTS" -> {
+                    removedClasses = Integer.parseInt(fields[1]);
+                    removedAttributes = Integer.parseInt(fields[2]);
+                }
+                case "REMOVED" -> removed(fields);
+                default -> AppLogger.warning("Unknown CDuce record: " + line);
+            }
+        } catch (RuntimeException e) { // Missing or non-numeric fields
+            AppLogger.warning("Malformed CDuce record: " + line);
+        }
+    }
+
+    /**
+     * Records a removed element.
+     *
+     * @param fields The fields of the record.
+     */
+    private void removed(String[] fields) {
+        RemovedElement element = switch (Kind.valueOf(fields[1])) {
+            case CLASS -> new RemovedElement(Kind.CLASS, Integer.parseInt(fields[2]), 0, fields[3]);
+            case ATTRIBUTE -> new RemovedElement(Kind.ATTRIBUTE, Integer.parseInt(fields[2]),
+                    Integer.parseInt(fields[3]), fields[4]);
+        };
+        removedElements.add(element);
+        if (element.kind() == Kind.CLASS)
+            removedClasses++;
+        else
+            removedAttributes++;
+    }
+
+    /**
+     * Checks whether the input was loaded without syntax errors.
+     *
+     * @return {@code true} if the input was loaded.
+     */
+    public boolean isLoaded() {
+        return loaded && !syntaxError;
+    }
+
+    /**
+     * Checks whether the input had a syntax error.
+     *
+     * @return {@code true} if the input could not be loaded.
+     */
+    public boolean hasSyntaxError() {
+        return syntaxError;
+    }
+
+    /**
+     * Gets the result of the verification.
+     *
+     * @return {@code true} if the ontology is valid, {@code false} if it is not or could not be loaded, {@code null}
+     * if the output holds no result.
+     */
+    public Boolean getValid() {
+        if (syntaxError)
+            return false;
+        return loaded ? valid : null;
+    }
+
+    /**
+     * Gets the result of the transformation.
+     *
+     * @return {@code true} if the transformed ontology was saved, {@code false} if it failed or the input could not
+     * be loaded, {@code null} if the output holds no result.
+     */
+    public Boolean getSaved() {
+        if (syntaxError)
+            return false;
+        return loaded ? saved : null;
+    }
+
+    /**
+     * Gets the elements removed by the transformation, in document order.
+     *
+     * @return An unmodifiable list of removed elements.
+     */
+    public List<RemovedElement> getRemovedElements() {
+        return Collections.unmodifiableList(removedElements);
+    }
+
+    /**
+     * Gets the number of classes removed by the transformation.
+     *
+     * @return The number of removed classes.
+     */
+    public int getRemovedClasses() {
+        return removedClasses;
+    }
+
+    /**
+     * Gets the number of attributes removed by the transformation.
+     *
+     * @return The number of removed attributes.
+     */
+    public int getRemovedAttributes() {
+        return removedAttributes;
+    }
+
+    /**
+     * Checks whether the run reached its end.
+     *
+     * @return {@code true} if the end record was read.
+     */
+    public boolean isEnded() {
+        return ended;
+    }
+
+    /**
+     * Gets the last lines of the output that are not records.
+     *
+     * @return The lines, joined by new lines.
+     */
+    public String getOtherOutput() {
+        return String.join("\n", otherLines);
+    }
+}
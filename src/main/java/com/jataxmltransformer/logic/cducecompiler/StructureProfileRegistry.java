@@ -0,0 +1,186 @@
+package com.jataxmltransformer.logic.cducecompiler;
+
+import com.jataxmltransformer.logic.data.CheckStructure;
+import com.jataxmltransformer.logic.data.StructureProfile;
+import com.jataxmltransformer.logs.AppLogger;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A registry of named {@link StructureProfile}s, shared by the whole application.
+ * <p>
+ * Profiles are compiled once when they are registered, and looked up by name in O(1). Registering a profile under
+ * an existing name replaces it: sessions using the previous profile keep it, since profiles are immutable, and the
+ * next lookup returns the new one. The registry can be used from any thread.
+ * </p>
+ * <p>
+ * Profiles are loaded from the JSON format the structure editor saves, {@code structure}, {@code classes} and
+ * {@code attributes} arrays of strings, with an optional {@code namespaces} array holding either strings or the
+ * {@code {"namespace": ...}} objects of the namespace editor.
+ * </p>
+ *
+ * <h3>Usage Example:</h3>
+ * <pre>
+ *     StructureProfileRegistry.getInstance().loadFile(Path.of("profiles/persons.json"));
+ *     Middleware.getInstance().useProfile("persons");
+ * </pre>
+ */
+public final class StructureProfileRegistry {
+
+    private static final StructureProfileRegistry instance = new StructureProfileRegistry();
+
+    private final ConcurrentHashMap<String, StructureProfile> profiles = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs an empty registry.
+     */
+    public StructureProfileRegistry() {
+    }
+
+    /**
+     * Returns the registry shared by the application.
+     *
+     * @return The shared registry.
+     */
+    public static StructureProfileRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * Compiles a check structure into a profile and registers it, replacing any profile with the same name.
+     *
+     * @param name           The name of the profile.
+     * @param checkStructure The namespaces (default ones included), structure, classes and attributes; later
+     *                       changes to it do not affect the profile.
+     * @return The registered profile.
+     */
+    public StructureProfile register(String name, CheckStructure checkStructure) {
+        if (name == null || name.isBlank())
+            throw new IllegalArgumentException("Profile name cannot be empty.");
+        StructureProfile profile = CDuceCodeLoader.compileCheckStructure(name, checkStructure);
+        profiles.put(name, profile);
+        return profile;
+    }
+
+    /**
+     * Parses a profile in the JSON format of the structure editor and registers it.
+     *
+     * @param name The name of the profile.
+     * @param json The JSON content.
+     * @return The registered profile.
+     * @throws JSONException If the JSON content is not a valid profile.
+     */
+    public StructureProfile loadJson(String name, String json) {
+        JSONObject content = new JSONObject(json);
+        CheckStructure checkStructure = new CheckStructure();
+        checkStructure.setStructure(strings(content.getJSONArray("structure")));
+        checkStructure.setClasses(strings(content.getJSONArray("classes")));
+        checkStructure.setAttributes(strings(content.getJSONArray("attributes")));
+
+        List<String> namespaces = new ArrayList<>();
+        JSONArray namespaceArray = content.optJSONArray("namespaces");
+        if (namespaceArray != null)
+            for (int i = 0; i < namespaceArray.length(); i++) {
+                Object namespace = namespaceArray.get(i);
+                namespaces.add(namespace instanceof JSONObject object ? object.getString("namespace")
+                        : namespace.toString());
+            }
+        checkStructure.setNamespaces(checkStructure.cleanNamespaces(namespaces));
+
+        return register(name, checkStructure);
+    }
+
+    /**
+     * Loads a profile from a JSON file, named after the file without its {@code .json} extension.
+     *
+     * @param file The JSON file.
+     * @return The registered profile.
+     * @throws IOException   If the file cannot be read.
+     * @throws JSONException If the file is not a valid profile.
+     */
+    public StructureProfile loadFile(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        if (name.endsWith(".json"))
+            name = name.substring(0, name.length() - ".json".length());
+        return loadJson(name, Files.readString(file, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Loads every JSON file of a directory as a profile. Files that are not valid profiles are logged and skipped.
+     *
+     * @param directory The directory.
+     * @return The registered profiles.
+     * @throws IOException If the directory cannot be listed.
+     */
+    public List<StructureProfile> loadDirectory(Path directory) throws IOException {
+        List<StructureProfile> loaded = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.json")) {
+            for (Path file : files) {
+                try {
+                    loaded.add(loadFile(file));
+                } catch (IOException | JSONException e) {
+                    AppLogger.warning("Skipping structure profile " + file + ": " + e.getMessage());
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Gets a profile.
+     *
+     * @param name The name of the profile.
+     * @return The profile, or {@code null} if there is none with the name.
+     */
+    public StructureProfile get(String name) {
+        return name == null ? null : profiles.get(name);
+    }
+
+    /**
+     * Gets the names of the registered profiles.
+     *
+     * @return The sorted names.
+     */
+    public Set<String> getNames() {
+        return new TreeSet<>(profiles.keySet());
+    }
+
+    /**
+     * Removes a profile. Sessions using it keep it.
+     *
+     * @param name The name of the profile.
+     * @return {@code true} if a profile was removed.
+     */
+    public boolean remove(String name) {
+        return profiles.remove(name) != null;
+    }
+
+    /**
+     * Removes all the profiles.
+     */
+    public void clear() {
+        profiles.clear();
+    }
+
+    /**
+     * Converts a JSON array to a list of strings.
+     *
+     * @param array The array.
+     * @return The strings.
+     */
+    private static List<String> strings(JSONArray array) {
+        return array.toList().stream().map(Object::toString).toList();
+    }
+}
@@ -23,6 +23,18 @@ public class CheckStructure {
         this.attributes = new ArrayList<>();
     }
 
+    /**
+     * Constructs a CheckStructure holding modifiable copies of the lists of a profile.
+     *
+     * @param profile The profile to copy.
+     */
+    public CheckStructure(StructureProfile profile) {
+        this.namespaces = new ArrayList<>(profile.getNamespaces());
+        this.structure = new ArrayList<>(profile.getStructure());
+        this.classes = new ArrayList<>(profile.getClasses());
+        this.attributes = new ArrayList<>(profile.getAttributes());
+    }
+
     /**
      * Returns a list of default namespaces commonly used in RDF and OWL structures.
      *
@@ -39,6 +51,28 @@ public class CheckStructure {
         );
     }
 
+    /**
+     * Cleans a list of user namespaces: blank and default namespaces are dropped, and the {@code ;;} ending a CDuce
+     * declaration is appended where it is missing.
+     *
+     * @param namespaces The user namespaces.
+     * @return The cleaned namespaces.
+     */
+    public List<String> cleanNamespaces(List<String> namespaces) {
+        List<String> cleanedNamespaces = new ArrayList<>();
+
+        List<String> defaultNamespaces = getDefaultNamespaces();
+
+        for (String namespace : namespaces) {
+            if (!namespace.isBlank() && !defaultNamespaces.contains(namespace.replace(";;", ""))) {
+                if (!namespace.contains(";;"))
+                    namespace = namespace.concat(";;");
+                cleanedNamespaces.add(namespace);
+            }
+        }
+        return cleanedNamespaces;
+    }
+
     /**
      * Gets the list of attributes.
      *
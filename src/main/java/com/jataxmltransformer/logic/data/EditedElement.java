@@ -1,15 +1,23 @@
 package com.jataxmltransformer.logic.data;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import org.xmlunit.diff.ComparisonType;
 
 /**
  * Represents an edited element in an XML file, containing information about the difference found.
+ * <p>
+ * An edited element is immutable. It keeps the parts of the difference as separate fields (the control and
+ * test XPaths, the kind of comparison, the names of the node and of its parent and the value found in the test
+ * document), and builds the human-readable identifier from them only when {@link #getId()} is called.
+ * </p>
  */
-public class EditedElement {
-    private String data;
-    private String id;
-    private String xPath;
+public final class EditedElement {
+    private final String data;
+    private final String xPath;
+    private final String testXPath;
+    private final ComparisonType type;
+    private final String parentName;
+    private final String nodeName;
+    private String id; // Built lazily, racing threads build the same string
 
     /**
      * Constructor for the EditedElement class
@@ -22,84 +30,116 @@ public class EditedElement {
         this.data = data;
         this.id = id;
         this.xPath = xPath;
+        this.testXPath = parseTestXPath(id);
+        this.type = null;
+        this.parentName = null;
+        this.nodeName = null;
     }
+
     /**
-     * Constructor for the EditedElement class
+     * Constructor for the EditedElement class, describing a difference found by a diff checker.
+     *
+     * @param controlXPath The XPath of the node in the control document, or {@code null} if the node was added.
+     * @param testXPath    The XPath of the node in the test document, or {@code null} if the node was removed.
+     * @param type         The kind of comparison that found the difference.
+     * @param parentName   The name of the parent of the control node.
+     * @param nodeName     The name of the control node.
+     * @param data         The value found in the test document.
      */
-    public EditedElement() {
+    public EditedElement(String controlXPath, String testXPath, ComparisonType type, String parentName,
+                         String nodeName, String data) {
+        this.data = data;
+        this.xPath = controlXPath;
+        this.testXPath = testXPath;
+        this.type = type;
+        this.parentName = parentName;
+        this.nodeName = nodeName;
     }
 
     /**
-     * Gets the identifier of the edited element.
+     * Gets the identifier of the edited element, in the format
+     * {@code Control XPath: ... => Test XPath: ... | Context: Class: ..., Property: ...}.
      *
      * @return The identifier of the edited element.
      */
     public String getId() {
+        if (id == null && type != null)
+            id = "Control XPath: " + xPath + " => Test XPath: " + testXPath + " | Context: Class: " + parentName
+                    + ", Property: " + nodeName;
         return id;
     }
 
     /**
-     * Sets the identifier of the edited element.
+     * Gets the modified data value.
      *
-     * @param id The identifier to set.
+     * @return The modified data value.
      */
-    public void setId(String id) {
-        this.id = id;
+    public String getData() {
+        return data;
     }
 
     /**
-     * Gets the modified data value.
+     * Gets the XPath expression of the edited element, in the control document.
      *
-     * @return The modified data value.
+     * @return The XPath expression of the edited element.
      */
-    public String getData() {
-        return data;
+    public String getXPath() {
+        return xPath;
     }
 
     /**
-     * Sets the modified data value.
+     * Gets the XPath of the edited element in the test document.
      *
-     * @param data The modified data value to set.
+     * @return The test XPath, or {@code null} if the element has none.
      */
-    public void setData(String data) {
-        this.data = data;
+    public String getTestPath() {
+        return testXPath;
     }
 
     /**
-     * Gets the XPath expression of the edited element.
+     * Gets the kind of comparison that found the difference.
      *
-     * @return The XPath expression of the edited element.
+     * @return The comparison type, or {@code null} if the element was built from an identifier.
      */
-    public String getXPath() {
-        return xPath;
+    public ComparisonType getType() {
+        return type;
     }
 
     /**
-     * Sets the XPath expression of the edited element.
+     * Gets the name of the parent of the control node.
      *
-     * @param xPath The XPath expression to set.
+     * @return The parent name, or {@code null} if the element was built from an identifier.
      */
-    public void setXPath(String xPath) {
-        this.xPath = xPath;
+    public String getParentName() {
+        return parentName;
     }
 
     /**
-     * Extracts the test XPath value from the identifier string if it matches the predefined pattern.
-     * The identifier should contain a segment in the format "Test XPath: value" where "value" is the desired text to extract.
+     * Gets the name of the control node.
      *
-     * @return The extracted test XPath value if found, or null if the pattern does not match.
+     * @return The node name, or {@code null} if the element was built from an identifier.
      */
-    public String getTestPath() {
-        if (id == null)
-            return "";
+    public String getNodeName() {
+        return nodeName;
+    }
 
-        Pattern pattern = Pattern.compile("Test XPath: (.*?)(?:\\s*\\|\\s*|$)");
-        Matcher matcher = pattern.matcher(id);
+    /**
+     * Extracts the test XPath from an identifier containing a segment in the format "Test XPath: value", where
+     * the value ends at the next "|" or at the end of the identifier.
+     *
+     * @param id The identifier.
+     * @return The extracted test XPath, or {@code null} if there is none.
+     */
+    private static String parseTestXPath(String id) {
+        String marker = "Test XPath: ";
+        int start = id == null ? -1 : id.indexOf(marker);
+        if (start < 0)
+            return null;
 
-        if (matcher.find())
-            return matcher.group(1);
-        else
-            return "";
+        start += marker.length();
+        int end = id.indexOf('|', start);
+        String value = (end < 0 ? id.substring(start) : id.substring(start, end)).stripTrailing();
+        return value.equals("null") ? null : value;
     }
 
     /**
@@ -110,9 +150,9 @@ public class EditedElement {
     @Override
     public String toString() {
         return "EditedElement{" +
-                "id='" + id + '\'' +
+                "id='" + getId() + '\'' +
                 ", data='" + data + '\'' +
                 ", xPath='" + xPath + '\'' +
                 '}';
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,221 @@
+package com.jataxmltransformer.logic.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Indexes a list of {@link ErrorInfo} by line, to find the error covering a line without scanning all the errors.
+ * <p>
+ * The line ranges of the errors are sorted by start line and overlapping ranges are merged into disjoint
+ * {@link Block}s, so that every line belongs to at most one block. Both lookups are binary searches over the
+ * start lines of the blocks and run in O(log n).
+ * </p>
+ * <p>
+ * The index also maps lines to rows, when each block is shown as a single row: {@link #rowOfLine(int)},
+ * {@link #lineOfRow(int)} and {@link #rowCount(int)} let a view list the rows without materializing them.
+ * </p>
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * ErrorIndex index = new ErrorIndex(errors);
+ * ErrorIndex.Block block = index.blockAt(12);    // The block covering line 12, or null
+ * ErrorIndex.Block next = index.nextBlock(12);   // The first block starting after line 12, or null
+ * </pre>
+ */
+public class ErrorIndex {
+
+    private final int[] startLines;
+    private final int[] endLines;
+    private final int[] rows; // The row of each block, when each block is collapsed into a single row
+    private final List<Block> blocks;
+
+    /**
+     * Builds the index of the given errors. Errors whose end line precedes their start line are ignored.
+     *
+     * @param errors The errors to index, with 1-based lines.
+     */
+    public ErrorIndex(List<ErrorInfo> errors) {
+        List<ErrorInfo> sorted = new ArrayList<>();
+        for (ErrorInfo error : errors)
+            if (error.endLine() >= error.startLine())
+                sorted.add(error);
+        sorted.sort(Comparator.comparingInt(ErrorInfo::startLine)); // Stable, equal starts keep the list order
+
+        List<Block> merged = new ArrayList<>();
+        List<ErrorInfo> current = new ArrayList<>();
+        int start = 0, end = 0;
+        for (ErrorInfo error : sorted) {
+            if (!current.isEmpty() && error.startLine() > end) {
+                merged.add(new Block(start, end, List.copyOf(current)));
+                current.clear();
+            }
+            if (current.isEmpty()) {
+                start = error.startLine();
+                end = error.endLine();
+            } else
+                end = Math.max(end, error.endLine());
+            current.add(error);
+        }
+        if (!current.isEmpty())
+            merged.add(new Block(start, end, List.copyOf(current)));
+
+        blocks = Collections.unmodifiableList(merged);
+        startLines = new int[merged.size()];
+        endLines = new int[merged.size()];
+        rows = new int[merged.size()];
+        int hidden = 0; // The lines collapsed into the rows of the blocks before the current one
+        for (int i = 0; i < merged.size(); i++) {
+            startLines[i] = merged.get(i).startLine();
+            endLines[i] = merged.get(i).endLine();
+            rows[i] = startLines[i] - hidden;
+            hidden += endLines[i] - startLines[i];
+        }
+    }
+
+    /**
+     * Finds the block covering a line.
+     *
+     * @param line The 1-based line.
+     * @return The block covering the line, or {@code null} if the line has no errors.
+     */
+    public Block blockAt(int line) {
+        int i = lastStartingAtOrBefore(line);
+        return i >= 0 && endLines[i] >= line ? blocks.get(i) : null;
+    }
+
+    /**
+     * Finds the first block starting after a line.
+     *
+     * @param line The 1-based line, 0 to find the first block.
+     * @return The first block whose start line is greater than the line, or {@code null} if there is none.
+     */
+    public Block nextBlock(int line) {
+        int i = lastStartingAtOrBefore(line) + 1;
+        return i < blocks.size() ? blocks.get(i) : null;
+    }
+
+    /**
+     * Gets the row showing a line, when each block is collapsed into a single row.
+     *
+     * @param line The 1-based line.
+     * @return The 1-based row of the line, shared by all the lines of a block.
+     */
+    public int rowOfLine(int line) {
+        int i = lastStartingAtOrBefore(line);
+        if (i < 0)
+            return line;
+        return line <= endLines[i] ? rows[i] : rows[i] + line - endLines[i];
+    }
+
+    /**
+     * Gets the first line shown by a row, when each block is collapsed into a single row.
+     *
+     * @param row The 1-based row.
+     * @return The 1-based line of the row, the start line of its block for the row of a block.
+     */
+    public int lineOfRow(int row) {
+        int low = 0, high = rows.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (rows[middle] <= row)
+                low = middle + 1;
+            else
+                high = middle - 1;
+        }
+        if (high < 0)
+            return row;
+        return row == rows[high] ? startLines[high] : endLines[high] + row - rows[high];
+    }
+
+    /**
+     * Gets the number of rows showing the given number of lines, when each block is collapsed into a single row.
+     *
+     * @param lineCount The number of lines.
+     * @return The number of rows.
+     */
+    public int rowCount(int lineCount) {
+        if (lineCount <= 0)
+            return 0;
+        int i = lastStartingAtOrBefore(lineCount);
+        if (i < 0)
+            return lineCount;
+        return lineCount <= endLines[i] ? rows[i] : rows[i] + lineCount - endLines[i];
+    }
+
+    /**
+     * Gets the position of a block in the index.
+     *
+     * @param block A block of this index.
+     * @return The position of the block, in line order, or -1 if it does not belong to this index.
+     */
+    public int indexOf(Block block) {
+        int i = lastStartingAtOrBefore(block.startLine());
+        return i >= 0 && blocks.get(i) == block ? i : -1;
+    }
+
+    /**
+     * Gets all the blocks.
+     *
+     * @return An unmodifiable list of the blocks, in line order.
+     */
+    public List<Block> getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * Gets the number of blocks.
+     *
+     * @return The number of blocks.
+     */
+    public int size() {
+        return blocks.size();
+    }
+
+    /**
+     * Checks whether there are no errors.
+     *
+     * @return {@code true} if the index has no blocks.
+     */
+    public boolean isEmpty() {
+        return blocks.isEmpty();
+    }
+
+    /**
+     * Binary searches the last block starting at or before a line.
+     *
+     * @param line The 1-based line.
+     * @return The position of the block, or -1 if every block starts after the line.
+     */
+    private int lastStartingAtOrBefore(int line) {
+        int low = 0, high = startLines.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (startLines[middle] <= line)
+                low = middle + 1;
+            else
+                high = middle - 1;
+        }
+        return high;
+    }
+
+    /**
+     * A range of lines covered by one or more overlapping errors.
+     *
+     * @param startLine The first line of the block, 1-based.
+     * @param endLine   The last line of the block, inclusive.
+     * @param errors    The errors merged into the block, sorted by start line; never empty.
+     */
+    public record Block(int startLine, int endLine, List<ErrorInfo> errors) {
+
+        /**
+         * Gets the error the block is reported with: the one starting first.
+         *
+         * @return The first error of the block.
+         */
+        public ErrorInfo firstError() {
+            return errors.getFirst();
+        }
+    }
+}
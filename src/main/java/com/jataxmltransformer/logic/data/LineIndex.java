@@ -0,0 +1,542 @@
+package com.jataxmltransformer.logic.data;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An index of the line starts and of the top-level elements of UTF-8 XML data, built in one pass over the bytes.
+ * <p>
+ * The scan reads eight bytes at a time and finds the next line feed or {@code <} in them with word-wide bit
+ * operations (SWAR), so the text between the tags is skipped without looking at every byte; the markup itself is
+ * read byte by byte, with a plain scalar loop also handling the last bytes of the data. The index only keeps
+ * offsets in two {@code long[]} arrays: a line or an element is decoded when it is asked for, so the data is never
+ * split into a {@link String} per line.
+ * </p>
+ * <p>
+ * Lines end at each line feed, which is not part of the line, like {@code text.split("\n")}: a carriage return
+ * before it is kept and a final line feed does not start an empty line. The top-level elements are the children of
+ * the root element, such as the classes and properties of an ontology.
+ * </p>
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * LineIndex index = LineIndex.of(ontology);
+ * String line = index.line(41);            // The 42nd line
+ * int errorLine = index.lineOf(offset);    // The 0-based line of a byte offset
+ * String element = index.element(0);       // The first class, property... of the ontology
+ * </pre>
+ */
+public final class LineIndex {
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long LINE_FEEDS = '\n' * ONES;
+    private static final long OPENING_BRACKETS = '<' * ONES;
+
+    private final ByteBuffer bytes;
+    private final long[] lineStarts;
+    private final int lineCount;
+    private final long[] elements; // The start and end offsets of each top-level element, in pairs
+    private final int elementCount;
+
+    /**
+     * Constructs an index.
+     *
+     * @param bytes        The indexed data.
+     * @param lineStarts   The offsets of the line starts, followed by unused space.
+     * @param lineCount    The number of lines.
+     * @param elements     The start and end offsets of the top-level elements, followed by unused space.
+     * @param elementCount The number of top-level elements.
+     */
+    private LineIndex(ByteBuffer bytes, long[] lineStarts, int lineCount, long[] elements, int elementCount) {
+        this.bytes = bytes;
+        this.lineStarts = lineStarts;
+        this.lineCount = lineCount;
+        this.elements = elements;
+        this.elementCount = elementCount;
+    }
+
+    /**
+     * Indexes the XML data of an ontology, reading its UTF-8 bytes.
+     *
+     * @param ontology The ontology.
+     * @return The index, empty if the ontology has no XML data.
+     */
+    public static LineIndex of(Ontology ontology) {
+        ByteBuffer buffer = ontology.getXmlBuffer();
+        return of(buffer == null ? ByteBuffer.allocate(0) : buffer);
+    }
+
+    /**
+     * Indexes UTF-8 XML data.
+     *
+     * @param bytes The data.
+     * @return The index.
+     */
+    public static LineIndex of(byte[] bytes) {
+        return of(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Indexes the remaining bytes of a buffer holding UTF-8 XML data. The buffer is not modified, and must not be
+     * modified while the index is used.
+     *
+     * @param buffer The data.
+     * @return The index, with offsets relative to the position of the buffer.
+     */
+    public static LineIndex of(ByteBuffer buffer) {
+        return new Scanner(buffer.slice()).scan();
+    }
+
+    /**
+     * Reads an index written by {@link #writeTo(DataOutput)}, without scanning the data again.
+     *
+     * @param in   The buffer, positioned at the start of the index and advanced past it.
+     * @param data The indexed UTF-8 data.
+     * @return The index.
+     * @throws IllegalArgumentException If the index is not valid for the data.
+     */
+    public static LineIndex read(ByteBuffer in, ByteBuffer data) {
+        ByteBuffer bytes = data.slice();
+        try {
+            long[] lineStarts = readOffsets(in, 1, bytes.limit());
+            long[] elements = readOffsets(in, 2, bytes.limit());
+            return new LineIndex(bytes, lineStarts, lineStarts.length, elements, elements.length / 2);
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("Truncated line index", e);
+        }
+    }
+
+    /**
+     * Writes the index in a binary form, read back by {@link #read(ByteBuffer, ByteBuffer)}: the line starts, then
+     * the start and end offsets of the top-level elements. The data itself is not written.
+     *
+     * @param out The output.
+     * @throws IOException If the index cannot be written.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(lineCount);
+        for (int i = 0; i < lineCount; i++)
+            out.writeLong(lineStarts[i]);
+        out.writeInt(elementCount);
+        for (int i = 0; i < 2 * elementCount; i++)
+            out.writeLong(elements[i]);
+    }
+
+    /**
+     * Gets the number of lines.
+     *
+     * @return The number of lines.
+     */
+    public int lineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Gets the offset of the first byte of a line.
+     *
+     * @param line The 0-based line.
+     * @return The offset of the line.
+     */
+    public long lineStart(int line) {
+        return lineStarts[checkLine(line)];
+    }
+
+    /**
+     * Gets the offset following the last byte of a line, its line feed excluded.
+     *
+     * @param line The 0-based line.
+     * @return The end offset of the line.
+     */
+    public long lineEnd(int line) {
+        checkLine(line);
+        if (line + 1 < lineCount)
+            return lineStarts[line + 1] - 1;
+        int end = bytes.limit();
+        return end > lineStarts[line] && bytes.get(end - 1) == '\n' ? end - 1 : end;
+    }
+
+    /**
+     * Decodes a line.
+     *
+     * @param line The 0-based line.
+     * @return The line, without its line feed.
+     */
+    public String line(int line) {
+        return decode(lineStart(line), lineEnd(line));
+    }
+
+    /**
+     * Returns the lines as an unmodifiable list, decoding each line when it is read.
+     *
+     * @return A list view of the lines.
+     */
+    public List<String> lines() {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return line(index);
+            }
+
+            @Override
+            public int size() {
+                return lineCount;
+            }
+        };
+    }
+
+    /**
+     * Finds the line holding a byte.
+     *
+     * @param offset The offset of the byte.
+     * @return The 0-based line of the byte, or -1 if the data has no lines.
+     */
+    public int lineOf(long offset) {
+        int line = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+        return line >= 0 ? line : -line - 2;
+    }
+
+    /**
+     * Gets the number of top-level elements.
+     *
+     * @return The number of children of the root element.
+     */
+    public int elementCount() {
+        return elementCount;
+    }
+
+    /**
+     * Gets the offset of the {@code <} opening a top-level element.
+     *
+     * @param element The 0-based top-level element.
+     * @return The start offset of the element.
+     */
+    public long elementStart(int element) {
+        return elements[2 * checkElement(element)];
+    }
+
+    /**
+     * Gets the offset following the {@code >} closing a top-level element.
+     *
+     * @param element The 0-based top-level element.
+     * @return The end offset of the element.
+     */
+    public long elementEnd(int element) {
+        return elements[2 * checkElement(element) + 1];
+    }
+
+    /**
+     * Decodes a top-level element, from its start tag to its end tag.
+     *
+     * @param element The 0-based top-level element.
+     * @return The XML of the element.
+     */
+    public String element(int element) {
+        return decode(elementStart(element), elementEnd(element));
+    }
+
+    /**
+     * Decodes a range of the data.
+     *
+     * @param start The offset of the first byte.
+     * @param end   The offset following the last byte.
+     * @return The decoded text.
+     */
+    private String decode(long start, long end) {
+        return StandardCharsets.UTF_8.decode(bytes.slice((int) start, (int) (end - start))).toString();
+    }
+
+    /**
+     * Reads a count followed by offsets, checking that they are within the data.
+     *
+     * @param in     The buffer, advanced past the offsets.
+     * @param stride The number of offsets per counted item.
+     * @param limit  The size of the data.
+     * @return The offsets.
+     */
+    private static long[] readOffsets(ByteBuffer in, int stride, int limit) {
+        long[] offsets = new long[in.getInt() * stride];
+        in.asLongBuffer().get(offsets);
+        in.position(in.position() + offsets.length * Long.BYTES);
+        for (long offset : offsets)
+            if (offset < 0 || offset > limit)
+                throw new IllegalArgumentException("Offset " + offset + " is outside the data");
+        return offsets;
+    }
+
+    /**
+     * Checks the index of a line.
+     *
+     * @param line The 0-based line.
+     * @return The line.
+     */
+    private int checkLine(int line) {
+        if (line < 0 || line >= lineCount)
+            throw new IndexOutOfBoundsException("Line " + line + " of " + lineCount);
+        return line;
+    }
+
+    /**
+     * Checks the index of a top-level element.
+     *
+     * @param element The 0-based top-level element.
+     * @return The element.
+     */
+    private int checkElement(int element) {
+        if (element < 0 || element >= elementCount)
+            throw new IndexOutOfBoundsException("Element " + element + " of " + elementCount);
+        return element;
+    }
+
+    /**
+     * Finds the bytes of a word equal to zero.
+     *
+     * @param word Eight bytes, in little-endian order.
+     * @return A word whose lowest set bit is the high bit of the first zero byte, or 0 if there is none.
+     */
+    private static long zeroBytes(long word) {
+        return (word - ONES) & ~word & HIGH_BITS;
+    }
+
+    /**
+     * The single pass building an index, tracking the depth of the elements.
+     */
+    private static final class Scanner {
+        private final ByteBuffer bytes;
+        private final int limit;
+        private long[] lineStarts = new long[1024];
+        private int lineCount;
+        private long[] elements = new long[256];
+        private int elementCount;
+        private int depth;
+
+        /**
+         * Constructs a scanner.
+         *
+         * @param bytes The data.
+         */
+        private Scanner(ByteBuffer bytes) {
+            this.bytes = bytes;
+            this.limit = bytes.limit();
+        }
+
+        /**
+         * Scans the data.
+         *
+         * @return The index.
+         */
+        private LineIndex scan() {
+            if (limit > 0)
+                addLine(0);
+
+            int position = 0;
+            while ((position = nextLineFeedOrTag(position)) < limit) {
+                if (bytes.get(position) == '\n')
+                    position = lineFeed(position);
+                else
+                    position = markup(position);
+            }
+            return new LineIndex(bytes, lineStarts, lineCount, elements, elementCount);
+        }
+
+        /**
+         * Finds the next line feed or {@code <}, eight bytes at a time and then byte by byte.
+         *
+         * @param position The offset to start from.
+         * @return The offset of the byte found, or the limit if there is none.
+         */
+        private int nextLineFeedOrTag(int position) {
+            for (; position + Long.BYTES <= limit; position += Long.BYTES) {
+                long word = (long) LONGS.get(bytes, position);
+                long found = zeroBytes(word ^ LINE_FEEDS) | zeroBytes(word ^ OPENING_BRACKETS);
+                if (found != 0)
+                    return position + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+            for (; position < limit; position++) {
+                byte b = bytes.get(position);
+                if (b == '\n' || b == '<')
+                    return position;
+            }
+            return limit;
+        }
+
+        /**
+         * Reads markup starting with {@code <}: a tag, a comment, a CDATA section, a processing instruction or a
+         * declaration.
+         *
+         * @param start The offset of the {@code <}.
+         * @return The offset following the markup.
+         */
+        private int markup(int start) {
+            if (startsWith(start, "<!--"))
+                return skipTo(start + 4, "-->");
+            if (startsWith(start, "<![CDATA["))
+                return skipTo(start + 9, "]]>");
+            if (startsWith(start, "<?"))
+                return skipTo(start + 2, "?>");
+            if (startsWith(start, "<!"))
+                return declaration(start + 2);
+
+            boolean endTag = start + 1 < limit && bytes.get(start + 1) == '/';
+            int end = tag(start + 1);
+            boolean emptyTag = end - 2 > start && bytes.get(end - 2) == '/';
+            if (endTag) {
+                if (depth == 2)
+                    closeElement(end);
+                depth = Math.max(depth - 1, 0);
+            } else {
+                if (depth == 1)
+                    openElement(start);
+                if (emptyTag) {
+                    if (depth == 1)
+                        closeElement(end);
+                } else
+                    depth++;
+            }
+            return end;
+        }
+
+        /**
+         * Reads the rest of a tag, skipping quoted attribute values.
+         *
+         * @param position The offset following the {@code <}.
+         * @return The offset following the {@code >}, or the limit if the tag is not closed.
+         */
+        private int tag(int position) {
+            byte quote = 0;
+            for (; position < limit; position++) {
+                byte b = bytes.get(position);
+                if (b == '\n')
+                    addLine(position + 1);
+                else if (quote != 0) {
+                    if (b == quote)
+                        quote = 0;
+                } else if (b == '"' || b == '\'')
+                    quote = b;
+                else if (b == '>')
+                    return position + 1;
+            }
+            return limit;
+        }
+
+        /**
+         * Reads the rest of a declaration such as {@code <!DOCTYPE ...>}, including its internal subset.
+         *
+         * @param position The offset following the {@code <!}.
+         * @return The offset following the closing {@code >}, or the limit if it is not closed.
+         */
+        private int declaration(int position) {
+            int brackets = 0;
+            byte quote = 0;
+            for (; position < limit; position++) {
+                byte b = bytes.get(position);
+                if (b == '\n')
+                    addLine(position + 1);
+                else if (quote != 0) {
+                    if (b == quote)
+                        quote = 0;
+                } else if (b == '"' || b == '\'')
+                    quote = b;
+                else if (b == '[')
+                    brackets++;
+                else if (b == ']')
+                    brackets--;
+                else if (b == '>' && brackets <= 0)
+                    return position + 1;
+            }
+            return limit;
+        }
+
+        /**
+         * Skips to the end of a terminator, recording the lines on the way.
+         *
+         * @param position   The offset to start from.
+         * @param terminator The ASCII terminator.
+         * @return The offset following the terminator, or the limit if there is none.
+         */
+        private int skipTo(int position, String terminator) {
+            for (; position < limit; position++) {
+                byte b = bytes.get(position);
+                if (b == '\n')
+                    addLine(position + 1);
+                else if (b == terminator.charAt(0) && startsWith(position, terminator))
+                    return position + terminator.length();
+            }
+            return limit;
+        }
+
+        /**
+         * Records the line starting after a line feed.
+         *
+         * @param position The offset of the line feed.
+         * @return The offset following the line feed.
+         */
+        private int lineFeed(int position) {
+            addLine(position + 1);
+            return position + 1;
+        }
+
+        /**
+         * Checks whether the data contains an ASCII string at an offset.
+         *
+         * @param position The offset.
+         * @param prefix   The string.
+         * @return {@code true} if the bytes at the offset are the string.
+         */
+        private boolean startsWith(int position, String prefix) {
+            if (position + prefix.length() > limit)
+                return false;
+            for (int i = 0; i < prefix.length(); i++)
+                if (bytes.get(position + i) != prefix.charAt(i))
+                    return false;
+            return true;
+        }
+
+        /**
+         * Records the start of a line, unless it would be an empty line at the end of the data.
+         *
+         * @param offset The offset of the line.
+         */
+        private void addLine(int offset) {
+            if (offset >= limit)
+                return;
+            if (lineCount == lineStarts.length)
+                lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+            lineStarts[lineCount++] = offset;
+        }
+
+        /**
+         * Records the start of a top-level element.
+         *
+         * @param offset The offset of its {@code <}.
+         */
+        private void openElement(int offset) {
+            if (2 * elementCount + 2 > elements.length)
+                elements = Arrays.copyOf(elements, elements.length * 2);
+            elements[2 * elementCount] = offset;
+            elements[2 * elementCount + 1] = limit; // Until it is closed
+            elementCount++;
+        }
+
+        /**
+         * Records the end of the current top-level element.
+         *
+         * @param offset The offset following its {@code >}.
+         */
+        private void closeElement(int offset) {
+            if (elementCount > 0)
+                elements[2 * elementCount - 1] = offset;
+        }
+    }
+}
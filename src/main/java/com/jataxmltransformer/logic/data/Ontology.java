@@ -1,8 +1,19 @@
 package com.jataxmltransformer.logic.data;
 
-import com.jataxmltransformer.logic.xml.XMLFormatter;
-
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 
 /**
  * The {@code Ontology} class represents an ontology containing XML data, the name of the ontology,
@@ -12,6 +23,17 @@ import java.io.*;
  * It allows you to store the XML content of the ontology, manage the name and extension of the ontology,
  * and provide file persistence operations.
  * </p>
+ * <p>
+ * The XML content is held either as a string or as UTF-8 bytes, which may be a memory-mapped region of a file.
+ * Bytes are decoded into a string only when {@link #getXmlData()} is called: {@link #openXmlReader()},
+ * {@link #openXmlStream()}, {@link #getXmlBuffer()} and {@link #updateDigest(MessageDigest)} read them
+ * directly, so large files can be parsed, handed to CDuce and hashed without materializing a string.
+ * </p>
+ * <p>
+ * Every change of the content increments a {@linkplain #getVersion() version}, and the
+ * {@linkplain #getFingerprint() fingerprint} of the content is cached until the next change, so callers can tell
+ * whether an ontology changed without comparing its content.
+ * </p>
  *
  * <h3>Usage Example:</h3>
  * <pre>
@@ -21,9 +43,14 @@ import java.io.*;
  * </pre>
  */
 public class Ontology {
-    private String xmlData; // XML content of the ontology
+    private static final long MAP_THRESHOLD = 64L * 1024 * 1024; // Larger files are mapped instead of read
+
+    private String xmlData; // XML content of the ontology, decoded lazily from xmlBytes
+    private ByteBuffer xmlBytes; // UTF-8 content of the ontology, encoded lazily from xmlData
     private String ontologyName; // Name of the ontology
     private String ontologyExtension; // Extension of the ontology (e.g., ".xml")
+    private long version; // Incremented whenever the XML content changes
+    private String fingerprint; // Hash of the XML content, computed lazily once per version
 
     /**
      * Default constructor for the {@code Ontology} class.
@@ -43,11 +70,33 @@ public class Ontology {
     }
 
     /**
-     * Gets the XML data of the ontology.
+     * Constructs an {@code Ontology} with the name, the extension and the XML content of another one. The content
+     * is shared, not copied, and changing the content of either ontology does not affect the other.
+     *
+     * @param ontology The ontology to copy.
+     */
+    public Ontology(Ontology ontology) {
+        this.ontologyName = ontology.ontologyName;
+        this.ontologyExtension = ontology.ontologyExtension;
+        this.xmlData = ontology.xmlData;
+        this.xmlBytes = ontology.xmlBytes;
+        this.version = ontology.version;
+        this.fingerprint = ontology.fingerprint;
+    }
+
+    /**
+     * Gets the XML data of the ontology, decoding the UTF-8 bytes it was loaded from on the first call.
      *
      * @return The XML data as a string.
      */
     public String getXmlData() {
+        if (xmlData == null && xmlBytes != null) {
+            ByteBuffer bytes = xmlBytes.duplicate();
+            xmlData = bytes.hasArray()
+                    ? new String(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining(),
+                    StandardCharsets.UTF_8)
+                    : StandardCharsets.UTF_8.decode(bytes).toString();
+        }
         return xmlData;
     }
 
@@ -58,6 +107,150 @@ public class Ontology {
      */
     public void setXmlData(String xmlData) {
         this.xmlData = xmlData;
+        this.xmlBytes = null;
+        contentChanged(null);
+    }
+
+    /**
+     * Sets the XML data of the ontology as UTF-8 bytes, decoded only if {@link #getXmlData()} is called.
+     *
+     * @param xmlBytes The UTF-8 XML content, which is not copied and must not be modified afterwards.
+     */
+    public void setXmlBytes(byte[] xmlBytes) {
+        this.xmlBytes = xmlBytes == null ? null : ByteBuffer.wrap(xmlBytes);
+        this.xmlData = null;
+        contentChanged(null);
+    }
+
+    /**
+     * Sets the XML data of the ontology to the one of another ontology, sharing it without decoding or copying it.
+     *
+     * @param ontology The ontology holding the XML data.
+     */
+    public void setXmlDataFrom(Ontology ontology) {
+        this.xmlData = ontology.xmlData;
+        this.xmlBytes = ontology.xmlBytes;
+        contentChanged(ontology.fingerprint);
+    }
+
+    /**
+     * Gets the version of the XML content. The version is incremented whenever the content is set or loaded, even
+     * to the same value, so an unchanged version means an unchanged content.
+     *
+     * @return The version of the content, 0 if it was never set.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the fingerprint of the XML content: the hex SHA-256 hash of its UTF-8 bytes. It is computed on the first
+     * call after each change and then returned in O(1), and copies of the content share it.
+     *
+     * @return The fingerprint, the hash of no bytes if there is no XML data.
+     */
+    public String getFingerprint() {
+        if (fingerprint == null) {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                updateDigest(digest);
+                fingerprint = HexFormat.of().formatHex(digest.digest());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e); // Required on every Java platform
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Checks whether another ontology has the same XML content, comparing the fingerprints unless the content is
+     * shared.
+     *
+     * @param ontology The other ontology.
+     * @return {@code true} if both ontologies have the same XML content.
+     */
+    public boolean hasSameContent(Ontology ontology) {
+        if (ontology == null)
+            return false;
+        if (ontology == this || (xmlData == ontology.xmlData && xmlBytes == ontology.xmlBytes))
+            return true;
+        return getFingerprint().equals(ontology.getFingerprint());
+    }
+
+    /**
+     * Checks whether the ontology has non-empty XML data, without decoding it.
+     *
+     * @return {@code true} if there is XML data.
+     */
+    public boolean hasXmlData() {
+        return xmlBytes != null ? xmlBytes.hasRemaining() : xmlData != null && !xmlData.isEmpty();
+    }
+
+    /**
+     * Returns a read-only view of the UTF-8 XML data. Data set as a string is encoded on the first call.
+     *
+     * @return The UTF-8 bytes, or {@code null} if there is no XML data.
+     */
+    public ByteBuffer getXmlBuffer() {
+        if (xmlBytes == null && xmlData != null)
+            xmlBytes = ByteBuffer.wrap(xmlData.getBytes(StandardCharsets.UTF_8));
+        return xmlBytes == null ? null : xmlBytes.asReadOnlyBuffer();
+    }
+
+    /**
+     * Opens a stream over the UTF-8 XML data.
+     *
+     * @return The stream, or {@code null} if there is no XML data.
+     */
+    public InputStream openXmlStream() {
+        ByteBuffer bytes = getXmlBuffer();
+        return bytes == null ? null : new ByteBufferInputStream(bytes);
+    }
+
+    /**
+     * Opens a reader over the XML data, reading the string if it is decoded and decoding the UTF-8 bytes on the
+     * fly otherwise.
+     *
+     * @return The reader, or {@code null} if there is no XML data.
+     */
+    public Reader openXmlReader() {
+        if (xmlData != null)
+            return new StringReader(xmlData);
+        if (xmlBytes == null)
+            return null;
+        return new InputStreamReader(new ByteBufferInputStream(xmlBytes.asReadOnlyBuffer()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Feeds the UTF-8 XML data to a message digest. Data held as a string is encoded in small chunks, so neither
+     * form is copied as a whole.
+     *
+     * @param digest The digest to update.
+     */
+    public void updateDigest(MessageDigest digest) {
+        if (xmlBytes != null) {
+            digest.update(xmlBytes.duplicate());
+            return;
+        }
+        if (xmlData == null)
+            return;
+
+        // Replace malformed surrogates like String.getBytes, so both forms of the same data have the same digest
+        CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.wrap(xmlData);
+        ByteBuffer chunk = ByteBuffer.allocate(8192);
+        while (true) {
+            boolean done = encoder.encode(chars, chunk, true).isUnderflow();
+            if (done)
+                done = encoder.flush(chunk).isUnderflow();
+            chunk.flip();
+            digest.update(chunk);
+            chunk.clear();
+            if (done)
+                return;
+        }
     }
 
     /**
@@ -104,35 +297,83 @@ public class Ontology {
      * @throws IOException If an error occurs during file writing.
      */
     public void saveXmlToFile(String filePath) throws IOException {
-        if (xmlData == null || xmlData.isEmpty()) throw new IOException("XML data is empty or not set.");
+        if (!hasXmlData()) throw new IOException("XML data is empty or not set.");
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
-            writer.write(xmlData);
+        try {
+            if (xmlBytes == null)
+                Files.writeString(Path.of(filePath), xmlData, StandardCharsets.UTF_8);
+            else
+                try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                    ByteBuffer bytes = xmlBytes.duplicate();
+                    while (bytes.hasRemaining())
+                        channel.write(bytes);
+                }
         } catch (IOException e) {
             throw new IOException("Error saving XML data to file: " + filePath, e);
         }
     }
 
     /**
-     * Loads the XML data from a file at the specified file path.
+     * Loads the XML data from a file at the specified file path, as UTF-8 bytes kept exactly as in the file.
+     * Files larger than 64 MB are memory-mapped instead of read, so the file must not be rewritten while the
+     * ontology, or any ontology sharing its data, is in use.
      * If the file cannot be read, an exception is thrown.
      *
      * @param filePath The path of the file from which the XML content should be loaded.
      * @throws IOException If an error occurs during file reading.
      */
     public void loadXmlFromFile(String filePath) throws IOException {
-        StringBuilder xmlBuilder = new StringBuilder();
+        loadXmlFromFile(filePath, true);
+    }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            while ((line = reader.readLine()) != null) xmlBuilder.append(line).append("\n");
-        } catch (FileNotFoundException e) {
+    /**
+     * Loads the XML data from a file at the specified file path, as UTF-8 bytes kept exactly as in the file.
+     * If the file cannot be read, an exception is thrown.
+     *
+     * @param filePath The path of the file from which the XML content should be loaded.
+     * @param mapLarge {@code true} to memory-map files larger than 64 MB, {@code false} to always read the file,
+     *                 as required for scratch files the application rewrites.
+     * @throws IOException If an error occurs during file reading.
+     */
+    public void loadXmlFromFile(String filePath, boolean mapLarge) throws IOException {
+        try {
+            if (mapLarge && Files.size(Path.of(filePath)) > MAP_THRESHOLD)
+                mapXmlFile(filePath);
+            else
+                setXmlBytes(Files.readAllBytes(Path.of(filePath)));
+        } catch (NoSuchFileException e) {
             throw new IOException("File not found: " + filePath, e);
         } catch (IOException e) {
             throw new IOException("Error reading XML data from file: " + filePath, e);
         }
+    }
+
+    /**
+     * Maps a file in memory and uses its content, as UTF-8 bytes, as the XML data. The pages of the file are
+     * only read when the data is.
+     *
+     * @param filePath The path of the file to map.
+     * @throws IOException If the file cannot be mapped or is larger than 2 GB.
+     */
+    public void mapXmlFile(String filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("File too large to be mapped: " + filePath);
+            this.xmlBytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            this.xmlData = null;
+            contentChanged(null);
+        }
+    }
 
-        this.xmlData = xmlBuilder.toString();
+    /**
+     * Records a change of the XML content.
+     *
+     * @param fingerprint The fingerprint of the new content if it is known, {@code null} otherwise.
+     */
+    private void contentChanged(String fingerprint) {
+        this.version++;
+        this.fingerprint = fingerprint;
     }
 
     /**
@@ -141,6 +382,43 @@ public class Ontology {
      * @return true if empty, false otherwise
      */
     public boolean isEmpty() {
-        return xmlData == null || xmlData.isEmpty() || ontologyName == null || ontologyExtension == null;
+        return !hasXmlData() || ontologyName == null || ontologyExtension == null;
+    }
+
+    /**
+     * An input stream reading a byte buffer.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer bytes;
+
+        /**
+         * Constructs a stream reading the remaining bytes of a buffer.
+         *
+         * @param bytes The buffer, owned by the stream.
+         */
+        private ByteBufferInputStream(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read() {
+            return bytes.hasRemaining() ? bytes.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (length == 0)
+                return 0;
+            if (!bytes.hasRemaining())
+                return -1;
+            int count = Math.min(length, bytes.remaining());
+            bytes.get(buffer, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return bytes.remaining();
+        }
     }
 }
\ No newline at end of file
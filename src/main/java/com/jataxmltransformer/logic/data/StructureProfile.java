@@ -0,0 +1,136 @@
+package com.jataxmltransformer.logic.data;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable, precompiled structure profile: the namespaces, structure, classes and attributes an ontology is
+ * checked against, together with the CDuce code generated from them.
+ * <p>
+ * A profile is built once, when it is registered, and can then be shared by any number of sessions and threads.
+ * Switching to a profile reuses its generated code instead of substituting the templates again, and its class and
+ * attribute names are kept in hash sets so they can be matched in O(1).
+ * </p>
+ */
+public final class StructureProfile {
+    private final String name;
+    private final List<String> namespaces;
+    private final List<String> structure;
+    private final List<String> classes;
+    private final List<String> attributes;
+    private final Set<String> classSet;
+    private final Set<String> attributeSet;
+    private final Map<String, String> cduceCode;
+
+    /**
+     * Constructs a profile.
+     *
+     * @param name       The name of the profile.
+     * @param namespaces The namespace declarations, default namespaces included.
+     * @param structure  The type declarations of the structure.
+     * @param classes    The class patterns.
+     * @param attributes The attribute types.
+     * @param cduceCode  The code generated for each placeholder of the CDuce base code; a value is {@code null} if
+     *                   its template could not be loaded.
+     */
+    public StructureProfile(String name, List<String> namespaces, List<String> structure, List<String> classes,
+                            List<String> attributes, Map<String, String> cduceCode) {
+        this.name = name;
+        this.namespaces = List.copyOf(namespaces);
+        this.structure = List.copyOf(structure);
+        this.classes = List.copyOf(classes);
+        this.attributes = List.copyOf(attributes);
+        this.classSet = Set.copyOf(classes);
+        this.attributeSet = Set.copyOf(attributes);
+        this.cduceCode = Collections.unmodifiableMap(new HashMap<>(cduceCode));
+    }
+
+    /**
+     * Gets the name of the profile.
+     *
+     * @return The name of the profile.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the namespace declarations, default namespaces included.
+     *
+     * @return An unmodifiable list of namespaces.
+     */
+    public List<String> getNamespaces() {
+        return namespaces;
+    }
+
+    /**
+     * Gets the type declarations of the structure.
+     *
+     * @return An unmodifiable list of structural elements.
+     */
+    public List<String> getStructure() {
+        return structure;
+    }
+
+    /**
+     * Gets the class patterns.
+     *
+     * @return An unmodifiable list of classes.
+     */
+    public List<String> getClasses() {
+        return classes;
+    }
+
+    /**
+     * Gets the attribute types.
+     *
+     * @return An unmodifiable list of attributes.
+     */
+    public List<String> getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * Checks whether a class pattern belongs to the profile.
+     *
+     * @param element The class pattern.
+     * @return {@code true} if the profile checks the class.
+     */
+    public boolean isClass(String element) {
+        return classSet.contains(element);
+    }
+
+    /**
+     * Checks whether an attribute type belongs to the profile.
+     *
+     * @param element The attribute type.
+     * @return {@code true} if the profile checks the attribute.
+     */
+    public boolean isAttribute(String element) {
+        return attributeSet.contains(element);
+    }
+
+    /**
+     * Gets the CDuce code generated for the placeholders of the base code.
+     *
+     * @return An unmodifiable map from each placeholder to its code.
+     */
+    public Map<String, String> getCduceCode() {
+        return cduceCode;
+    }
+
+    /**
+     * Checks whether the profile has the same content as a check structure, so its generated code can be used for
+     * it.
+     *
+     * @param checkStructure The check structure.
+     * @return {@code true} if the namespaces, structure, classes and attributes are equal.
+     */
+    public boolean matches(CheckStructure checkStructure) {
+        return namespaces.equals(checkStructure.getNamespaces()) && structure.equals(checkStructure.getStructure())
+                && classes.equals(checkStructure.getClasses()) && attributes.equals(checkStructure.getAttributes());
+    }
+}
@@ -0,0 +1,475 @@
+package com.jataxmltransformer.logic.data;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * An editable text made of lines, stored as a persistent rope.
+ * <p>
+ * The lines are kept in the leaves of a balanced (AVL) tree, in chunks of up to {@value #CHUNK} lines, and every
+ * node knows how many lines it holds. Looking up a line and replacing a range of lines take O(log n): an edit
+ * creates new nodes only along the paths it changes and shares all the others with the previous version.
+ * </p>
+ * <p>
+ * Each version of the text is an immutable {@link Snapshot}, so taking one costs nothing and a snapshot can be
+ * read while the document keeps changing. Undo and redo restore the snapshots retained before each edit;
+ * consecutive changes of the same line, as while typing, are undone together.
+ * </p>
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * TextDocument document = new TextDocument(xmlData);
+ * document.splice(3, 5, List.of("&lt;owl:Class/&gt;")); // Replaces lines 3 and 4
+ * String text = document.snapshot().text();
+ * document.undo();
+ * </pre>
+ */
+public final class TextDocument {
+
+    private static final int CHUNK = 64;
+    private static final int MAX_HISTORY = 100;
+
+    private final Deque<Snapshot> undoHistory = new ArrayDeque<>();
+    private final Deque<Snapshot> redoHistory = new ArrayDeque<>();
+    private Snapshot current = Snapshot.EMPTY;
+    private int typingLine = -1; // The line changed by the last edit, if it was a change of a single line
+
+    /**
+     * Constructs an empty document.
+     */
+    public TextDocument() {
+    }
+
+    /**
+     * Constructs a document holding the lines of a text.
+     *
+     * @param text The text, split at each line feed.
+     */
+    public TextDocument(String text) {
+        load(text);
+    }
+
+    /**
+     * Replaces the whole content with the lines of a text, forgetting the history.
+     *
+     * @param text The text, split at each line feed like {@code text.split("\n")}.
+     */
+    public void load(String text) {
+        load(List.of(text.split("\n")));
+    }
+
+    /**
+     * Replaces the whole content with the given lines, forgetting the history.
+     *
+     * @param lines The lines.
+     */
+    public void load(List<String> lines) {
+        current = new Snapshot(build(lines.toArray(new String[0]), 0, lines.size()));
+        undoHistory.clear();
+        redoHistory.clear();
+        typingLine = -1;
+    }
+
+    /**
+     * Returns the current version of the text. Later edits do not change it.
+     *
+     * @return The current snapshot.
+     */
+    public Snapshot snapshot() {
+        return current;
+    }
+
+    /**
+     * Gets the number of lines.
+     *
+     * @return The number of lines.
+     */
+    public int lineCount() {
+        return current.lineCount();
+    }
+
+    /**
+     * Gets a line.
+     *
+     * @param index The 0-based index of the line.
+     * @return The line.
+     */
+    public String line(int index) {
+        return current.line(index);
+    }
+
+    /**
+     * Changes a line. Consecutive changes of the same line are undone together.
+     *
+     * @param index The 0-based index of the line.
+     * @param line  The new content of the line.
+     */
+    public void set(int index, String line) {
+        boolean typing = index == typingLine;
+        apply(index, index + 1, List.of(line), !typing);
+        typingLine = index;
+    }
+
+    /**
+     * Replaces a range of lines.
+     *
+     * @param from  The index of the first line to replace.
+     * @param to    The index following the last line to replace; equal to {@code from} to only insert.
+     * @param lines The lines to insert instead.
+     */
+    public void splice(int from, int to, List<String> lines) {
+        apply(from, to, lines, true);
+        typingLine = -1;
+    }
+
+    /**
+     * Restores the version preceding the last edit.
+     *
+     * @return {@code true} if there was an edit to undo.
+     */
+    public boolean undo() {
+        if (undoHistory.isEmpty())
+            return false;
+        redoHistory.push(current);
+        current = undoHistory.pop();
+        typingLine = -1;
+        return true;
+    }
+
+    /**
+     * Restores the version undone last.
+     *
+     * @return {@code true} if there was an undone edit to restore.
+     */
+    public boolean redo() {
+        if (redoHistory.isEmpty())
+            return false;
+        undoHistory.push(current);
+        current = redoHistory.pop();
+        typingLine = -1;
+        return true;
+    }
+
+    /**
+     * Returns a live list of the lines, reading and changing the current version of the document.
+     *
+     * @return A list view of the lines, supporting {@code set} but not structural changes.
+     */
+    public List<String> asList() {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return line(index);
+            }
+
+            @Override
+            public String set(int index, String element) {
+                String previous = line(index);
+                TextDocument.this.set(index, element);
+                return previous;
+            }
+
+            @Override
+            public int size() {
+                return lineCount();
+            }
+        };
+    }
+
+    /**
+     * Replaces a range of lines, optionally retaining the current version for undo.
+     *
+     * @param from     The index of the first line to replace.
+     * @param to       The index following the last line to replace.
+     * @param lines    The lines to insert instead.
+     * @param retain   Whether the current version can be restored by {@link #undo()}.
+     */
+    private void apply(int from, int to, List<String> lines, boolean retain) {
+        if (from < 0 || to < from || to > current.lineCount())
+            throw new IndexOutOfBoundsException("Invalid line range: " + from + " to " + to + " of "
+                    + current.lineCount());
+
+        Node[] tail = split(current.root, to);
+        Node[] head = split(tail[0], from);
+        Node inserted = build(lines.toArray(new String[0]), 0, lines.size());
+
+        if (retain) {
+            undoHistory.push(current);
+            if (undoHistory.size() > MAX_HISTORY)
+                undoHistory.removeLast();
+        }
+        redoHistory.clear();
+        current = new Snapshot(concat(concat(head[0], inserted), tail[1]));
+    }
+
+    /**
+     * Builds a balanced tree holding a range of lines.
+     *
+     * @param lines The lines.
+     * @param from  The index of the first line.
+     * @param to    The index following the last line.
+     * @return The root of the tree, or {@code null} if the range is empty.
+     */
+    private static Node build(String[] lines, int from, int to) {
+        if (from >= to)
+            return null;
+        if (to - from <= CHUNK)
+            return new Node(Arrays.copyOfRange(lines, from, to));
+
+        // Split on a chunk boundary, so the leaves are full except the last one
+        int chunks = (to - from + CHUNK - 1) / CHUNK;
+        int middle = from + chunks / 2 * CHUNK;
+        return branch(build(lines, from, middle), build(lines, middle, to));
+    }
+
+    /**
+     * Splits a tree in two.
+     *
+     * @param node  The root of the tree.
+     * @param index The number of lines of the first part.
+     * @return The roots of the two parts, either of which may be {@code null}.
+     */
+    private static Node[] split(Node node, int index) {
+        if (node == null || index <= 0)
+            return new Node[]{null, node};
+        if (index >= node.size)
+            return new Node[]{node, null};
+
+        if (node.lines != null)
+            return new Node[]{new Node(Arrays.copyOfRange(node.lines, 0, index)),
+                    new Node(Arrays.copyOfRange(node.lines, index, node.lines.length))};
+
+        if (index < node.left.size) {
+            Node[] parts = split(node.left, index);
+            return new Node[]{parts[0], concat(parts[1], node.right)};
+        }
+        Node[] parts = split(node.right, index - node.left.size);
+        return new Node[]{concat(node.left, parts[0]), parts[1]};
+    }
+
+    /**
+     * Concatenates two trees, merging small adjacent leaves.
+     *
+     * @param left  The root of the first tree, or {@code null}.
+     * @param right The root of the second tree, or {@code null}.
+     * @return The root of the concatenation.
+     */
+    private static Node concat(Node left, Node right) {
+        if (left == null)
+            return right;
+        if (right == null)
+            return left;
+        if (left.lines != null && right.lines != null && left.size + right.size <= CHUNK) {
+            String[] lines = Arrays.copyOf(left.lines, left.size + right.size);
+            System.arraycopy(right.lines, 0, lines, left.size, right.size);
+            return new Node(lines);
+        }
+        return join(left, right);
+    }
+
+    /**
+     * Joins two AVL trees, descending along the taller one until the heights are close.
+     *
+     * @param left  The root of the first tree.
+     * @param right The root of the second tree.
+     * @return The root of the balanced concatenation.
+     */
+    private static Node join(Node left, Node right) {
+        if (left.height > right.height + 1)
+            return rebalance(branch(left.left, join(left.right, right)));
+        if (right.height > left.height + 1)
+            return rebalance(branch(join(left, right.left), right.right));
+        return branch(left, right);
+    }
+
+    /**
+     * Restores the AVL balance of a node whose children differ in height by at most two.
+     *
+     * @param node The node.
+     * @return The balanced node.
+     */
+    private static Node rebalance(Node node) {
+        int balance = node.left.height - node.right.height;
+        if (balance > 1) {
+            Node left = node.left;
+            if (left.left.height < left.right.height)
+                left = rotateLeft(left);
+            return rotateRight(branch(left, node.right));
+        }
+        if (balance < -1) {
+            Node right = node.right;
+            if (right.right.height < right.left.height)
+                right = rotateRight(right);
+            return rotateLeft(branch(node.left, right));
+        }
+        return node;
+    }
+
+    /**
+     * Rotates a node to the right.
+     *
+     * @param node The node, whose left child is a branch.
+     * @return The new root.
+     */
+    private static Node rotateRight(Node node) {
+        return branch(node.left.left, branch(node.left.right, node.right));
+    }
+
+    /**
+     * Rotates a node to the left.
+     *
+     * @param node The node, whose right child is a branch.
+     * @return The new root.
+     */
+    private static Node rotateLeft(Node node) {
+        return branch(branch(node.left, node.right.left), node.right.right);
+    }
+
+    /**
+     * Creates a branch node.
+     *
+     * @param left  The left child.
+     * @param right The right child.
+     * @return The branch.
+     */
+    private static Node branch(Node left, Node right) {
+        return new Node(left, right);
+    }
+
+    /**
+     * A node of the rope: a leaf holding a chunk of lines, or a branch with two children.
+     */
+    private static final class Node {
+        private final Node left;
+        private final Node right;
+        private final String[] lines; // Only for leaves
+        private final int size;
+        private final int height;
+
+        /**
+         * Creates a leaf.
+         *
+         * @param lines The lines of the leaf, never modified afterwards.
+         */
+        private Node(String[] lines) {
+            this.left = null;
+            this.right = null;
+            this.lines = lines;
+            this.size = lines.length;
+            this.height = 1;
+        }
+
+        /**
+         * Creates a branch.
+         *
+         * @param left  The left child.
+         * @param right The right child.
+         */
+        private Node(Node left, Node right) {
+            this.left = left;
+            this.right = right;
+            this.lines = null;
+            this.size = left.size + right.size;
+            this.height = Math.max(left.height, right.height) + 1;
+        }
+    }
+
+    /**
+     * An immutable version of the text.
+     */
+    public static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(null);
+
+        private final Node root;
+
+        /**
+         * Creates a snapshot.
+         *
+         * @param root The root of the rope, or {@code null} if the text has no lines.
+         */
+        private Snapshot(Node root) {
+            this.root = root;
+        }
+
+        /**
+         * Gets the number of lines.
+         *
+         * @return The number of lines.
+         */
+        public int lineCount() {
+            return root == null ? 0 : root.size;
+        }
+
+        /**
+         * Gets a line.
+         *
+         * @param index The 0-based index of the line.
+         * @return The line.
+         */
+        public String line(int index) {
+            if (index < 0 || index >= lineCount())
+                throw new IndexOutOfBoundsException("Line " + index + " of " + lineCount());
+            Node node = root;
+            while (node.lines == null) {
+                if (index < node.left.size)
+                    node = node.left;
+                else {
+                    index -= node.left.size;
+                    node = node.right;
+                }
+            }
+            return node.lines[index];
+        }
+
+        /**
+         * Returns the lines as an unmodifiable list.
+         *
+         * @return A list view of the lines.
+         */
+        public List<String> lines() {
+            return new AbstractList<>() {
+                @Override
+                public String get(int index) {
+                    return line(index);
+                }
+
+                @Override
+                public int size() {
+                    return lineCount();
+                }
+            };
+        }
+
+        /**
+         * Builds the text, with a line feed after every line.
+         *
+         * @return The text.
+         */
+        public String text() {
+            StringBuilder text = new StringBuilder();
+            appendTo(root, text);
+            return text.toString();
+        }
+
+        /**
+         * Appends the lines of a tree to a builder, in order.
+         *
+         * @param node The root of the tree.
+         * @param text The builder.
+         */
+        private static void appendTo(Node node, StringBuilder text) {
+            if (node == null)
+                return;
+            if (node.lines != null) {
+                for (String line : node.lines)
+                    text.append(line).append('\n');
+                return;
+            }
+            appendTo(node.left, text);
+            appendTo(node.right, text);
+        }
+    }
+}
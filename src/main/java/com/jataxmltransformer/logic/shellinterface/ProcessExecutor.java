@@ -4,6 +4,7 @@ import com.jataxmltransformer.logs.AppLogger;
 
 import java.io.*;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Executes shell commands in a new process, captures the output, and returns the result.
@@ -22,6 +23,28 @@ public class ProcessExecutor implements ProcessExecutorInterface {
      */
     @Override
     public String execute(List<String> command) throws IOException, InterruptedException {
+        // StringBuilder to store the output of the command execution
+        StringBuilder output = new StringBuilder();
+        execute(command, line -> {
+            AppLogger.info("Output: " + line); // Print each line of output for debugging
+            output.append(line).append("\n");
+        });
+
+        // Return the captured output as a string
+        return output.toString();
+    }
+
+    /**
+     * Executes a list of commands in a new shell process and hands each line of the output to a consumer as soon
+     * as it is read. Nothing is buffered beyond the current line.
+     *
+     * @param command The list of commands to be executed in the shell.
+     * @param onLine  The consumer of the output lines.
+     * @throws IOException If an I/O error occurs during the execution.
+     * @throws InterruptedException If the execution is interrupted.
+     */
+    @Override
+    public void execute(List<String> command, Consumer<String> onLine) throws IOException, InterruptedException {
         // Start a new process for each command, using WSL as the shell
         ProcessBuilder processBuilder = new ProcessBuilder("wsl");
         processBuilder.redirectErrorStream(true); // Redirects error stream to standard output
@@ -36,18 +59,11 @@ public class ProcessExecutor implements ProcessExecutorInterface {
             writer.write(commandStr + "\n");
             writer.flush(); // Send the command to the shell
 
-            // StringBuilder to store the output of the command execution
-            StringBuilder output = new StringBuilder();
             String line;
 
             // Read each line of the output from the shell process
-            while ((line = reader.readLine()) != null && !line.equals("EXIT")) { // NOTE: EXIT is a custom EOL!
-                AppLogger.info("Output: " + line); // Print each line of output for debugging
-                output.append(line).append("\n");
-            }
-
-            // Return the captured output as a string
-            return output.toString();
+            while ((line = reader.readLine()) != null && !line.equals("EXIT")) // NOTE: EXIT is a custom EOL!
+                onLine.accept(line);
         } catch (IOException e) {
             AppLogger.severe(e.getMessage());
             throw e; // Rethrow the exception after logging it
@@ -2,6 +2,7 @@ package com.jataxmltransformer.logic.shellinterface;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * The {@code CommandExecutor} interface defines the contract for executing system or shell commands
@@ -57,4 +58,23 @@ public interface ProcessExecutorInterface {
      * @see java.io.IOException
      */
     String execute(List<String> command) throws IOException, InterruptedException;
+
+    /**
+     * Executes a list of system or shell commands and hands each line of the output to a consumer as it arrives,
+     * without keeping the whole output in memory.
+     *
+     * <p>The default implementation splits the result of {@link #execute(List)}; implementations able to read the
+     * output while the command runs should override it.</p>
+     *
+     * @param command  a list of strings representing the command to execute, as for {@link #execute(List)}.
+     * @param onLine   the consumer of the output lines, without their line terminators.
+     * @throws IOException if an I/O error occurs while executing the command or reading its output.
+     * @throws InterruptedException if the current thread is interrupted while waiting for the command
+     *                              process to complete.
+     */
+    default void execute(List<String> command, Consumer<String> onLine) throws IOException, InterruptedException {
+        String output = execute(command);
+        if (output != null)
+            output.lines().forEach(onLine);
+    }
 }
\ No newline at end of file
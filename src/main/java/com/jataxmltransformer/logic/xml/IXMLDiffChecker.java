@@ -31,4 +31,15 @@ public interface IXMLDiffChecker {
      * @return A list of {@code EditedElement} objects representing the differences.
      */
     List<EditedElement> diffOntologies(Ontology inputOntology, Ontology outputOntology) throws Exception;
-}
\ No newline at end of file
+
+    /**
+     * Checks whether two ontologies differ, stopping at the first significant difference.
+     * This is cheaper than {@link #diffOntologies(Ontology, Ontology)} when only a yes/no answer is needed.
+     *
+     * @param inputOntology  The input ontology data (control Ontology).
+     * @param outputOntology The output ontology data (test Ontology).
+     * @return {@code true} if the ontologies differ, {@code false} otherwise.
+     * @throws Exception If one of the ontologies is not well-formed or the comparison fails.
+     */
+    boolean isDifferent(Ontology inputOntology, Ontology outputOntology) throws Exception;
+}
@@ -2,6 +2,7 @@ package com.jataxmltransformer.logic.xml;
 
 import com.jataxmltransformer.logic.utilities.MyPair;
 
+import java.util.Collection;
 import java.util.Map;
 
 /**
@@ -17,6 +18,18 @@ public interface IXPathCustomParser {
      */
     MyPair<Integer, Integer> getInfoFromXPath(String xPath);
 
+    /**
+     * Retrieves the start and end line numbers for many XPaths at once.
+     * <p>
+     * The lines of the i-th XPath, in the iteration order of the collection, are stored at index {@code 2 * i}
+     * (start) and {@code 2 * i + 1} (end) of the returned array, both set to -1 if the XPath is not found.
+     * </p>
+     *
+     * @param xPaths The XPaths to search for.
+     * @return The start and end line numbers of each XPath.
+     */
+    int[] resolveAll(Collection<String> xPaths);
+
     /**
      * Retrieves the start and end line numbers for all XPath elements.
      * <p>
@@ -0,0 +1,293 @@
+package com.jataxmltransformer.logic.xml;
+
+import com.jataxmltransformer.logic.data.Ontology;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.ext.DefaultHandler2;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The {@code OntologyDocument} class is the parsed form of an ontology, shared by the steps of a verification.
+ * <p>
+ * The XML data is parsed exactly once with SAX. The parse builds a DOM document and records, in an
+ * {@link XPathIndex}, the positional XPath (e.g. {@code /RDF[1]/Class[2]}) and the line and column of the start
+ * and end tags of every element.
+ * {@link XMLFormatter}, {@link XMLDiffChecker} and {@link XMLErrorReporter} work on this model, so none of
+ * them has to parse the XML data again.
+ * </p>
+ *
+ * <h3>Usage Example:</h3>
+ * <pre>
+ *     OntologyDocument input = OntologyDocument.parse(inputOntology);
+ *     OntologyDocument output = OntologyDocument.parse(outputOntology);
+ *     List&lt;EditedElement&gt; differences = new XMLDiffChecker().diffDocuments(input, output);
+ *     List&lt;ErrorInfo&gt; errors = new XMLErrorReporter(input).generateErrorInfo(differences);
+ * </pre>
+ */
+public class OntologyDocument {
+
+    private final Ontology source;
+    private final Document document;
+    private final XPathIndex index;
+
+    /**
+     * Constructs an {@code OntologyDocument}.
+     *
+     * @param source   A private ontology holding the XML data.
+     * @param document The DOM document built from the XML data.
+     * @param index    The positions of the elements.
+     */
+    private OntologyDocument(Ontology source, Document document, XPathIndex index) {
+        this.source = source;
+        this.document = document;
+        this.index = index;
+    }
+
+    /**
+     * Parses the XML data of an ontology.
+     *
+     * @param ontology The ontology to parse.
+     * @return The parsed ontology.
+     * @throws Exception If the XML data is malformed.
+     */
+    public static OntologyDocument parse(Ontology ontology) throws Exception {
+        if (ontology == null || !ontology.hasXmlData())
+            throw new IllegalArgumentException("Ontology is either null or empty.");
+        return parseSource(new Ontology(ontology)); // Reads the bytes of the ontology without decoding them
+    }
+
+    /**
+     * Parses XML data.
+     *
+     * @param xmlData The XML data as a string.
+     * @return The parsed XML data.
+     * @throws Exception If the XML data is malformed.
+     */
+    public static OntologyDocument parse(String xmlData) throws Exception {
+        if (xmlData == null || xmlData.isEmpty())
+            throw new IllegalArgumentException("XML data is null or empty.");
+
+        Ontology source = new Ontology();
+        source.setXmlData(xmlData);
+        return parseSource(source);
+    }
+
+    /**
+     * Parses the XML data of a private ontology, which the parsed document keeps.
+     *
+     * @param source The ontology holding the XML data.
+     * @return The parsed XML data.
+     * @throws Exception If the XML data is malformed.
+     */
+    private static OntologyDocument parseSource(Ontology source) throws Exception {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setFeature("http://xml.org/sax/features/namespace-prefixes", true); // Report xmlns attributes
+
+        // The positions of the elements may be cached from a previous parse of the same data
+        XPathIndexCache cache = XPathIndexCache.getInstance();
+        XPathIndex cached = cache.get(source);
+
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        SAXHandler handler = new SAXHandler(document, cached == null ? new XPathIndex.Builder() : null);
+        try {
+            SAXParser parser = factory.newSAXParser();
+            parser.setProperty("http://xml.org/sax/properties/lexical-handler", handler);
+            parser.parse(new InputSource(source.openXmlReader()), handler);
+        } catch (SAXParseException e) {
+            throw new Exception("XML syntax error: " + e.getMessage() + " at line " + e.getLineNumber() + ", column "
+                    + e.getColumnNumber(), e);
+        }
+        if (cached != null)
+            return new OntologyDocument(source, document, cached);
+
+        XPathIndex index = handler.index.build();
+        cache.put(source, index);
+        return new OntologyDocument(source, document, index);
+    }
+
+    /**
+     * Gets the XML data the document was parsed from, decoding it on the first call if it was parsed from bytes.
+     *
+     * @return The XML data.
+     */
+    public String getXmlData() {
+        return source.getXmlData();
+    }
+
+    /**
+     * Returns a deep copy of the DOM document, which the caller is free to modify.
+     *
+     * @return A copy of the document.
+     */
+    public Document copyDocument() {
+        return (Document) document.cloneNode(true);
+    }
+
+    /**
+     * Gets the position of the element at the given XPath.
+     *
+     * @param xPath The positional XPath of the element, made of local names (e.g. {@code /RDF[1]/Class[2]}).
+     * @return The position of the element, or {@code null} if there is no such element.
+     */
+    public Position getPosition(String xPath) {
+        int node = index.find(xPath);
+        return node == XPathIndex.NOT_FOUND ? null : position(node);
+    }
+
+    /**
+     * Gets the positions of all the elements. The map is built on each call, prefer {@link #getXPathIndex()}
+     * for lookups.
+     *
+     * @return An unmodifiable map from the XPath of each element to its position.
+     */
+    public Map<String, Position> getPositions() {
+        Map<String, Position> positions = new HashMap<>();
+        for (int node = 1; node <= index.size(); node++)
+            positions.put(index.xPath(node), position(node));
+        return Collections.unmodifiableMap(positions);
+    }
+
+    /**
+     * Gets the index of the positions of the elements.
+     *
+     * @return The index of the elements.
+     */
+    public XPathIndex getXPathIndex() {
+        return index;
+    }
+
+    /**
+     * Gets the position of an indexed element.
+     *
+     * @param node The node of the element in the index.
+     * @return The position of the element.
+     */
+    private Position position(int node) {
+        return new Position(index.beginLine(node), index.beginColumn(node), index.endLine(node),
+                index.endColumn(node));
+    }
+
+    /**
+     * The position of an element in the XML data. Lines and columns are 1-based; the begin position is the end of
+     * the start tag and the end position the end of the end tag, as reported by the SAX locator.
+     *
+     * @param beginLine   The line of the start tag.
+     * @param beginColumn The column following the start tag.
+     * @param endLine     The line of the end tag.
+     * @param endColumn   The column following the end tag.
+     */
+    public record Position(int beginLine, int beginColumn, int endLine, int endColumn) {
+    }
+
+    /**
+     * SAX handler building the DOM document and, unless they are cached, recording the XPath and the position of
+     * every element.
+     */
+    private static class SAXHandler extends DefaultHandler2 {
+
+        private final Document document;
+        private final XPathIndex.Builder index;
+        private Node current;
+        private Locator locator;
+        private boolean inDTD;
+        private boolean inCDATA;
+
+        /**
+         * Constructs a {@code SAXHandler} filling the given document.
+         *
+         * @param document The empty document to fill.
+         * @param index    The builder of the positions of the elements, or {@code null} to skip them.
+         */
+        private SAXHandler(Document document, XPathIndex.Builder index) {
+            this.document = document;
+            this.index = index;
+            this.current = document;
+        }
+
+        @Override
+        public void setDocumentLocator(Locator locator) {
+            this.locator = locator;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            Element element = document.createElementNS(uri.isEmpty() ? null : uri, qName);
+            for (int i = 0; i < attributes.getLength(); i++) {
+                String name = attributes.getQName(i);
+                String namespace = name.equals("xmlns") || name.startsWith("xmlns:")
+                        ? XMLConstants.XMLNS_ATTRIBUTE_NS_URI : attributes.getURI(i);
+                element.setAttributeNS(namespace.isEmpty() ? null : namespace, name, attributes.getValue(i));
+            }
+            current.appendChild(element);
+            current = element;
+            if (index != null)
+                index.startElement(qName, locator.getLineNumber(), locator.getColumnNumber());
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            if (index != null)
+                index.endElement(locator.getLineNumber(), locator.getColumnNumber());
+            current = current.getParentNode();
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (current == document)
+                return; // Text outside the root element is not part of the document
+            String text = new String(ch, start, length);
+
+            // SAX may split the text in several chunks
+            Node last = current.getLastChild();
+            if (last != null && last.getNodeType() == (inCDATA ? Node.CDATA_SECTION_NODE : Node.TEXT_NODE))
+                last.setNodeValue(last.getNodeValue() + text);
+            else
+                current.appendChild(document.createTextNode(text));
+        }
+
+        @Override
+        public void processingInstruction(String target, String data) {
+            current.appendChild(document.createProcessingInstruction(target, data));
+        }
+
+        @Override
+        public void comment(char[] ch, int start, int length) {
+            if (!inDTD)
+                current.appendChild(document.createComment(new String(ch, start, length)));
+        }
+
+        @Override
+        public void startCDATA() {
+            inCDATA = true;
+            current.appendChild(document.createCDATASection(""));
+        }
+
+        @Override
+        public void endCDATA() {
+            inCDATA = false;
+        }
+
+        @Override
+        public void startDTD(String name, String publicId, String systemId) {
+            inDTD = true;
+        }
+
+        @Override
+        public void endDTD() {
+            inDTD = false;
+        }
+    }
+}
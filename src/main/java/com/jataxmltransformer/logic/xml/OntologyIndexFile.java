@@ -0,0 +1,222 @@
+package com.jataxmltransformer.logic.xml;
+
+import com.jataxmltransformer.logic.data.LineIndex;
+import com.jataxmltransformer.logic.data.Ontology;
+import com.jataxmltransformer.logs.AppLogger;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A sidecar file storing the indexes of an ontology file, so that reopening the file does not scan and parse it
+ * again.
+ * <p>
+ * The sidecar sits next to the ontology, named {@code .<file name>.jxtindex}, and holds its {@link LineIndex}, its
+ * {@link XPathIndex} and the SHA-256 hash of its content. The header records a format version, the size and the
+ * modification time of the ontology file, the hash and a CRC-32 of the payload; the file is memory-mapped when
+ * read. A sidecar is used only if all of them match, otherwise it is ignored and the indexes are built again.
+ * </p>
+ *
+ * <h3>Usage Example:</h3>
+ * <pre>
+ *     OntologyIndexFile indexFile = OntologyIndexFile.open(path, ontology);
+ *     if (indexFile == null) {
+ *         indexFile = OntologyIndexFile.build(ontology);
+ *         indexFile.write(path);
+ *     }
+ * </pre>
+ */
+public final class OntologyIndexFile {
+
+    /**
+     * The version of the format, changed whenever the layout of the file or of the indexes changes.
+     */
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = 0x4A585449; // "JXTI"
+    private static final int HASH_LENGTH = 64;   // Hex SHA-256
+    private static final int HEADER_LENGTH = 4 + 4 + 8 + 8 + HASH_LENGTH + 8 + 8;
+
+    private final String contentHash;
+    private final LineIndex lineIndex;
+    private final XPathIndex xPathIndex;
+
+    /**
+     * Constructs an index file.
+     *
+     * @param contentHash The hash of the ontology, as computed by {@link XPathIndexCache#hash(Ontology)}.
+     * @param lineIndex   The line index of the ontology.
+     * @param xPathIndex  The XPath index of the ontology.
+     */
+    private OntologyIndexFile(String contentHash, LineIndex lineIndex, XPathIndex xPathIndex) {
+        this.contentHash = contentHash;
+        this.lineIndex = lineIndex;
+        this.xPathIndex = xPathIndex;
+    }
+
+    /**
+     * Builds the indexes of an ontology.
+     *
+     * @param ontology The ontology.
+     * @return The index file, not written yet.
+     * @throws Exception If the XML data of the ontology cannot be parsed.
+     */
+    public static OntologyIndexFile build(Ontology ontology) throws Exception {
+        if (ontology == null || !ontology.hasXmlData())
+            throw new IllegalArgumentException("Ontology is either null or empty.");
+        return new OntologyIndexFile(XPathIndexCache.hash(ontology), LineIndex.of(ontology),
+                XPathIndex.parse(ontology.openXmlReader()));
+    }
+
+    /**
+     * Opens the sidecar of an ontology file, if it is valid for the file and for the content loaded from it.
+     * Checking the content hash reads the data once, which costs far less than scanning and parsing it.
+     *
+     * @param source   The ontology file.
+     * @param ontology The ontology loaded from the file.
+     * @return The index file, or {@code null} if there is no sidecar or it is stale or corrupted.
+     */
+    public static OntologyIndexFile open(Path source, Ontology ontology) {
+        Path sidecar = sidecarPath(source);
+        if (!Files.isRegularFile(sidecar) || !ontology.hasXmlData())
+            return null;
+
+        try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_LENGTH || channel.size() > Integer.MAX_VALUE)
+                return stale(sidecar, "invalid size");
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+                return stale(sidecar, "unknown format");
+            if (buffer.getLong() != attributes.size()
+                    || buffer.getLong() != attributes.lastModifiedTime().toMillis())
+                return stale(sidecar, "the ontology file changed");
+
+            byte[] hash = new byte[HASH_LENGTH];
+            buffer.get(hash);
+            long payloadLength = buffer.getLong();
+            long checksum = buffer.getLong();
+            if (payloadLength != buffer.remaining())
+                return stale(sidecar, "truncated");
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if (crc.getValue() != checksum)
+                return stale(sidecar, "checksum mismatch");
+
+            String contentHash = new String(hash, StandardCharsets.US_ASCII);
+            if (!contentHash.equals(XPathIndexCache.hash(ontology)))
+                return stale(sidecar, "the content changed");
+
+            LineIndex lineIndex = LineIndex.read(buffer, ontology.getXmlBuffer());
+            XPathIndex xPathIndex = XPathIndex.read(buffer);
+            return new OntologyIndexFile(contentHash, lineIndex, xPathIndex);
+        } catch (IOException | IllegalArgumentException e) {
+            return stale(sidecar, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the sidecar of an ontology file, replacing the previous one. The file is written to a temporary file
+     * first, so a reader never sees a partial sidecar. The payload is streamed after a reserved header, which is
+     * filled in once its length and checksum are known, so the indexes are never copied into memory.
+     *
+     * @param source The ontology file the indexes were built from.
+     * @throws IOException If the sidecar cannot be written.
+     */
+    public void write(Path source) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+        Path sidecar = sidecarPath(source);
+        Path temporary = Files.createTempFile(sidecar.toAbsolutePath().getParent(), sidecar.getFileName().toString(),
+                ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                channel.position(HEADER_LENGTH);
+                CRC32 crc = new CRC32();
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                        new CheckedOutputStream(Channels.newOutputStream(channel), crc)));
+                lineIndex.writeTo(out);
+                xPathIndex.writeTo(out);
+                out.flush(); // Not closed, closing the stream would close the channel
+                long payloadLength = channel.position() - HEADER_LENGTH;
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+                header.putInt(MAGIC);
+                header.putInt(VERSION);
+                header.putLong(attributes.size());
+                header.putLong(attributes.lastModifiedTime().toMillis());
+                header.put(contentHash.getBytes(StandardCharsets.US_ASCII));
+                header.putLong(payloadLength);
+                header.putLong(crc.getValue());
+                header.flip();
+                for (long position = 0; header.hasRemaining(); )
+                    position += channel.write(header, position);
+            }
+            try {
+                Files.move(temporary, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, sidecar, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Gets the path of the sidecar of an ontology file.
+     *
+     * @param source The ontology file.
+     * @return The path of the sidecar, in the same directory.
+     */
+    public static Path sidecarPath(Path source) {
+        return source.resolveSibling("." + source.getFileName() + ".jxtindex");
+    }
+
+    /**
+     * Gets the hash of the indexed content.
+     *
+     * @return The hex SHA-256 hash, usable with {@link XPathIndexCache#putHashed(String, XPathIndex)}.
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * Gets the line index of the ontology.
+     *
+     * @return The line index.
+     */
+    public LineIndex getLineIndex() {
+        return lineIndex;
+    }
+
+    /**
+     * Gets the XPath index of the ontology.
+     *
+     * @return The XPath index.
+     */
+    public XPathIndex getXPathIndex() {
+        return xPathIndex;
+    }
+
+    /**
+     * Logs why a sidecar is ignored.
+     *
+     * @param sidecar The sidecar.
+     * @param reason  The reason.
+     * @return {@code null}.
+     */
+    private static OntologyIndexFile stale(Path sidecar, String reason) {
+        AppLogger.info("Ignoring index file " + sidecar + ": " + reason);
+        return null;
+    }
+}
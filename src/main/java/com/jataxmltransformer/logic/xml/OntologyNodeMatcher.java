@@ -0,0 +1,110 @@
+package com.jataxmltransformer.logic.xml;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xmlunit.diff.DefaultNodeMatcher;
+import org.xmlunit.diff.ElementSelectors;
+import org.xmlunit.diff.NodeMatcher;
+
+import java.util.*;
+
+/**
+ * The {@code OntologyNodeMatcher} class is an XMLUnit {@link NodeMatcher} aware of RDF/XML identifiers.
+ * <p>
+ * Sibling elements carrying an {@code rdf:about} or {@code rdf:ID} attribute are indexed in a hash map by
+ * element name and identifier, so each control element finds its test counterpart in constant time and classes
+ * with similar content are never paired with the wrong counterpart. Only the nodes without an identifier
+ * (labels, notes, text...) are handed to the fallback matcher, which by default pairs them by name and text.
+ * </p>
+ */
+public class OntologyNodeMatcher implements NodeMatcher {
+
+    private static final String RDF_NAMESPACE = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+
+    private final NodeMatcher fallback;
+
+    /**
+     * Constructs an {@code OntologyNodeMatcher} matching unkeyed nodes by name and text.
+     */
+    public OntologyNodeMatcher() {
+        this(new DefaultNodeMatcher(ElementSelectors.byNameAndText));
+    }
+
+    /**
+     * Constructs an {@code OntologyNodeMatcher} with a custom matcher for unkeyed nodes.
+     *
+     * @param fallback The matcher used for the nodes without an RDF identifier.
+     */
+    public OntologyNodeMatcher(NodeMatcher fallback) {
+        this.fallback = fallback;
+    }
+
+    /**
+     * Matches control and test siblings. Keyed elements are paired by key, in document order when the same
+     * key appears more than once; the remaining nodes are paired by the fallback matcher.
+     *
+     * @param controlNodes The control siblings.
+     * @param testNodes    The test siblings.
+     * @return The matched pairs, ordered as the control nodes.
+     */
+    @Override
+    public Iterable<Map.Entry<Node, Node>> match(Iterable<Node> controlNodes, Iterable<Node> testNodes) {
+        // Index the keyed test nodes
+        Map<String, Deque<Node>> keyedTestNodes = new HashMap<>();
+        List<Node> unkeyedTestNodes = new ArrayList<>();
+        for (Node testNode : testNodes) {
+            String key = getKey(testNode);
+            if (key == null)
+                unkeyedTestNodes.add(testNode);
+            else
+                keyedTestNodes.computeIfAbsent(key, _ -> new ArrayDeque<>()).add(testNode);
+        }
+
+        // Pair the keyed control nodes through the index
+        Map<Node, Integer> controlOrder = new IdentityHashMap<>();
+        List<Map.Entry<Node, Node>> matches = new ArrayList<>();
+        List<Node> unkeyedControlNodes = new ArrayList<>();
+        for (Node controlNode : controlNodes) {
+            controlOrder.put(controlNode, controlOrder.size());
+            String key = getKey(controlNode);
+            if (key == null) {
+                unkeyedControlNodes.add(controlNode);
+                continue;
+            }
+            Deque<Node> candidates = keyedTestNodes.get(key);
+            if (candidates != null && !candidates.isEmpty())
+                matches.add(new AbstractMap.SimpleImmutableEntry<>(controlNode, candidates.poll()));
+        }
+
+        // Let the fallback matcher pair everything else
+        if (!unkeyedControlNodes.isEmpty() && !unkeyedTestNodes.isEmpty())
+            for (Map.Entry<Node, Node> match : fallback.match(unkeyedControlNodes, unkeyedTestNodes))
+                matches.add(match);
+
+        matches.sort(Comparator.comparingInt(match -> controlOrder.get(match.getKey())));
+        return matches;
+    }
+
+    /**
+     * Builds the matching key of a node from its name and its {@code rdf:about} or {@code rdf:ID} attribute.
+     *
+     * @param node The node.
+     * @return The key, or {@code null} if the node is not an element with an RDF identifier.
+     */
+    static String getKey(Node node) {
+        if (!(node instanceof Element element))
+            return null;
+
+        String identifier = element.getAttributeNS(RDF_NAMESPACE, "about");
+        String kind = "about";
+        if (identifier.isEmpty()) {
+            identifier = element.getAttributeNS(RDF_NAMESPACE, "ID");
+            kind = "ID";
+        }
+        if (identifier.isEmpty())
+            return null;
+
+        String name = element.getLocalName() != null ? element.getLocalName() : element.getNodeName();
+        return element.getNamespaceURI() + " " + name + " " + kind + "=" + identifier;
+    }
+}
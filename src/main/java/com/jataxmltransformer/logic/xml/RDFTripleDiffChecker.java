@@ -0,0 +1,876 @@
+package com.jataxmltransformer.logic.xml;
+
+import com.jataxmltransformer.logic.data.EditedElement;
+import com.jataxmltransformer.logic.data.Ontology;
+import com.jataxmltransformer.logs.AppLogger;
+import org.xmlunit.diff.ComparisonType;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * The {@code RDFTripleDiffChecker} class compares two RDF/XML ontologies by the facts they state rather than by
+ * the shape of their XML.
+ * <p>
+ * Both documents are streamed with StAX and turned into (subject, predicate, object) triples following the
+ * RDF/XML syntax: node elements, typed nodes, property elements and attributes, {@code rdf:resource},
+ * {@code rdf:nodeID}, {@code rdf:parseType} ("Resource", "Literal" and "Collection"), {@code xml:lang},
+ * {@code rdf:datatype} and {@code xml:base}. Terms are interned into int ids and the triples of each document are
+ * stored in a primitive hash set, so the removed and added triples are found in linear time. Reordering elements or
+ * attributes, or moving a property between equivalent syntactic forms, produces no difference at all.
+ * </p>
+ * <p>
+ * Each triple remembers the element it was read from, so every difference maps back to an XPath and a line range.
+ * Anonymous nodes, such as the {@code owl:Restriction} blocks of a class, are labelled by a signature of their
+ * content, computed bottom-up from their sorted outgoing triples once the document is read, so swapping two of them
+ * produces no difference either. Anonymous nodes with the same description get the same label, and a change inside
+ * one is reported as the whole node being removed and added. Nodes named with {@code rdf:nodeID} keep their name.
+ * </p>
+ */
+public class RDFTripleDiffChecker implements IXMLDiffChecker {
+
+    private static final String RDF_NAMESPACE = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+    private static final String RDF_TYPE = "<" + RDF_NAMESPACE + "type>";
+    private static final String RDF_FIRST = "<" + RDF_NAMESPACE + "first>";
+    private static final String RDF_REST = "<" + RDF_NAMESPACE + "rest>";
+    private static final String RDF_NIL = "<" + RDF_NAMESPACE + "nil>";
+    private static final String RDF_XML_LITERAL = RDF_NAMESPACE + "XMLLiteral";
+
+    private final XMLInputFactory inputFactory;
+
+    /**
+     * Constructs an {@code RDFTripleDiffChecker}.
+     */
+    public RDFTripleDiffChecker() {
+        inputFactory = XMLInputFactory.newFactory();
+        inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    }
+
+    /**
+     * Compares two RDF/XML files and returns the list of differences.
+     *
+     * @param inputXMLPath  The path to the input XML file (control file).
+     * @param outputXMLPath The path to the output XML file (test file).
+     * @return A list of {@link EditedElement} objects, or {@code null} if one of the files is not well-formed.
+     * @throws IOException If one of the files does not exist or cannot be read.
+     */
+    @Override
+    public List<EditedElement> diffXmlFiles(String inputXMLPath, String outputXMLPath) throws IOException {
+        File inputXML = new File(inputXMLPath);
+        File outputXML = new File(outputXMLPath);
+
+        if (!inputXML.exists() || !outputXML.exists())
+            throw new IOException("One or both XML files do not exist.");
+
+        try (Reader control = new BufferedReader(new FileReader(inputXML));
+             Reader test = new BufferedReader(new FileReader(outputXML))) {
+            return toEditedElements(diffTriples(control, test));
+        } catch (XMLStreamException e) {
+            AppLogger.severe("The XML file is not well-formed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Compares two ontologies and returns the list of differences.
+     *
+     * @param inputOntology  The input ontology data (control Ontology).
+     * @param outputOntology The output ontology data (test Ontology).
+     * @return A list of {@link EditedElement} objects, or {@code null} if one of the ontologies is not well-formed.
+     */
+    @Override
+    public List<EditedElement> diffOntologies(Ontology inputOntology, Ontology outputOntology) {
+        if (inputOntology == null || outputOntology == null)
+            throw new IllegalArgumentException("Input or output ontology cannot be null.");
+
+        try {
+            return toEditedElements(diffTriples(inputOntology.openXmlReader(),
+                    outputOntology.openXmlReader()));
+        } catch (XMLStreamException e) {
+            AppLogger.severe("The XML data is not well-formed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether two ontologies state different triples.
+     *
+     * @param inputOntology  The input ontology data (control Ontology).
+     * @param outputOntology The output ontology data (test Ontology).
+     * @return {@code true} if a triple was added or removed, {@code false} otherwise.
+     * @throws XMLStreamException If one of the ontologies is not well-formed.
+     */
+    @Override
+    public boolean isDifferent(Ontology inputOntology, Ontology outputOntology) throws XMLStreamException {
+        if (inputOntology == null || outputOntology == null)
+            throw new IllegalArgumentException("Input or output ontology cannot be null.");
+
+        return !diffTriples(inputOntology.openXmlReader(),
+                outputOntology.openXmlReader()).isEmpty();
+    }
+
+    /**
+     * Compares the triples of two RDF/XML documents. Removed triples come first, in the order of the control
+     * document, followed by the added triples in the order of the test document.
+     *
+     * @param control The reader of the control document.
+     * @param test    The reader of the test document.
+     * @return The triples found in only one of the documents.
+     * @throws XMLStreamException If one of the documents is not well-formed.
+     */
+    public List<TripleDifference> diffTriples(Reader control, Reader test) throws XMLStreamException {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> terms = new ArrayList<>();
+        Graph controlGraph = read(control, ids, terms);
+        Graph testGraph = read(test, ids, terms);
+
+        List<TripleDifference> differences = new ArrayList<>();
+        collect(controlGraph, testGraph, false, terms, differences);
+        collect(testGraph, controlGraph, true, terms, differences);
+        return differences;
+    }
+
+    /**
+     * Adds the triples of a graph missing from another graph to the differences.
+     *
+     * @param graph       The graph whose triples are checked.
+     * @param other       The graph the triples are looked up in.
+     * @param added       Whether the triples of {@code graph} are added ({@code true}) or removed.
+     * @param terms       The interned terms, by id.
+     * @param differences The list receiving the differences.
+     */
+    private static void collect(Graph graph, Graph other, boolean added, List<String> terms,
+                                List<TripleDifference> differences) {
+        TripleSet triples = graph.triples;
+        for (int i = 0; i < triples.size(); i++) {
+            if (other.triples.contains(triples.subject(i), triples.predicate(i), triples.object(i)))
+                continue;
+            Origin origin = graph.origins.get(triples.origin(i));
+            differences.add(new TripleDifference(added, terms.get(triples.subject(i)),
+                    terms.get(triples.predicate(i)), terms.get(triples.object(i)),
+                    origin.xPath, origin.beginLine, origin.endLine));
+        }
+    }
+
+    /**
+     * Converts triple differences to {@link EditedElement} objects in the format used by {@link XMLDiffChecker}.
+     * Removed triples carry the control XPath, added triples only a test XPath; both are reported as child lookups,
+     * as XMLUnit reports a missing node.
+     *
+     * @param differences The triple differences.
+     * @return The edited elements.
+     */
+    private static List<EditedElement> toEditedElements(List<TripleDifference> differences) {
+        List<EditedElement> editedElements = new ArrayList<>(differences.size());
+        for (TripleDifference difference : differences) {
+            String controlXPath = difference.added() ? null : difference.xPath();
+            String testXPath = difference.added() ? difference.xPath() : null;
+            editedElements.add(new EditedElement(controlXPath, testXPath, ComparisonType.CHILD_LOOKUP,
+                    difference.subject(), difference.predicate(), difference.toNTriple()));
+        }
+        return editedElements;
+    }
+
+    /**
+     * Reads the triples of an RDF/XML document.
+     *
+     * @param source The reader of the document.
+     * @param ids    The ids of the terms interned so far, shared by both documents.
+     * @param terms  The terms interned so far, by id.
+     * @return The graph of the document.
+     * @throws XMLStreamException If the document is not well-formed.
+     */
+    private Graph read(Reader source, Map<String, Integer> ids, List<String> terms) throws XMLStreamException {
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(source);
+        try {
+            GraphReader graphReader = new GraphReader(reader, ids, terms);
+            while (reader.hasNext() && reader.next() != XMLStreamConstants.START_ELEMENT) ;
+            if (!reader.isStartElement())
+                throw new XMLStreamException("Missing root element.");
+
+            Scope scope = new Scope(null, "").enter(reader);
+            String xPath = "/" + reader.getLocalName() + "[1]";
+            if (graphReader.isRdf("RDF"))
+                graphReader.readNodeElements(xPath, scope);
+            else
+                graphReader.readNodeElement(xPath, scope);
+
+            while (reader.hasNext()) reader.next(); // Check the rest of the document
+            graphReader.labelBlankNodes();
+            return graphReader.graph;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * A triple found in only one of the compared documents.
+     *
+     * @param added     {@code true} if the triple is only in the test document, {@code false} if it was removed.
+     * @param subject   The subject, as an IRI in angle brackets or a blank node label.
+     * @param predicate The predicate, as an IRI in angle brackets.
+     * @param object    The object, as an IRI, a blank node label or a quoted literal.
+     * @param xPath     The XPath of the element the triple was read from.
+     * @param beginLine The line where the element starts.
+     * @param endLine   The line where the element ends.
+     */
+    public record TripleDifference(boolean added, String subject, String predicate, String object, String xPath,
+                                   int beginLine, int endLine) {
+
+        /**
+         * Formats the triple as an N-Triples statement.
+         *
+         * @return The triple followed by a dot.
+         */
+        public String toNTriple() {
+            return subject + " " + predicate + " " + object + " .";
+        }
+    }
+
+    /**
+     * The element a triple was read from.
+     */
+    private static final class Origin {
+        private final String xPath;
+        private final int beginLine;
+        private int endLine;
+
+        /**
+         * Constructs an {@code Origin}, its end line is set once the element ends.
+         *
+         * @param xPath     The XPath of the element.
+         * @param beginLine The line where the element starts.
+         */
+        private Origin(String xPath, int beginLine) {
+            this.xPath = xPath;
+            this.beginLine = beginLine;
+            this.endLine = beginLine;
+        }
+    }
+
+    /**
+     * The triples of a document and the elements they were read from.
+     */
+    private static final class Graph {
+        private TripleSet triples = new TripleSet();
+        private final List<Origin> origins = new ArrayList<>();
+    }
+
+    /**
+     * The inherited {@code xml:base} and {@code xml:lang} of an element.
+     *
+     * @param base The base IRI, or {@code null} if there is none.
+     * @param lang The language of the literals, or the empty string.
+     */
+    private record Scope(String base, String lang) {
+
+        /**
+         * Returns the scope of the element the reader is positioned on.
+         *
+         * @param reader The reader, positioned on a start element.
+         * @return The scope of the element.
+         */
+        private Scope enter(XMLStreamReader reader) {
+            String elementBase = reader.getAttributeValue(XMLConstants.XML_NS_URI, "base");
+            String elementLang = reader.getAttributeValue(XMLConstants.XML_NS_URI, "lang");
+            if (elementBase == null && elementLang == null)
+                return this;
+            return new Scope(elementBase != null ? resolve(elementBase) : base,
+                    elementLang != null ? elementLang : lang);
+        }
+
+        /**
+         * Resolves an IRI reference against the base.
+         *
+         * @param reference The IRI reference.
+         * @return The resolved IRI, or the reference itself if it cannot be resolved.
+         */
+        private String resolve(String reference) {
+            if (base == null)
+                return reference;
+            try {
+                if (reference.isEmpty())
+                    return base.contains("#") ? base.substring(0, base.indexOf('#')) : base;
+                return URI.create(base).resolve(reference).toString();
+            } catch (IllegalArgumentException e) {
+                return reference;
+            }
+        }
+    }
+
+    /**
+     * Reads the triples of a document from a StAX reader positioned inside it.
+     */
+    private static final class GraphReader {
+        private final XMLStreamReader reader;
+        private final Map<String, Integer> ids;
+        private final List<String> terms;
+        private final Graph graph = new Graph();
+        private final List<String> blankNodes = new ArrayList<>(); // Provisional labels, in creation order
+
+        /**
+         * Constructs a {@code GraphReader}.
+         *
+         * @param reader The StAX reader.
+         * @param ids    The ids of the interned terms.
+         * @param terms  The interned terms, by id.
+         */
+        private GraphReader(XMLStreamReader reader, Map<String, Integer> ids, List<String> terms) {
+            this.reader = reader;
+            this.ids = ids;
+            this.terms = terms;
+        }
+
+        /**
+         * Reads the node elements inside the current element until its end.
+         *
+         * @param parentXPath The XPath of the current element.
+         * @param scope       The scope of the current element.
+         * @throws XMLStreamException If the document is not well-formed.
+         */
+        private void readNodeElements(String parentXPath, Scope scope) throws XMLStreamException {
+            Map<String, Integer> siblingCounts = new HashMap<>();
+            while (reader.next() != XMLStreamConstants.END_ELEMENT)
+                if (reader.isStartElement())
+                    readNodeElement(childXPath(parentXPath, siblingCounts), scope.enter(reader));
+        }
+
+        /**
+         * Reads a node element and its property elements.
+         *
+         * @param xPath The XPath of the element.
+         * @param scope The scope of the element.
+         * @return The subject of the node.
+         * @throws XMLStreamException If the document is not well-formed.
+         */
+        private String readNodeElement(String xPath, Scope scope) throws XMLStreamException {
+            int origin = origin(xPath);
+
+            String subject;
+            String about = rdfAttribute("about");
+            String id = rdfAttribute("ID");
+            String nodeID = rdfAttribute("nodeID");
+            if (about != null)
+                subject = iri(scope.resolve(about));
+            else if (id != null)
+                subject = iri(scope.resolve("#" + id));
+            else if (nodeID != null)
+                subject = "_:" + nodeID;
+            else
+                subject = blankNode();
+
+            if (!isRdf("Description"))
+                add(subject, RDF_TYPE, iri(reader.getNamespaceURI() + reader.getLocalName()), origin);
+            addPropertyAttributes(subject, scope, origin);
+
+            Map<String, Integer> siblingCounts = new HashMap<>();
+            int item = 0;
+            while (reader.next() != XMLStreamConstants.END_ELEMENT)
+                if (reader.isStartElement())
+                    readPropertyElement(subject, childXPath(xPath, siblingCounts), scope.enter(reader), ++item);
+
+            graph.origins.get(origin).endLine = reader.getLocation().getLineNumber();
+            return subject;
+        }
+
+        /**
+         * Reads a property element of a subject.
+         *
+         * @param subject The subject the property belongs to.
+         * @param xPath   The XPath of the element.
+         * @param scope   The scope of the element.
+         * @param item    The position of the element among the properties of the subject, used by {@code rdf:li}.
+         * @throws XMLStreamException If the document is not well-formed.
+         */
+        private void readPropertyElement(String subject, String xPath, Scope scope, int item)
+                throws XMLStreamException {
+            int origin = origin(xPath);
+            String predicate = isRdf("li") ? iri(RDF_NAMESPACE + "_" + item)
+                    : iri(reader.getNamespaceURI() + reader.getLocalName());
+            String resource = rdfAttribute("resource");
+            String nodeID = rdfAttribute("nodeID");
+            String parseType = rdfAttribute("parseType");
+            String datatype = rdfAttribute("datatype");
+
+            if (resource != null || nodeID != null) {
+                // Empty property element pointing to a resource, other attributes describe the resource
+                String object = resource != null ? iri(scope.resolve(resource)) : "_:" + nodeID;
+                add(subject, predicate, object, origin);
+                addPropertyAttributes(object, scope, origin);
+                skipElement();
+            } else if ("Resource".equals(parseType)) {
+                String object = blankNode();
+                add(subject, predicate, object, origin);
+                Map<String, Integer> siblingCounts = new HashMap<>();
+                int nestedItem = 0;
+                while (reader.next() != XMLStreamConstants.END_ELEMENT)
+                    if (reader.isStartElement())
+                        readPropertyElement(object, childXPath(xPath, siblingCounts), scope.enter(reader),
+                                ++nestedItem);
+            } else if ("Literal".equals(parseType)) {
+                add(subject, predicate, literal(readXmlContent(), "", RDF_XML_LITERAL), origin);
+            } else if ("Collection".equals(parseType)) {
+                readCollection(subject, predicate, xPath, scope, origin);
+            } else {
+                readPropertyContent(subject, predicate, xPath, scope, datatype, origin);
+            }
+
+            graph.origins.get(origin).endLine = reader.getLocation().getLineNumber();
+        }
+
+        /**
+         * Reads the content of a property element without {@code rdf:parseType}: either a nested node element,
+         * a literal, or a blank node described by the attributes of the property element.
+         *
+         * @param subject   The subject the property belongs to.
+         * @param predicate The predicate of the property.
+         * @param xPath     The XPath of the property element.
+         * @param scope     The scope of the property element.
+         * @param datatype  The {@code rdf:datatype} of the literal, or {@code null}.
+         * @param origin    The origin of the property element.
+         * @throws XMLStreamException If the document is not well-formed.
+         */
+        private void readPropertyContent(String subject, String predicate, String xPath, Scope scope,
+                                         String datatype, int origin) throws XMLStreamException {
+            boolean hasPropertyAttributes = hasPropertyAttributes();
+            String attributesNode = hasPropertyAttributes ? blankNode() : null;
+            if (hasPropertyAttributes)
+                addPropertyAttributes(attributesNode, scope, origin);
+
+            StringBuilder text = new StringBuilder();
+            String object = null;
+            Map<String, Integer> siblingCounts = new HashMap<>();
+            while (reader.next() != XMLStreamConstants.END_ELEMENT) {
+                if (reader.isCharacters())
+                    text.append(reader.getText());
+                else if (reader.isStartElement())
+                    object = readNodeElement(childXPath(xPath, siblingCounts), scope.enter(reader));
+            }
+
+            if (object == null)
+                object = hasPropertyAttributes ? attributesNode : literal(text.toString(), scope.lang(), datatype);
+            add(subject, predicate, object, origin);
+        }
+
+        /**
+         * Reads a property element with {@code rdf:parseType="Collection"} into an RDF list.
+         *
+         * @param subject   The subject the property belongs to.
+         * @param predicate The predicate of the property.
+         * @param xPath     The XPath of the property element.
+         * @param scope     The scope of the property element.
+         * @param origin    The origin of the property element.
+         * @throws XMLStreamException If the document is not well-formed.
+         */
+        private void readCollection(String subject, String predicate, String xPath, Scope scope, int origin)
+                throws XMLStreamException {
+            String previous = null;
+            Map<String, Integer> siblingCounts = new HashMap<>();
+            while (reader.next() != XMLStreamConstants.END_ELEMENT) {
+                if (!reader.isStartElement())
+                    continue;
+                String node = blankNode();
+                add(previous == null ? subject : previous, previous == null ? predicate : RDF_REST, node, origin);
+                String item = readNodeElement(childXPath(xPath, siblingCounts), scope.enter(reader));
+                add(node, RDF_FIRST, item, origin);
+                previous = node;
+            }
+            add(previous == null ? subject : previous, previous == null ? predicate : RDF_REST, RDF_NIL, origin);
+        }
+
+        /**
+         * Adds the property attributes of the current element as literal properties of a subject.
+         *
+         * @param subject The subject of the properties.
+         * @param scope   The scope of the element.
+         * @param origin  The origin of the element.
+         */
+        private void addPropertyAttributes(String subject, Scope scope, int origin) {
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                String namespace = reader.getAttributeNamespace(i);
+                if (!isPropertyAttribute(namespace, reader.getAttributeLocalName(i)))
+                    continue;
+                if (RDF_NAMESPACE.equals(namespace) && reader.getAttributeLocalName(i).equals("type"))
+                    add(subject, RDF_TYPE, iri(scope.resolve(reader.getAttributeValue(i))), origin);
+                else
+                    add(subject, iri(namespace + reader.getAttributeLocalName(i)),
+                            literal(reader.getAttributeValue(i), scope.lang(), null), origin);
+            }
+        }
+
+        /**
+         * Checks whether the current element has property attributes.
+         *
+         * @return {@code true} if at least one attribute is a property attribute.
+         */
+        private boolean hasPropertyAttributes() {
+            for (int i = 0; i < reader.getAttributeCount(); i++)
+                if (isPropertyAttribute(reader.getAttributeNamespace(i), reader.getAttributeLocalName(i)))
+                    return true;
+            return false;
+        }
+
+        /**
+         * Checks whether an attribute states a property, rather than being part of the RDF/XML syntax.
+         *
+         * @param namespace The namespace of the attribute.
+         * @param localName The local name of the attribute.
+         * @return {@code true} if the attribute is a property attribute.
+         */
+        private static boolean isPropertyAttribute(String namespace, String localName) {
+            if (namespace == null || namespace.isEmpty() || XMLConstants.XML_NS_URI.equals(namespace))
+                return false;
+            return !RDF_NAMESPACE.equals(namespace) || !Set.of("about", "ID", "nodeID", "resource", "parseType",
+                    "datatype", "bagID", "aboutEach", "aboutEachPrefix").contains(localName);
+        }
+
+        /**
+         * Reads the content of the current element as an XML literal.
+         *
+         * @return The serialized content of the element.
+         * @throws XMLStreamException If the document is not well-formed.
+         */
+        private String readXmlContent() throws XMLStreamException {
+            StringBuilder content = new StringBuilder();
+            int depth = 0;
+            while (true) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    content.append('<').append(qName(reader.getPrefix(), reader.getLocalName()));
+                    for (int i = 0; i < reader.getAttributeCount(); i++)
+                        content.append(' ').append(qName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)))
+                                .append("=\"").append(reader.getAttributeValue(i)).append('"');
+                    content.append('>');
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (depth-- == 0)
+                        return content.toString();
+                    content.append("</").append(qName(reader.getPrefix(), reader.getLocalName())).append('>');
+                } else if (reader.isCharacters()) {
+                    content.append(reader.getText());
+                }
+            }
+        }
+
+        /**
+         * Skips the rest of the current element.
+         *
+         * @throws XMLStreamException If the document is not well-formed.
+         */
+        private void skipElement() throws XMLStreamException {
+            int depth = 0;
+            while (true) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT)
+                    depth++;
+                else if (event == XMLStreamConstants.END_ELEMENT && depth-- == 0)
+                    return;
+            }
+        }
+
+        /**
+         * Checks whether the current element is the RDF syntax element with the given name.
+         *
+         * @param localName The local name of the element.
+         * @return {@code true} if the current element is {@code rdf:localName}.
+         */
+        private boolean isRdf(String localName) {
+            return RDF_NAMESPACE.equals(reader.getNamespaceURI()) && localName.equals(reader.getLocalName());
+        }
+
+        /**
+         * Gets an attribute of the current element in the RDF namespace.
+         *
+         * @param localName The local name of the attribute.
+         * @return The value of the attribute, or {@code null} if it is missing.
+         */
+        private String rdfAttribute(String localName) {
+            return reader.getAttributeValue(RDF_NAMESPACE, localName);
+        }
+
+        /**
+         * Builds the XPath of the current element from the XPath of its parent, like XMLUnit does.
+         *
+         * @param parentXPath   The XPath of the parent element.
+         * @param siblingCounts The number of siblings seen so far, by expanded name.
+         * @return The XPath of the current element.
+         */
+        private String childXPath(String parentXPath, Map<String, Integer> siblingCounts) {
+            int index = siblingCounts.merge(reader.getNamespaceURI() + " " + reader.getLocalName(), 1, Integer::sum);
+            return parentXPath + "/" + reader.getLocalName() + "[" + index + "]";
+        }
+
+        /**
+         * Registers the current element as the origin of the triples read from it.
+         *
+         * @param xPath The XPath of the element.
+         * @return The index of the origin.
+         */
+        private int origin(String xPath) {
+            graph.origins.add(new Origin(xPath, reader.getLocation().getLineNumber()));
+            return graph.origins.size() - 1;
+        }
+
+        /**
+         * Creates an anonymous node with a provisional label, replaced by {@link #labelBlankNodes()}. The label
+         * cannot clash with an {@code rdf:nodeID}, which is an XML name.
+         *
+         * @return The blank node.
+         */
+        private String blankNode() {
+            String label = "_:?" + blankNodes.size();
+            blankNodes.add(label);
+            return label;
+        }
+
+        /**
+         * Replaces the provisional labels of the anonymous nodes with a signature of their content: the digest of
+         * their sorted outgoing triples, in which the anonymous objects are themselves replaced by their
+         * signatures. A nested node is always created after the node it hangs from, so walking the nodes in
+         * reverse creation order computes every signature after the ones it depends on.
+         */
+        private void labelBlankNodes() {
+            if (blankNodes.isEmpty())
+                return;
+
+            Map<Integer, Integer> nodeIndexes = new HashMap<>(); // By term id
+            for (String blankNode : blankNodes)
+                nodeIndexes.put(intern(blankNode), nodeIndexes.size());
+            List<List<Integer>> outgoing = new ArrayList<>();
+            for (int i = 0; i < blankNodes.size(); i++)
+                outgoing.add(new ArrayList<>());
+            TripleSet triples = graph.triples;
+            for (int i = 0; i < triples.size(); i++) {
+                Integer node = nodeIndexes.get(triples.subject(i));
+                if (node != null)
+                    outgoing.get(node).add(i);
+            }
+
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+            int[] labels = new int[blankNodes.size()]; // Term ids of the final labels
+            for (int node = blankNodes.size() - 1; node >= 0; node--) {
+                List<String> description = new ArrayList<>();
+                for (int triple : outgoing.get(node)) {
+                    Integer object = nodeIndexes.get(triples.object(triple));
+                    description.add(terms.get(triples.predicate(triple)) + " "
+                            + terms.get(object != null ? labels[object] : triples.object(triple)));
+                }
+                Collections.sort(description);
+                for (String entry : description)
+                    digest.update((entry + '\u0000').getBytes(StandardCharsets.UTF_8));
+                labels[node] = intern("_:genid-" + HexFormat.of().formatHex(digest.digest(), 0, 16));
+            }
+
+            // Rebuild the set, since anonymous nodes with the same content now state the same triples
+            TripleSet labelled = new TripleSet();
+            for (int i = 0; i < triples.size(); i++) {
+                Integer subject = nodeIndexes.get(triples.subject(i));
+                Integer object = nodeIndexes.get(triples.object(i));
+                labelled.add(subject != null ? labels[subject] : triples.subject(i), triples.predicate(i),
+                        object != null ? labels[object] : triples.object(i), triples.origin(i));
+            }
+            graph.triples = labelled;
+        }
+
+        /**
+         * Interns the terms of a triple and adds it to the graph.
+         *
+         * @param subject   The subject.
+         * @param predicate The predicate.
+         * @param object    The object.
+         * @param origin    The origin of the triple.
+         */
+        private void add(String subject, String predicate, String object, int origin) {
+            graph.triples.add(intern(subject), intern(predicate), intern(object), origin);
+        }
+
+        /**
+         * Returns the id of a term, assigning a new one if the term has not been seen yet.
+         *
+         * @param term The term.
+         * @return The id of the term.
+         */
+        private int intern(String term) {
+            Integer id = ids.get(term);
+            if (id == null) {
+                id = terms.size();
+                ids.put(term, id);
+                terms.add(term);
+            }
+            return id;
+        }
+
+        /**
+         * Formats an IRI term.
+         *
+         * @param iri The IRI.
+         * @return The IRI in angle brackets.
+         */
+        private static String iri(String iri) {
+            return "<" + iri + ">";
+        }
+
+        /**
+         * Formats a literal term.
+         *
+         * @param value    The lexical value.
+         * @param lang     The language, or the empty string.
+         * @param datatype The datatype IRI, or {@code null}.
+         * @return The quoted literal with its language or datatype.
+         */
+        private static String literal(String value, String lang, String datatype) {
+            String quoted = "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+            if (datatype != null)
+                return quoted + "^^" + iri(datatype);
+            return lang.isEmpty() ? quoted : quoted + "@" + lang;
+        }
+
+        /**
+         * Formats a qualified name.
+         *
+         * @param prefix    The prefix, possibly {@code null} or empty.
+         * @param localName The local name.
+         * @return The qualified name.
+         */
+        private static String qName(String prefix, String localName) {
+            return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+        }
+    }
+
+    /**
+     * An insertion-ordered set of triples of interned term ids, backed by primitive arrays.
+     * Triples are stored three ints at a time with the index of their origin; an open-addressing table of
+     * triple indexes provides constant-time lookups.
+     */
+    private static final class TripleSet {
+        private int[] triples = new int[3 * 16];
+        private int[] origins = new int[16];
+        private int[] table = new int[32]; // Triple index + 1, 0 marks an empty slot
+        private int size;
+
+        /**
+         * Adds a triple unless it is already in the set.
+         *
+         * @param subject   The id of the subject.
+         * @param predicate The id of the predicate.
+         * @param object    The id of the object.
+         * @param origin    The index of the origin of the triple.
+         */
+        private void add(int subject, int predicate, int object, int origin) {
+            int slot = slot(subject, predicate, object);
+            if (table[slot] != 0)
+                return;
+
+            if (size == origins.length) {
+                triples = Arrays.copyOf(triples, triples.length * 2);
+                origins = Arrays.copyOf(origins, origins.length * 2);
+            }
+            triples[3 * size] = subject;
+            triples[3 * size + 1] = predicate;
+            triples[3 * size + 2] = object;
+            origins[size] = origin;
+            table[slot] = ++size;
+
+            if (size * 2 > table.length)
+                rehash();
+        }
+
+        /**
+         * Checks whether a triple is in the set.
+         *
+         * @param subject   The id of the subject.
+         * @param predicate The id of the predicate.
+         * @param object    The id of the object.
+         * @return {@code true} if the triple is in the set.
+         */
+        private boolean contains(int subject, int predicate, int object) {
+            return table[slot(subject, predicate, object)] != 0;
+        }
+
+        /**
+         * Finds the slot of a triple, or the empty slot where it would be stored.
+         *
+         * @param subject   The id of the subject.
+         * @param predicate The id of the predicate.
+         * @param object    The id of the object.
+         * @return The index of the slot in the table.
+         */
+        private int slot(int subject, int predicate, int object) {
+            int mask = table.length - 1;
+            int slot = hash(subject, predicate, object) & mask;
+            while (table[slot] != 0) {
+                int index = 3 * (table[slot] - 1);
+                if (triples[index] == subject && triples[index + 1] == predicate && triples[index + 2] == object)
+                    return slot;
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * Doubles the table and reinserts every triple.
+         */
+        private void rehash() {
+            table = new int[table.length * 2];
+            int mask = table.length - 1;
+            for (int i = 0; i < size; i++) {
+                int slot = hash(triples[3 * i], triples[3 * i + 1], triples[3 * i + 2]) & mask;
+                while (table[slot] != 0)
+                    slot = (slot + 1) & mask;
+                table[slot] = i + 1;
+            }
+        }
+
+        /**
+         * Hashes a triple of ids.
+         *
+         * @param subject   The id of the subject.
+         * @param predicate The id of the predicate.
+         * @param object    The id of the object.
+         * @return The hash of the triple.
+         */
+        private static int hash(int subject, int predicate, int object) {
+            long hash = ((long) subject * 0x9E3779B97F4A7C15L) ^ ((long) predicate * 0xC2B2AE3D27D4EB4FL)
+                    ^ ((long) object * 0x165667B19E3779F9L);
+            hash ^= hash >>> 31;
+            return (int) (hash ^ (hash >>> 32));
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private int subject(int index) {
+            return triples[3 * index];
+        }
+
+        private int predicate(int index) {
+            return triples[3 * index + 1];
+        }
+
+        private int object(int index) {
+            return triples[3 * index + 2];
+        }
+
+        private int origin(int index) {
+            return origins[index];
+        }
+    }
+}
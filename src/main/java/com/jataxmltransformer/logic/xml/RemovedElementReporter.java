@@ -0,0 +1,115 @@
+package com.jataxmltransformer.logic.xml;
+
+import com.jataxmltransformer.logic.cducecompiler.CDuceReport.Kind;
+import com.jataxmltransformer.logic.cducecompiler.CDuceReport.RemovedElement;
+import com.jataxmltransformer.logic.data.ErrorInfo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates the error information of an ontology from the elements its CDuce transformation removed, as reported by
+ * the {@link com.jataxmltransformer.logic.cducecompiler.CDuceReport}.
+ * <p>
+ * The transformation reports each removed class by its position among the children of the root, and each removed
+ * attribute by the position of its class and its own position among the children of the class. These positions are
+ * resolved with a single walk over the {@link XPathIndex} of the input, so the errors are located without formatting,
+ * diffing or parsing the transformed ontology.
+ * </p>
+ */
+public class RemovedElementReporter {
+
+    private final XPathIndex index;
+
+    /**
+     * Constructs a reporter for an input ontology.
+     *
+     * @param index The index of the elements of the input ontology.
+     */
+    public RemovedElementReporter(XPathIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Generates the error information of the removed elements. Elements whose position is not found in the input
+     * are skipped.
+     *
+     * @param removedElements The removed elements, as reported by the transformation.
+     * @return A list of {@link ErrorInfo} objects, in the order of the removed elements.
+     */
+    public List<ErrorInfo> generateErrorInfo(List<RemovedElement> removedElements) {
+        if (removedElements.isEmpty() || index.size() == 0)
+            return new ArrayList<>();
+
+        // The attributes to find, by class position and attribute position
+        Set<Long> wanted = new HashSet<>();
+        for (RemovedElement element : removedElements)
+            if (element.kind() == Kind.ATTRIBUTE)
+                wanted.add(key(element.classPosition(), element.attributePosition()));
+
+        // Walk the elements in document order, numbering the children of the root and of each class
+        final int root = 1;
+        List<Integer> classes = new ArrayList<>();
+        Map<Integer, Integer> classPositions = new HashMap<>();
+        Map<Integer, Integer> childCounts = new HashMap<>();
+        Map<Long, Integer> attributes = new HashMap<>();
+        for (int node = root + 1; node <= index.size(); node++) {
+            int parent = index.parent(node);
+            if (parent == root) {
+                classes.add(node);
+                classPositions.put(node, classes.size());
+            } else if (!wanted.isEmpty() && index.parent(parent) == root) {
+                int position = childCounts.merge(parent, 1, Integer::sum);
+                long key = key(classPositions.get(parent), position);
+                if (wanted.contains(key))
+                    attributes.put(key, node);
+            }
+        }
+
+        List<ErrorInfo> errorInfos = new ArrayList<>();
+        for (RemovedElement element : removedElements) {
+            Integer node = element.kind() == Kind.CLASS
+                    ? (element.classPosition() >= 1 && element.classPosition() <= classes.size()
+                    ? classes.get(element.classPosition() - 1) : null)
+                    : attributes.get(key(element.classPosition(), element.attributePosition()));
+            if (node != null)
+                errorInfos.add(errorInfo(element, node));
+        }
+        return errorInfos;
+    }
+
+    /**
+     * Builds the error information of a removed element.
+     *
+     * @param element The removed element.
+     * @param node    The node of the element in the index.
+     * @return The error information.
+     */
+    private ErrorInfo errorInfo(RemovedElement element, int node) {
+        String message = switch (element.kind()) {
+            case CLASS -> element.reason().equals("empty")
+                    ? "Class removed: it has no valid attributes"
+                    : "Class removed: it does not match any class of the structure";
+            case ATTRIBUTE -> "Attribute removed: it does not match any attribute of the structure";
+        };
+        String context = element.kind() == Kind.CLASS ? "Class: " + index.name(node)
+                : "Class: " + index.name(index.parent(node)) + ", Property: " + index.name(node);
+        return new ErrorInfo(index.beginLine(node), index.endLine(node), message,
+                "XPath: " + index.xPath(node) + " | Context: " + context);
+    }
+
+    /**
+     * Combines a class position and an attribute position into a key.
+     *
+     * @param classPosition     The class position.
+     * @param attributePosition The attribute position.
+     * @return The key.
+     */
+    private static long key(int classPosition, int attributePosition) {
+        return ((long) classPosition << 32) | (attributePosition & 0xFFFFFFFFL);
+    }
+}
@@ -3,139 +3,379 @@ package com.jataxmltransformer.logic.xml;
 import com.jataxmltransformer.logic.data.EditedElement;
 import com.jataxmltransformer.logic.data.Ontology;
 import com.jataxmltransformer.logs.AppLogger;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 import org.xmlunit.XMLUnitException;
-import org.xmlunit.builder.DiffBuilder;
+import org.xmlunit.builder.Input;
 import org.xmlunit.diff.*;
 
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamSource;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
 
 /**
  * The {@code XMLDiffChecker} class compares two XML files or ontologies using XMLUnit
  * and identifies the differences between them. It provides methods to compare XML files
  * by their file paths or ontology objects and returns a list of {@link EditedElement}
  * objects representing the detected differences.
+ * <p>
+ * Before XMLUnit runs, identical subtrees are removed from both documents by {@link XMLSubtreePruner},
+ * so the cost of a comparison depends on the size of the changes rather than on the size of the documents.
+ * The remaining siblings are paired by {@link OntologyNodeMatcher}, which keys RDF resources on their identifiers.
+ * </p>
+ * <p>
+ * Large ontologies can be compared with {@link #diffOntologiesInParallel(Ontology, Ontology, ForkJoinPool)},
+ * which compares each pair of top-level elements on a {@link ForkJoinPool}.
+ * </p>
  */
 public class XMLDiffChecker implements IXMLDiffChecker {
 
     /**
-     * Compares two XML sources (files or strings) and identifies the differences.
+     * The key used to report each difference only once: the XPaths of both sides and the type of the comparison.
+     * XPaths are interned, so the many differences sharing the same paths share the same strings.
+     *
+     * @param controlXPath The XPath of the control node.
+     * @param testXPath    The XPath of the test node.
+     * @param type         The type of the comparison.
+     */
+    private record DifferenceKey(String controlXPath, String testXPath, ComparisonType type) {
+        private DifferenceKey {
+            controlXPath = controlXPath != null ? controlXPath.intern() : null;
+            testXPath = testXPath != null ? testXPath.intern() : null;
+        }
+    }
+
+    /**
+     * Compares two XML sources (files, strings or sources) and collects the differences.
      *
      * @param inputSource  The source of the original (control) XML data.
      * @param outputSource The source of the modified (test) XML data.
-     * @param inputXMLPath The path to the original XML file (if applicable). Used for line number determination.
-     * @return A list of {@link EditedElement} objects representing the differences found.
+     * @return A list of {@link EditedElement} objects representing the differences found,
+     * or {@code null} if one of the documents is malformed.
      * @throws Exception If an error occurs during the comparison (e.g., malformed XML).
      */
-    private static List<EditedElement> diff(Object inputSource, Object outputSource, String inputXMLPath)
+    private static List<EditedElement> diff(Object inputSource, Object outputSource)
             throws Exception {
         List<EditedElement> differences = new ArrayList<>();
-        Set<String> seenDifferences = new HashSet<>();
+        return diff(inputSource, outputSource, differences::add, Integer.MAX_VALUE) ? differences : null;
+    }
+
+    /**
+     * Compares two XML sources (files, strings or sources) and pushes each difference to the sink as soon as XMLUnit
+     * finds it. The comparison stops once {@code maxDifferences} differences have been reported.
+     *
+     * @param inputSource    The source of the original (control) XML data.
+     * @param outputSource   The source of the modified (test) XML data.
+     * @param sink           The consumer receiving the differences.
+     * @param maxDifferences The maximum number of differences to report.
+     * @return {@code true} if the comparison completed, {@code false} if one of the documents is malformed.
+     * @throws Exception If an error occurs during the comparison (e.g., malformed XML).
+     */
+    private static boolean diff(Object inputSource, Object outputSource, Consumer<EditedElement> sink,
+                                int maxDifferences) throws Exception {
+        if (maxDifferences <= 0)
+            return true;
 
-        Diff diff;
         try {
-            diff = DiffBuilder.compare(inputSource)
-                    .withTest(outputSource)
-                    .normalizeWhitespace()
-                    .ignoreWhitespace()
-                    .ignoreComments()
-                    .ignoreElementContentWhitespace()
-                    .withNodeMatcher(new DefaultNodeMatcher(ElementSelectors.byNameAndText))
-                    .checkForSimilar()
-                    .build();
+            // Normalize both documents before comparing them
+            compare(XMLSubtreePruner.normalize(Input.from(inputSource).build()),
+                    XMLSubtreePruner.normalize(Input.from(outputSource).build()), sink, maxDifferences);
         } catch (XMLUnitException e) {
             if (e.getCause() instanceof org.xml.sax.SAXParseException) {
                 AppLogger.severe("The XML file is not well-formed: " + e.getCause().getMessage());
-                return null;
+                return false;
             } else {
                 AppLogger.severe("XMLUnit error: " + e.getMessage());
                 throw new Exception("Error during XML comparison", e);
             }
         }
 
-        // Read the entire XML content into a String
-        String xmlContent;
-        try (Reader inputDataStream = (inputXMLPath == null)
-                ? new StringReader((String) inputSource)
-                : new FileReader(inputXMLPath)) {
-            xmlContent = readAllLines(inputDataStream);
-        } catch (IOException e) {
-            AppLogger.severe("Error reading XML data: " + e.getMessage());
-            throw new Exception("Error reading XML data", e);
-        }
+        return true;
+    }
+
+    /**
+     * Compares two normalized documents, pushing each difference to the sink as soon as XMLUnit finds it.
+     * The subtrees the documents have in common are pruned first, and the comparison stops once
+     * {@code maxDifferences} differences have been reported.
+     *
+     * @param controlDocument The normalized original (control) document, modified by the pruning.
+     * @param testDocument    The normalized modified (test) document, modified by the pruning.
+     * @param sink            The consumer receiving the differences.
+     * @param maxDifferences  The maximum number of differences to report.
+     */
+    private static void compare(Document controlDocument, Document testDocument, Consumer<EditedElement> sink,
+                                int maxDifferences) {
+        if (!XMLSubtreePruner.prune(controlDocument, testDocument))
+            return; // The documents are identical
+
+        Set<DifferenceKey> seenDifferences = new HashSet<>();
+        int[] reported = {0};
+
+        // Whitespace and comments have already been handled by the normalization
+        DOMDifferenceEngine engine = new DOMDifferenceEngine();
+        engine.setNodeMatcher(new OntologyNodeMatcher());
+        engine.addDifferenceListener((comparison, outcome) -> {
+            // Only real differences are reported, similar nodes are accepted as in checkForSimilar()
+            if (outcome != ComparisonResult.DIFFERENT || reported[0] >= maxDifferences)
+                return;
+
+            // XPaths are computed on the pruned documents, translate them back to the original ones
+            if (report(comparison, XMLSubtreePruner.originalXPath(comparison.getControlDetails()),
+                    XMLSubtreePruner.originalXPath(comparison.getTestDetails()), seenDifferences, sink))
+                reported[0]++;
+        });
+        engine.setComparisonController(_ -> reported[0] >= maxDifferences);
+        engine.compare(new DOMSource(controlDocument), new DOMSource(testDocument));
+    }
+
+    /**
+     * Compares the top-level elements of two XML sources in parallel. After pruning, the children of the root
+     * elements are paired by {@link OntologyNodeMatcher} in a shallow pass over the first two levels of the
+     * documents; each pair of elements is then copied out and compared on the pool. The results are merged in
+     * the order a sequential comparison would have reported them, with the XPaths of the whole documents.
+     *
+     * @param inputSource  The source of the original (control) XML data.
+     * @param outputSource The source of the modified (test) XML data.
+     * @param pool         The pool the top-level elements are compared on.
+     * @return A list of {@link EditedElement} objects representing the differences found,
+     * or {@code null} if one of the documents is malformed.
+     * @throws Exception If an error occurs during the comparison (e.g., malformed XML).
+     */
+    private static List<EditedElement> diffInParallel(Object inputSource, Object outputSource, ForkJoinPool pool)
+            throws Exception {
+        // Root-level differences are singleton segments, each pair of top-level elements fills its own segment
+        List<List<EditedElement>> segments = new ArrayList<>();
+        List<Partition> partitions = new ArrayList<>();
+
+        try {
+            Document controlDocument = XMLSubtreePruner.normalize(Input.from(inputSource).build());
+            Document testDocument = XMLSubtreePruner.normalize(Input.from(outputSource).build());
+            if (!XMLSubtreePruner.prune(controlDocument, testDocument))
+                return new ArrayList<>(); // The documents are identical
+
+            Set<DifferenceKey> seenDifferences = new HashSet<>();
+            Consumer<EditedElement> sink = editedElement -> segments.add(List.of(editedElement));
 
-        // Process differences using the XML content
-        for (Difference difference : diff.getDifferences()) {
-            EditedElement editedElement = getEditedElement(xmlContent, difference);
-            if (editedElement != null && seenDifferences.add(editedElement.getId()))
-                differences.add(editedElement);
+            // Only the root elements and their children take part in the shallow pass
+            DOMDifferenceEngine engine = new DOMDifferenceEngine();
+            engine.setNodeMatcher(new OntologyNodeMatcher());
+            engine.setNodeFilter(node -> NodeFilters.Default.test(node) && isTopLevel(node));
+            engine.addComparisonListener((comparison, outcome) -> {
+                Node controlTarget = comparison.getControlDetails().getTarget();
+                Node testTarget = comparison.getTestDetails().getTarget();
+                boolean childComparison = comparison.getType() == ComparisonType.CHILD_LOOKUP
+                        || comparison.getType() == ComparisonType.CHILD_NODELIST_SEQUENCE;
+
+                // Differences inside a pair of top-level elements are left to the comparison of that pair
+                if (outcome == ComparisonResult.DIFFERENT
+                        && (childComparison || (!isPartition(controlTarget) && !isPartition(testTarget))))
+                    report(comparison, XMLSubtreePruner.originalXPath(comparison.getControlDetails()),
+                            XMLSubtreePruner.originalXPath(comparison.getTestDetails()), seenDifferences, sink);
+
+                // XMLUnit descends into a matched pair right after comparing its position
+                if (comparison.getType() == ComparisonType.CHILD_NODELIST_SEQUENCE
+                        && isPartition(controlTarget) && isPartition(testTarget)) {
+                    Partition partition = new Partition(
+                            XMLSubtreePruner.isolate((Element) controlTarget), comparison.getControlDetails().getXPath(),
+                            XMLSubtreePruner.isolate((Element) testTarget), comparison.getTestDetails().getXPath());
+                    partitions.add(partition);
+                    segments.add(partition.differences);
+                }
+            });
+            engine.compare(new DOMSource(controlDocument), new DOMSource(testDocument));
+        } catch (XMLUnitException e) {
+            if (e.getCause() instanceof org.xml.sax.SAXParseException) {
+                AppLogger.severe("The XML file is not well-formed: " + e.getCause().getMessage());
+                return null;
+            } else {
+                AppLogger.severe("XMLUnit error: " + e.getMessage());
+                throw new Exception("Error during XML comparison", e);
+            }
         }
 
+        // A few batches per worker keep the load balanced without paying for a task per element
+        int batchSize = Math.max(1, partitions.size() / (pool.getParallelism() * 4));
+        pool.invoke(new PartitionTask(partitions, batchSize));
+
+        List<EditedElement> differences = new ArrayList<>();
+        for (List<EditedElement> segment : segments)
+            differences.addAll(segment);
         return differences;
     }
 
     /**
-     * Reads all lines from a {@link Reader} and returns them as a single {@link String}.
+     * Checks whether a node is the document, the root element or one of its children.
      *
-     * @param reader The {@link Reader} to read from.
-     * @return The content of the {@link Reader} as a {@link String}.
-     * @throws IOException If an error occurs while reading.
+     * @param node The node to check.
+     * @return {@code true} if the node is within the first two levels of its document.
      */
-    private static String readAllLines(Reader reader) throws IOException {
-        StringBuilder content = new StringBuilder();
-        try (BufferedReader bufferedReader = new BufferedReader(reader)) {
-            String line;
-            while ((line = bufferedReader.readLine()) != null)
-                content.append(line).append(System.lineSeparator());
-        }
-        return content.toString();
+    private static boolean isTopLevel(Node node) {
+        return node.getParentNode() == null || node.getParentNode() instanceof Document
+                || node.getParentNode().getParentNode() instanceof Document;
     }
 
     /**
-     * Extracts an {@link EditedElement} representing a detected difference in an XML file.
+     * Checks whether a node is a child element of the root element, compared on its own in parallel mode, or one of
+     * its attributes.
      *
-     * @param xmlContent The content of the XML file as a {@link String}.
-     * @param difference The difference detected by XMLUnit.
-     * @return An {@link EditedElement} containing information about the detected difference.
+     * @param node The node to check.
+     * @return {@code true} if the node is an element whose parent is the root element, or an attribute of one.
+     */
+    private static boolean isPartition(Node node) {
+        if (node instanceof Attr attribute) // The attributes of a partition are compared with it
+            node = attribute.getOwnerElement();
+        return node instanceof Element && node.getParentNode() != null
+                && node.getParentNode().getParentNode() instanceof Document;
+    }
+
+    /**
+     * A pair of top-level elements copied into documents of their own, so they can be compared on another thread.
      */
-    private static EditedElement getEditedElement(String xmlContent, Difference difference) {
-        if (difference == null) {
-            AppLogger.severe("Difference is null.");
-            return null;
+    private static final class Partition {
+        private final Element control;
+        private final String controlXPath;
+        private final Element test;
+        private final String testXPath;
+        private final List<EditedElement> differences = new ArrayList<>();
+        private final Set<DifferenceKey> seenDifferences = new HashSet<>();
+
+        /**
+         * Constructs a {@code Partition} for a pair of top-level elements.
+         *
+         * @param control      The copy of the control element.
+         * @param controlXPath The XPath of the control element in the pruned control document.
+         * @param test         The copy of the test element.
+         * @param testXPath    The XPath of the test element in the pruned test document.
+         */
+        private Partition(Element control, String controlXPath, Element test, String testXPath) {
+            this.control = control;
+            this.controlXPath = controlXPath;
+            this.test = test;
+            this.testXPath = testXPath;
         }
 
-        EditedElement editedElement = new EditedElement();
-        Comparison comparison = difference.getComparison();
+        /**
+         * Records a difference found while comparing the two elements.
+         *
+         * @param comparison The comparison detected as different by XMLUnit.
+         */
+        private void report(Comparison comparison) {
+            // XMLUnit starts the XPaths at the compared elements, root them where the elements really are
+            Comparison.Detail controlDetails = comparison.getControlDetails();
+            Comparison.Detail testDetails = comparison.getTestDetails();
+            XMLDiffChecker.report(comparison,
+                    XMLSubtreePruner.originalXPath(rebase(controlDetails.getXPath(), controlXPath),
+                            controlDetails.getTarget()),
+                    XMLSubtreePruner.originalXPath(rebase(testDetails.getXPath(), testXPath), testDetails.getTarget()),
+                    seenDifferences, differences::add);
+        }
 
-        if (comparison == null || comparison.getControlDetails() == null || comparison.getTestDetails() == null) {
-            AppLogger.severe("Comparison or control/test details are null.");
-            return editedElement;
+        /**
+         * Replaces the first step of an XPath relative to a compared element with the XPath of that element.
+         *
+         * @param xPath The XPath starting at the compared element.
+         * @param base  The XPath of the compared element in its document.
+         * @return The XPath in the document, or {@code null} if there is no XPath.
+         */
+        private static String rebase(String xPath, String base) {
+            if (xPath == null)
+                return null;
+            int secondStep = xPath.indexOf('/', 1);
+            return secondStep < 0 ? base : base + xPath.substring(secondStep);
         }
+    }
 
-        // Determine which block of XML content (test or control) is being edited
-        String testBlock = comparison.getTestDetails().getValue() != null ? comparison.getTestDetails()
-                .getValue().toString() : "";
+    /**
+     * Compares a range of partitions, splitting it in halves until it fits in a batch.
+     * Each batch reuses a single XMLUnit engine for all its partitions.
+     */
+    private static final class PartitionTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
 
-        // Set the edited element's data
-        editedElement.setData(testBlock); // Store the full test block data
+        private final transient List<Partition> partitions; // DOM nodes, never serialized
+        private final int batchSize;
 
-        String controlXPath = comparison.getControlDetails().getXPath();
-        String testXPath = comparison.getTestDetails().getXPath();
+        /**
+         * Constructs a {@code PartitionTask}.
+         *
+         * @param partitions The partitions to compare.
+         * @param batchSize  The number of partitions compared without splitting further.
+         */
+        private PartitionTask(List<Partition> partitions, int batchSize) {
+            this.partitions = partitions;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (partitions.size() > batchSize) {
+                int middle = partitions.size() / 2;
+                invokeAll(new PartitionTask(partitions.subList(0, middle), batchSize),
+                        new PartitionTask(partitions.subList(middle, partitions.size()), batchSize));
+                return;
+            }
 
-        String context = "Class: " + getParentNodeName(comparison.getControlDetails().getTarget()) +
-                ", Property: " + getNodeName(comparison.getControlDetails().getTarget());
+            Partition[] current = new Partition[1];
+            // The sources are DOM nodes, the factory is given only to stop XMLUnit from creating one per comparison
+            DOMDifferenceEngine engine = new DOMDifferenceEngine(DocumentBuilderFactory.newInstance());
+            engine.setNodeMatcher(new OntologyNodeMatcher());
+            engine.addDifferenceListener((comparison, outcome) -> {
+                if (outcome == ComparisonResult.DIFFERENT)
+                    current[0].report(comparison);
+            });
+            for (Partition partition : partitions) {
+                current[0] = partition;
+                engine.compare(new DOMSource(partition.control), new DOMSource(partition.test));
+            }
+        }
+    }
 
-        // Setting the ID for the edited element, which is based on the XPaths
-        editedElement.setId("Control XPath: " + controlXPath + " => Test XPath: " + testXPath + " | Context: " + context);
+    /**
+     * Reports a difference to the sink unless a difference with the same XPaths and type was already reported.
+     *
+     * @param comparison      The comparison detected as different by XMLUnit.
+     * @param controlXPath    The XPath of the control node in the original document.
+     * @param testXPath       The XPath of the test node in the original document.
+     * @param seenDifferences The keys of the differences already reported.
+     * @param sink            The consumer receiving the differences.
+     * @return {@code true} if the difference was reported.
+     */
+    private static boolean report(Comparison comparison, String controlXPath, String testXPath,
+                                  Set<DifferenceKey> seenDifferences, Consumer<EditedElement> sink) {
+        if (!seenDifferences.add(new DifferenceKey(controlXPath, testXPath, comparison.getType())))
+            return false;
+        sink.accept(getEditedElement(comparison, controlXPath, testXPath));
+        return true;
+    }
 
-        // Set the XPath for the edited element
-        editedElement.setXPath(controlXPath);
+    /**
+     * Extracts an {@link EditedElement} representing a detected difference in an XML file.
+     *
+     * @param comparison   The comparison detected as different by XMLUnit.
+     * @param controlXPath The XPath of the control node in the original document.
+     * @param testXPath    The XPath of the test node in the original document.
+     * @return An {@link EditedElement} containing information about the detected difference.
+     */
+    private static EditedElement getEditedElement(Comparison comparison, String controlXPath, String testXPath) {
+        // Determine which block of XML content (test or control) is being edited
+        Object testValue = XMLSubtreePruner.originalValue(comparison, comparison.getTestDetails());
+        String testBlock = testValue != null ? testValue.toString() : "";
 
-        return editedElement;
+        // The identifier is built by the edited element from these parts only when it is needed
+        Node control = comparison.getControlDetails().getTarget();
+        return new EditedElement(controlXPath, testXPath, comparison.getType(), getParentNodeName(control),
+                getNodeName(control), testBlock);
     }
 
     /**
@@ -179,7 +419,7 @@ public class XMLDiffChecker implements IXMLDiffChecker {
             throw new IOException("One or both XML files do not exist.");
 
         try {
-            return diff(new StreamSource(inputXML), new StreamSource(outputXML), inputXMLPath);
+            return diff(new StreamSource(inputXML), new StreamSource(outputXML));
         } catch (Exception e) {
             AppLogger.severe("Error comparing XML files: " + e.getMessage());
             throw new IOException("Error comparing XML files", e);
@@ -199,6 +439,128 @@ public class XMLDiffChecker implements IXMLDiffChecker {
         if (inputOntology == null || outputOntology == null)
             throw new IllegalArgumentException("Input or output ontology cannot be null.");
 
-        return diff(inputOntology.getXmlData(), outputOntology.getXmlData(), null);
+        return diff(new StreamSource(inputOntology.openXmlReader()),
+                new StreamSource(outputOntology.openXmlReader()));
+    }
+
+    /**
+     * Checks whether two ontology objects differ. Identical documents are recognized by a single equality check,
+     * otherwise XMLUnit runs on the whole documents with {@link ComparisonControllers#StopWhenDifferent}: pruning
+     * would cost more than the comparison, which stops at the first difference.
+     *
+     * @param inputOntology  The input ontology data (control ontology).
+     * @param outputOntology The output ontology data (test ontology).
+     * @return {@code true} if the ontologies differ, {@code false} otherwise.
+     * @throws Exception If one of the ontologies is not well-formed or the comparison fails.
+     */
+    @Override
+    public boolean isDifferent(Ontology inputOntology, Ontology outputOntology) throws Exception {
+        if (inputOntology == null || outputOntology == null)
+            throw new IllegalArgumentException("Input or output ontology cannot be null.");
+
+        try {
+            Document controlDocument = XMLSubtreePruner.normalize(
+                    Input.from(new StreamSource(inputOntology.openXmlReader())).build());
+            Document testDocument = XMLSubtreePruner.normalize(
+                    Input.from(new StreamSource(outputOntology.openXmlReader())).build());
+            if (controlDocument.isEqualNode(testDocument))
+                return false;
+
+            boolean[] different = {false};
+            DOMDifferenceEngine engine = new DOMDifferenceEngine();
+            engine.setNodeMatcher(new OntologyNodeMatcher());
+            engine.addDifferenceListener((_, outcome) -> different[0] |= outcome == ComparisonResult.DIFFERENT);
+            engine.setComparisonController(ComparisonControllers.StopWhenDifferent);
+            engine.compare(new DOMSource(controlDocument), new DOMSource(testDocument));
+            return different[0];
+        } catch (XMLUnitException e) {
+            AppLogger.severe("XMLUnit error: " + e.getMessage());
+            throw new Exception("Error during XML comparison", e);
+        }
+    }
+
+    /**
+     * Compares two ontology objects and pushes each difference to the sink as soon as it is found, so callers
+     * can start reporting before the comparison finishes. Each difference is reported once, and the comparison
+     * stops as soon as {@code maxDifferences} differences have been reported.
+     *
+     * @param inputOntology  The input ontology data (control ontology).
+     * @param outputOntology The output ontology data (test ontology).
+     * @param sink           The consumer receiving the {@link EditedElement} objects.
+     * @param maxDifferences The maximum number of differences to report.
+     * @return {@code true} if the comparison completed, {@code false} if one of the ontologies is malformed.
+     * @throws Exception If an error occurs during the comparison (e.g., invalid XML data).
+     */
+    public boolean diffOntologies(Ontology inputOntology, Ontology outputOntology, Consumer<EditedElement> sink,
+                                  int maxDifferences) throws Exception {
+        if (inputOntology == null || outputOntology == null)
+            throw new IllegalArgumentException("Input or output ontology cannot be null.");
+        if (sink == null)
+            throw new IllegalArgumentException("Sink cannot be null.");
+
+        return diff(new StreamSource(inputOntology.openXmlReader()),
+                new StreamSource(outputOntology.openXmlReader()), sink, maxDifferences);
+    }
+
+    /**
+     * Compares two ontology objects like {@link #diffOntologies(Ontology, Ontology)}, comparing their top-level
+     * elements in parallel on the common {@link ForkJoinPool}.
+     *
+     * @param inputOntology  The input ontology data (control ontology).
+     * @param outputOntology The output ontology data (test ontology).
+     * @return A list of {@link EditedElement} objects representing the differences found.
+     * @throws Exception If an error occurs during the comparison (e.g., invalid XML data).
+     */
+    public List<EditedElement> diffOntologiesInParallel(Ontology inputOntology, Ontology outputOntology)
+            throws Exception {
+        return diffOntologiesInParallel(inputOntology, outputOntology, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Compares two ontology objects like {@link #diffOntologies(Ontology, Ontology)}, comparing their top-level
+     * elements (classes, properties, individuals...) in parallel on the given pool. The differences are the same,
+     * in the same order, as the ones of the sequential comparison.
+     *
+     * @param inputOntology  The input ontology data (control ontology).
+     * @param outputOntology The output ontology data (test ontology).
+     * @param pool           The pool the top-level elements are compared on.
+     * @return A list of {@link EditedElement} objects representing the differences found.
+     * @throws Exception If an error occurs during the comparison (e.g., invalid XML data).
+     */
+    public List<EditedElement> diffOntologiesInParallel(Ontology inputOntology, Ontology outputOntology,
+                                                        ForkJoinPool pool) throws Exception {
+        if (inputOntology == null || outputOntology == null)
+            throw new IllegalArgumentException("Input or output ontology cannot be null.");
+        if (pool == null)
+            throw new IllegalArgumentException("Pool cannot be null.");
+
+        return diffInParallel(new StreamSource(inputOntology.openXmlReader()),
+                new StreamSource(outputOntology.openXmlReader()), pool);
+    }
+
+    /**
+     * Compares two already parsed documents and identifies the differences between them. The documents
+     * are left untouched, so they can be shared with the formatter and the error reporter.
+     *
+     * @param inputDocument  The parsed input ontology (control document).
+     * @param outputDocument The parsed output ontology (test document).
+     * @return A list of {@link EditedElement} objects representing the differences found.
+     * @throws Exception If an error occurs during the comparison.
+     */
+    public List<EditedElement> diffDocuments(OntologyDocument inputDocument, OntologyDocument outputDocument)
+            throws Exception {
+        if (inputDocument == null || outputDocument == null)
+            throw new IllegalArgumentException("Input or output document cannot be null.");
+
+        List<EditedElement> differences = new ArrayList<>();
+        try {
+            // Pruning modifies the documents, compare copies of them
+            compare(XMLSubtreePruner.normalize(inputDocument.copyDocument()),
+                    XMLSubtreePruner.normalize(outputDocument.copyDocument()), differences::add, Integer.MAX_VALUE);
+        } catch (XMLUnitException e) {
+            AppLogger.severe("XMLUnit error: " + e.getMessage());
+            throw new Exception("Error during XML comparison", e);
+        }
+        return differences;
     }
-}
\ No newline at end of file
+}
@@ -2,7 +2,6 @@ package com.jataxmltransformer.logic.xml;
 
 import com.jataxmltransformer.logic.data.EditedElement;
 import com.jataxmltransformer.logic.data.ErrorInfo;
-import com.jataxmltransformer.logic.utilities.MyPair;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -28,6 +27,16 @@ public class XMLErrorReporter implements IXMLErrorReporter {
         xPathCustomParser = new XPathCustomParser(xmlString);
     }
 
+    /**
+     * Constructor to initialize the error reporter with an already parsed document, whose element positions
+     * are reused instead of parsing the XML data again.
+     *
+     * @param document The parsed XML data the errors refer to.
+     */
+    public XMLErrorReporter(OntologyDocument document) {
+        xPathCustomParser = new XPathCustomParser(document);
+    }
+
     /**
      * Generates a list of error information based on the provided list of edited elements.
      * The method uses XPath parsing to obtain line numbers for errors and creates
@@ -41,7 +50,8 @@ public class XMLErrorReporter implements IXMLErrorReporter {
      */
     @Override
     public List<ErrorInfo> generateErrorInfo(List<EditedElement> editedElements) {
-        List<ErrorInfo> errorInfos = new ArrayList<>();
+        List<EditedElement> reported = new ArrayList<>();
+        List<String> xPaths = new ArrayList<>();
 
         for (EditedElement editedElement : editedElements) {
             // Ignore /RDF[1] because it's a useless error (tells there are errors in the XML)
@@ -52,16 +62,24 @@ public class XMLErrorReporter implements IXMLErrorReporter {
             if (editedElement.getXPath().equals(editedElement.getTestPath()) && IGNORE_OUTER_NODES)
                 continue;
 
-            MyPair<Integer, Integer> lines = xPathCustomParser.getInfoFromXPath(editedElement.getXPath());
-            if (lines != null && lines.getFirst() != -1 && lines.getSecond() != -1) {
+            reported.add(editedElement);
+            xPaths.add(editedElement.getXPath());
+        }
+
+        // Resolve all the XPaths in one pass over the parsed positions
+        int[] lines = xPathCustomParser.resolveAll(xPaths);
+
+        List<ErrorInfo> errorInfos = new ArrayList<>();
+        for (int i = 0; i < reported.size(); i++) {
+            if (lines[2 * i] != -1 && lines[2 * i + 1] != -1) {
                 ErrorInfo errorInfo = new ErrorInfo(
-                        lines.getFirst(),
-                        lines.getSecond(),
-                        editedElement.getData(),
-                        editedElement.getId());
+                        lines[2 * i],
+                        lines[2 * i + 1],
+                        reported.get(i).getData(),
+                        reported.get(i).getId());
                 errorInfos.add(errorInfo);
             }
         }
         return errorInfos;
     }
-}
\ No newline at end of file
+}
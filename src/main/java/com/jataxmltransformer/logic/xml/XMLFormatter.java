@@ -199,6 +199,22 @@ public class XMLFormatter {
         }
     }
 
+    /**
+     * Formats an already parsed document and returns a properly indented version, without parsing
+     * the XML data again.
+     *
+     * @param document The parsed XML data.
+     * @return The formatted XML string.
+     * @throws Exception If an error occurs during XML processing.
+     */
+    public static String formatDocument(OntologyDocument document) throws Exception {
+        if (document == null)
+            throw new IllegalArgumentException("Document is null.");
+
+        // The formatting removes nodes, work on a copy so the shared document is left untouched
+        return transformDocumentToString(document.copyDocument());
+    }
+
     /**
      * Converts a Document object to a formatted XML string.
      *
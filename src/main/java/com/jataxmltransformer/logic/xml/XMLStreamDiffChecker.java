@@ -0,0 +1,709 @@
+package com.jataxmltransformer.logic.xml;
+
+import com.jataxmltransformer.logic.data.EditedElement;
+import com.jataxmltransformer.logic.data.Ontology;
+import com.jataxmltransformer.logs.AppLogger;
+import org.xmlunit.diff.ComparisonType;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.*;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * The {@code XMLStreamDiffChecker} class compares two XML documents by walking two StAX readers in lockstep.
+ * <p>
+ * Unlike {@link XMLDiffChecker}, no DOM is built for the documents: the children of the root elements are read
+ * one at a time and paired inside a bounded lookahead window, which tolerates siblings reordered by at most
+ * {@code windowSize} positions. Siblings are paired by {@code rdf:about} / {@code rdf:ID} when available, or by
+ * name and text otherwise, like {@link OntologyNodeMatcher} does. Each difference is pushed to the caller as an
+ * {@link EditedElement} as soon as it is found, so memory is bounded by the window size and the depth of the
+ * documents rather than by their size.
+ * </p>
+ * <p>
+ * Whitespace and comments are ignored, as in {@link XMLDiffChecker}. Siblings reordered beyond the window are
+ * reported as removed and added.
+ * </p>
+ */
+public class XMLStreamDiffChecker implements IXMLDiffChecker {
+
+    /**
+     * Default number of sibling elements kept in the lookahead window.
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 64;
+
+    private static final String RDF_NAMESPACE = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+
+    private final int windowSize;
+    private final XMLInputFactory inputFactory;
+
+    /**
+     * Constructs an {@code XMLStreamDiffChecker} with the default lookahead window.
+     */
+    public XMLStreamDiffChecker() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Constructs an {@code XMLStreamDiffChecker} with the given lookahead window.
+     *
+     * @param windowSize The maximum number of test siblings waiting for a control counterpart.
+     * @throws IllegalArgumentException If the window size is not positive.
+     */
+    public XMLStreamDiffChecker(int windowSize) {
+        if (windowSize < 1)
+            throw new IllegalArgumentException("Window size must be positive.");
+        this.windowSize = windowSize;
+
+        inputFactory = XMLInputFactory.newFactory();
+        inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    }
+
+    /**
+     * Compares two XML files and returns the list of differences.
+     *
+     * @param inputXMLPath  The path to the input XML file (control file).
+     * @param outputXMLPath The path to the output XML file (test file).
+     * @return A list of {@link EditedElement} objects, or {@code null} if one of the files is not well-formed.
+     * @throws IOException If one of the files does not exist or cannot be read.
+     */
+    @Override
+    public List<EditedElement> diffXmlFiles(String inputXMLPath, String outputXMLPath) throws IOException {
+        List<EditedElement> differences = new ArrayList<>();
+        try {
+            diffXmlFiles(inputXMLPath, outputXMLPath, differences::add);
+        } catch (XMLStreamException e) {
+            AppLogger.severe("The XML file is not well-formed: " + e.getMessage());
+            return null;
+        }
+        return differences;
+    }
+
+    /**
+     * Compares two ontologies and returns the list of differences.
+     *
+     * @param inputOntology  The input ontology data (control Ontology).
+     * @param outputOntology The output ontology data (test Ontology).
+     * @return A list of {@link EditedElement} objects, or {@code null} if one of the ontologies is not well-formed.
+     */
+    @Override
+    public List<EditedElement> diffOntologies(Ontology inputOntology, Ontology outputOntology) {
+        if (inputOntology == null || outputOntology == null)
+            throw new IllegalArgumentException("Input or output ontology cannot be null.");
+
+        List<EditedElement> differences = new ArrayList<>();
+        try {
+            diff(inputOntology.openXmlReader(), outputOntology.openXmlReader(),
+                    differences::add);
+        } catch (XMLStreamException e) {
+            AppLogger.severe("The XML data is not well-formed: " + e.getMessage());
+            return null;
+        }
+        return differences;
+    }
+
+    /**
+     * Checks whether two ontologies differ. Reading stops at the first difference, so the rest of both
+     * documents is neither read nor checked for well-formedness.
+     *
+     * @param inputOntology  The input ontology data (control Ontology).
+     * @param outputOntology The output ontology data (test Ontology).
+     * @return {@code true} if the ontologies differ, {@code false} otherwise.
+     * @throws XMLStreamException If one of the ontologies is not well-formed before the first difference.
+     */
+    @Override
+    public boolean isDifferent(Ontology inputOntology, Ontology outputOntology) throws XMLStreamException {
+        if (inputOntology == null || outputOntology == null)
+            throw new IllegalArgumentException("Input or output ontology cannot be null.");
+
+        try {
+            diff(inputOntology.openXmlReader(), outputOntology.openXmlReader(),
+                    _ -> {
+                        throw new DifferenceFound();
+                    });
+            return false;
+        } catch (DifferenceFound e) {
+            return true;
+        }
+    }
+
+    /**
+     * Compares two XML files, pushing every difference to the given sink as soon as it is found.
+     *
+     * @param inputXMLPath  The path to the input XML file (control file).
+     * @param outputXMLPath The path to the output XML file (test file).
+     * @param sink          The consumer receiving the differences.
+     * @throws IOException        If one of the files does not exist or cannot be read.
+     * @throws XMLStreamException If one of the files is not well-formed.
+     */
+    public void diffXmlFiles(String inputXMLPath, String outputXMLPath, Consumer<EditedElement> sink)
+            throws IOException, XMLStreamException {
+        File inputXML = new File(inputXMLPath);
+        File outputXML = new File(outputXMLPath);
+
+        if (!inputXML.exists() || !outputXML.exists())
+            throw new IOException("One or both XML files do not exist.");
+
+        try (InputStream control = new BufferedInputStream(new FileInputStream(inputXML));
+             InputStream test = new BufferedInputStream(new FileInputStream(outputXML))) {
+            diff(inputFactory.createXMLStreamReader(control), inputFactory.createXMLStreamReader(test), sink);
+        }
+    }
+
+    /**
+     * Compares two XML documents, pushing every difference to the given sink as soon as it is found.
+     *
+     * @param control The reader of the control document.
+     * @param test    The reader of the test document.
+     * @param sink    The consumer receiving the differences.
+     * @throws XMLStreamException If one of the documents is not well-formed.
+     */
+    public void diff(Reader control, Reader test, Consumer<EditedElement> sink) throws XMLStreamException {
+        diff(inputFactory.createXMLStreamReader(control), inputFactory.createXMLStreamReader(test), sink);
+    }
+
+    /**
+     * Compares the documents of two stream readers, then checks that both documents end correctly.
+     *
+     * @param control The control reader.
+     * @param test    The test reader.
+     * @param sink    The consumer receiving the differences.
+     * @throws XMLStreamException If one of the documents is not well-formed.
+     */
+    private void diff(XMLStreamReader control, XMLStreamReader test, Consumer<EditedElement> sink)
+            throws XMLStreamException {
+        try {
+            if (!nextRoot(control) || !nextRoot(test))
+                throw new XMLStreamException("Missing root element.");
+
+            StreamNode controlRoot = readStart(control, "", "#document", new HashMap<>());
+            StreamNode testRoot = readStart(test, "", "#document", new HashMap<>());
+
+            if (!controlRoot.expandedName().equals(testRoot.expandedName()))
+                emit(sink, controlRoot.xPath, testRoot.xPath, ComparisonType.ELEMENT_TAG_NAME, "#document",
+                        controlRoot.qName, testRoot.qName);
+            compareAttributes(controlRoot, testRoot, sink);
+
+            StreamSiblings controlChildren = new StreamSiblings(control, controlRoot);
+            StreamSiblings testChildren = new StreamSiblings(test, testRoot);
+            diffSiblings(controlChildren, testChildren, windowSize, sink);
+
+            // The child counts of the roots are only known once they are read, so unlike XMLDiffChecker the
+            // difference comes after the ones of the children
+            if (controlChildren.count != testChildren.count)
+                emit(sink, controlRoot.xPath, testRoot.xPath, ComparisonType.CHILD_NODELIST_LENGTH, "#document",
+                        controlRoot.qName, testChildren.count);
+
+            // Consume the rest of both documents so that trailing garbage is reported
+            while (control.hasNext()) control.next();
+            while (test.hasNext()) test.next();
+        } finally {
+            control.close();
+            test.close();
+        }
+    }
+
+    /**
+     * Pairs two sequences of siblings inside a lookahead window and compares the pairs.
+     * Control siblings without a counterpart are reported as removed, test siblings left behind by more than
+     * {@code window} control siblings, or left at the end, are reported as added.
+     *
+     * @param control The control siblings.
+     * @param test    The test siblings.
+     * @param window  The maximum number of test siblings waiting for a counterpart.
+     * @param sink    The consumer receiving the differences.
+     * @throws XMLStreamException If a document is not well-formed.
+     */
+    private void diffSiblings(Siblings control, Siblings test, int window, Consumer<EditedElement> sink)
+            throws XMLStreamException {
+        Deque<Pending> pending = new ArrayDeque<>();
+        Map<String, Deque<Pending>> pendingByKey = new HashMap<>();
+        int waiting = 0;
+        int processed = 0;
+        int read = 0;
+        boolean testExhausted = false;
+
+        for (StreamNode controlNode = control.next(); controlNode != null; controlNode = control.next()) {
+            // Fill the window
+            while (!testExhausted && waiting < window) {
+                StreamNode testNode = test.next();
+                if (testNode == null) {
+                    testExhausted = true;
+                    break;
+                }
+                Pending entry = new Pending(testNode, read++);
+                pending.addLast(entry);
+                pendingByKey.computeIfAbsent(testNode.matchKey(), _ -> new ArrayDeque<>()).addLast(entry);
+                waiting++;
+            }
+
+            Deque<Pending> candidates = pendingByKey.get(controlNode.matchKey());
+            Pending match = candidates == null ? null : candidates.pollFirst();
+            if (match != null) {
+                match.matched = true;
+                waiting--;
+                compareNodes(controlNode, match.node, sink);
+            } else
+                emitRemoved(sink, controlNode);
+            processed++;
+
+            // Evict the test siblings the control side has passed by more than the window
+            while (!pending.isEmpty()) {
+                Pending head = pending.peekFirst();
+                if (head.matched)
+                    pending.pollFirst();
+                else if (processed - head.position > window) {
+                    pending.pollFirst();
+                    pendingByKey.get(head.node.matchKey()).remove(head);
+                    head.matched = true;
+                    waiting--;
+                    emitAdded(sink, head.node);
+                } else
+                    break;
+            }
+        }
+
+        // Every test sibling still waiting has no counterpart
+        for (Pending entry : pending)
+            if (!entry.matched)
+                emitAdded(sink, entry.node);
+        for (StreamNode testNode = test.next(); testNode != null; testNode = test.next())
+            emitAdded(sink, testNode);
+    }
+
+    /**
+     * Compares two paired nodes and their subtrees.
+     *
+     * @param control The control node.
+     * @param test    The test node.
+     * @param sink    The consumer receiving the differences.
+     * @throws XMLStreamException Never thrown for in-memory subtrees, declared by {@link #diffSiblings}.
+     */
+    private void compareNodes(StreamNode control, StreamNode test, Consumer<EditedElement> sink)
+            throws XMLStreamException {
+        if (control.hash == test.hash && control.deepEquals(test))
+            return;
+
+        if (control.isText()) {
+            if (!control.text.equals(test.text))
+                emit(sink, control.xPath, test.xPath, ComparisonType.TEXT_VALUE, control.parentName, "#text",
+                        test.text);
+            return;
+        }
+
+        compareAttributes(control, test, sink);
+
+        if (control.children.size() != test.children.size())
+            emit(sink, control.xPath, test.xPath, ComparisonType.CHILD_NODELIST_LENGTH, control.parentName,
+                    control.qName, test.children.size());
+
+        diffSiblings(new ListSiblings(control.children), new ListSiblings(test.children), Integer.MAX_VALUE, sink);
+    }
+
+    /**
+     * Compares the attributes of two paired elements.
+     *
+     * @param control The control element.
+     * @param test    The test element.
+     * @param sink    The consumer receiving the differences.
+     */
+    private static void compareAttributes(StreamNode control, StreamNode test, Consumer<EditedElement> sink) {
+        for (Map.Entry<String, Attribute> entry : control.attributes.entrySet()) {
+            Attribute controlAttribute = entry.getValue();
+            Attribute testAttribute = test.attributes.get(entry.getKey());
+            String controlXPath = control.xPath + "/@" + controlAttribute.localName();
+            if (testAttribute == null)
+                emit(sink, controlXPath, null, ComparisonType.ATTR_NAME_LOOKUP, "Unknown", controlAttribute.qName(), null);
+            else if (!controlAttribute.value().equals(testAttribute.value()))
+                emit(sink, controlXPath, test.xPath + "/@" + testAttribute.localName(), ComparisonType.ATTR_VALUE,
+                        "Unknown", controlAttribute.qName(), testAttribute.value());
+        }
+        for (Map.Entry<String, Attribute> entry : test.attributes.entrySet())
+            if (!control.attributes.containsKey(entry.getKey()))
+                emit(sink, null, test.xPath + "/@" + entry.getValue().localName(), ComparisonType.ATTR_NAME_LOOKUP,
+                        "Unknown", "Unknown", entry.getValue().value());
+    }
+
+    /**
+     * Reports a control node without a counterpart in the test document.
+     *
+     * @param sink The consumer receiving the differences.
+     * @param node The control node.
+     */
+    private static void emitRemoved(Consumer<EditedElement> sink, StreamNode node) {
+        emit(sink, node.xPath, null, ComparisonType.CHILD_LOOKUP, node.parentName, node.isText() ? "#text" : node.qName,
+                null);
+    }
+
+    /**
+     * Reports a test node without a counterpart in the control document.
+     *
+     * @param sink The consumer receiving the differences.
+     * @param node The test node.
+     */
+    private static void emitAdded(Consumer<EditedElement> sink, StreamNode node) {
+        emit(sink, null, node.xPath, ComparisonType.CHILD_LOOKUP, "Unknown", "Unknown",
+                node.isText() ? node.text : node.expandedName());
+    }
+
+    /**
+     * Builds an {@link EditedElement} in the same format used by {@link XMLDiffChecker} and pushes it to the sink.
+     *
+     * @param sink         The consumer receiving the differences.
+     * @param controlXPath The XPath in the control document, or {@code null}.
+     * @param testXPath    The XPath in the test document, or {@code null}.
+     * @param type         The kind of comparison matching the one XMLUnit would report.
+     * @param parentName   The name of the parent of the control node.
+     * @param nodeName     The name of the control node.
+     * @param testValue    The value found in the test document, or {@code null}.
+     */
+    private static void emit(Consumer<EditedElement> sink, String controlXPath, String testXPath, ComparisonType type,
+                             String parentName, String nodeName, Object testValue) {
+        sink.accept(new EditedElement(controlXPath, testXPath, type, parentName, nodeName,
+                testValue != null ? testValue.toString() : ""));
+    }
+
+    /**
+     * Advances a reader to the start of the root element.
+     *
+     * @param reader The reader.
+     * @return {@code true} if a root element was found.
+     * @throws XMLStreamException If the document is not well-formed.
+     */
+    private static boolean nextRoot(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext())
+            if (reader.next() == XMLStreamConstants.START_ELEMENT)
+                return true;
+        return false;
+    }
+
+    /**
+     * Creates a node from the start element the reader is positioned on, without reading its children.
+     *
+     * @param reader        The reader, positioned on a start element.
+     * @param parentXPath   The XPath of the parent element.
+     * @param parentName    The qualified name of the parent element.
+     * @param siblingCounts The number of siblings already seen for each name, updated by this method.
+     * @return The node.
+     */
+    private static StreamNode readStart(XMLStreamReader reader, String parentXPath, String parentName,
+                                        Map<String, Integer> siblingCounts) {
+        String namespace = reader.getNamespaceURI();
+        if (namespace != null && namespace.isEmpty())
+            namespace = null;
+        String localName = reader.getLocalName();
+        String prefix = reader.getPrefix();
+        String qName = prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+
+        String expandedName = expandedName(namespace, localName);
+        int index = siblingCounts.merge(expandedName, 1, Integer::sum);
+        String xPath = parentXPath + "/" + localName + "[" + index + "]";
+
+        Map<String, Attribute> attributes = new LinkedHashMap<>();
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String attributeNamespace = reader.getAttributeNamespace(i);
+            if (attributeNamespace != null && attributeNamespace.isEmpty())
+                attributeNamespace = null;
+            String attributeName = reader.getAttributeLocalName(i);
+            String attributePrefix = reader.getAttributePrefix(i);
+            String attributeQName = attributePrefix == null || attributePrefix.isEmpty()
+                    ? attributeName : attributePrefix + ":" + attributeName;
+            attributes.put(expandedName(attributeNamespace, attributeName),
+                    new Attribute(attributeName, attributeQName, reader.getAttributeValue(i)));
+        }
+
+        return new StreamNode(namespace, localName, qName, null, attributes, new ArrayList<>(), xPath, parentName);
+    }
+
+    /**
+     * Reads the children of an element the reader has just started, up to its end element.
+     *
+     * @param reader  The reader, positioned on the start element of the node.
+     * @param element The element receiving the children.
+     * @return The element, with its hash computed.
+     * @throws XMLStreamException If the document is not well-formed.
+     */
+    private static StreamNode readChildren(XMLStreamReader reader, StreamNode element) throws XMLStreamException {
+        Map<String, Integer> siblingCounts = new HashMap<>();
+        StringBuilder text = new StringBuilder();
+        int textCount = 0;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT || event == XMLStreamConstants.END_ELEMENT) {
+                String normalized = XMLSubtreePruner.normalizeWhitespace(text.toString());
+                text.setLength(0);
+                if (!normalized.isEmpty())
+                    element.children.add(StreamNode.text(normalized,
+                            element.xPath + "/text()[" + ++textCount + "]", element.qName));
+                if (event == XMLStreamConstants.END_ELEMENT)
+                    break;
+                element.children.add(readChildren(reader,
+                        readStart(reader, element.xPath, element.qName, siblingCounts)));
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                    || event == XMLStreamConstants.SPACE)
+                text.append(reader.getText());
+        }
+
+        element.computeHash();
+        return element;
+    }
+
+    /**
+     * Returns the name used to count sibling elements in XPaths.
+     *
+     * @param namespace The namespace URI, or {@code null}.
+     * @param localName The local name.
+     * @return The expanded name.
+     */
+    private static String expandedName(String namespace, String localName) {
+        return namespace == null ? localName : "{" + namespace + "}" + localName;
+    }
+
+    /**
+     * A sequence of sibling nodes, read on demand.
+     */
+    private interface Siblings {
+        /**
+         * Returns the next sibling.
+         *
+         * @return The next sibling, or {@code null} if there are no more siblings.
+         * @throws XMLStreamException If the document is not well-formed.
+         */
+        StreamNode next() throws XMLStreamException;
+    }
+
+    /**
+     * The children of an in-memory node.
+     */
+    private static final class ListSiblings implements Siblings {
+        private final Iterator<StreamNode> iterator;
+
+        private ListSiblings(List<StreamNode> nodes) {
+            this.iterator = nodes.iterator();
+        }
+
+        @Override
+        public StreamNode next() {
+            return iterator.hasNext() ? iterator.next() : null;
+        }
+    }
+
+    /**
+     * The children of the root element, materialized one subtree at a time from the reader.
+     */
+    private static final class StreamSiblings implements Siblings {
+        private final XMLStreamReader reader;
+        private final StreamNode root;
+        private final Map<String, Integer> siblingCounts = new HashMap<>();
+        private final StringBuilder text = new StringBuilder();
+        private int textCount = 0;
+        private int count = 0; // The number of children returned
+        private boolean ended = false;
+        private StreamNode pushBack;
+
+        private StreamSiblings(XMLStreamReader reader, StreamNode root) {
+            this.reader = reader;
+            this.root = root;
+        }
+
+        @Override
+        public StreamNode next() throws XMLStreamException {
+            StreamNode node = read();
+            if (node != null)
+                count++;
+            return node;
+        }
+
+        /**
+         * Reads the next child of the root.
+         *
+         * @return The child, or {@code null} if the root has ended.
+         * @throws XMLStreamException If the document is not well-formed.
+         */
+        private StreamNode read() throws XMLStreamException {
+            if (pushBack != null) {
+                StreamNode element = pushBack;
+                pushBack = null;
+                return element;
+            }
+
+            while (!ended && reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT || event == XMLStreamConstants.END_ELEMENT) {
+                    ended = event == XMLStreamConstants.END_ELEMENT;
+                    String normalized = XMLSubtreePruner.normalizeWhitespace(text.toString());
+                    text.setLength(0);
+
+                    StreamNode element = ended ? null : readChildren(reader,
+                            readStart(reader, root.xPath, root.qName, siblingCounts));
+                    if (normalized.isEmpty())
+                        return element;
+
+                    // The text preceding the element is returned first, the element is returned on the next call
+                    StreamNode textNode = StreamNode.text(normalized, root.xPath + "/text()[" + ++textCount + "]",
+                            root.qName);
+                    if (element != null)
+                        pushBack = element;
+                    return textNode;
+                } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                        || event == XMLStreamConstants.SPACE)
+                    text.append(reader.getText());
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A test sibling waiting in the lookahead window.
+     */
+    private static final class Pending {
+        private final StreamNode node;
+        private final int position;
+        private boolean matched;
+
+        private Pending(StreamNode node, int position) {
+            this.node = node;
+            this.position = position;
+        }
+    }
+
+    /**
+     * Thrown by the sink of {@link #isDifferent(Ontology, Ontology)} to stop reading at the first difference.
+     */
+    private static final class DifferenceFound extends RuntimeException {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private DifferenceFound() {
+            super(null, null, false, false); // Control flow only, no stack trace
+        }
+    }
+
+    /**
+     * An attribute of a streamed element.
+     *
+     * @param localName The local name.
+     * @param qName     The qualified name.
+     * @param value     The value.
+     */
+    private record Attribute(String localName, String qName, String value) {
+    }
+
+    /**
+     * An element or a text node read from a stream, with its subtree and its positional XPath.
+     */
+    private static final class StreamNode {
+        private final String namespace;
+        private final String localName;
+        private final String qName;
+        private final String text;
+        private final Map<String, Attribute> attributes;
+        private final List<StreamNode> children;
+        private final String xPath;
+        private final String parentName;
+        private long hash;
+
+        private StreamNode(String namespace, String localName, String qName, String text,
+                           Map<String, Attribute> attributes, List<StreamNode> children, String xPath,
+                           String parentName) {
+            this.namespace = namespace;
+            this.localName = localName;
+            this.qName = qName;
+            this.text = text;
+            this.attributes = attributes;
+            this.children = children;
+            this.xPath = xPath;
+            this.parentName = parentName;
+        }
+
+        /**
+         * Creates a text node.
+         *
+         * @param text       The normalized text.
+         * @param xPath      The XPath of the text node.
+         * @param parentName The qualified name of the parent element.
+         * @return The text node.
+         */
+        private static StreamNode text(String text, String xPath, String parentName) {
+            StreamNode node = new StreamNode(null, null, null, text, Map.of(), List.of(), xPath, parentName);
+            node.hash = text.hashCode();
+            return node;
+        }
+
+        private boolean isText() {
+            return text != null;
+        }
+
+        private String expandedName() {
+            return XMLStreamDiffChecker.expandedName(namespace, localName);
+        }
+
+        /**
+         * Returns the key used to pair siblings: the RDF identifier if there is one, otherwise the name and the
+         * text of the element. Text nodes are paired in order.
+         *
+         * @return The matching key.
+         */
+        private String matchKey() {
+            if (isText())
+                return "#text";
+
+            Attribute identifier = attributes.get(XMLStreamDiffChecker.expandedName(RDF_NAMESPACE, "about"));
+            if (identifier == null)
+                identifier = attributes.get(XMLStreamDiffChecker.expandedName(RDF_NAMESPACE, "ID"));
+            if (identifier != null)
+                return expandedName() + " " + identifier.localName() + "=" + identifier.value();
+
+            StringBuilder key = new StringBuilder(expandedName()).append('\u0000');
+            for (StreamNode child : children)
+                if (child.isText())
+                    key.append(child.text);
+            return key.toString();
+        }
+
+        /**
+         * Computes the hash of the subtree from the hashes of the children.
+         */
+        private void computeHash() {
+            long value = Objects.hash(namespace, localName, qName);
+            long attributesHash = 0;
+            for (Map.Entry<String, Attribute> entry : attributes.entrySet())
+                attributesHash += entry.getKey().hashCode() * 31L + entry.getValue().value().hashCode();
+            value = value * 31 + attributesHash;
+            for (StreamNode child : children)
+                value = value * 31 + child.hash;
+            hash = value;
+        }
+
+        /**
+         * Compares two subtrees ignoring their positions.
+         *
+         * @param other The other subtree.
+         * @return {@code true} if the subtrees are identical.
+         */
+        private boolean deepEquals(StreamNode other) {
+            if (isText() || other.isText())
+                return Objects.equals(text, other.text);
+            if (!Objects.equals(namespace, other.namespace) || !localName.equals(other.localName)
+                    || !qName.equals(other.qName) || children.size() != other.children.size()
+                    || attributes.size() != other.attributes.size())
+                return false;
+            for (Map.Entry<String, Attribute> entry : attributes.entrySet()) {
+                Attribute otherAttribute = other.attributes.get(entry.getKey());
+                if (otherAttribute == null || !entry.getValue().value().equals(otherAttribute.value()))
+                    return false;
+            }
+            for (int i = 0; i < children.size(); i++)
+                if (!children.get(i).deepEquals(other.children.get(i)))
+                    return false;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,448 @@
+package com.jataxmltransformer.logic.xml;
+
+import org.w3c.dom.*;
+import org.xmlunit.diff.Comparison;
+import org.xmlunit.diff.ComparisonType;
+import org.xmlunit.util.Convert;
+
+import javax.xml.transform.Source;
+import java.util.*;
+
+/**
+ * The {@code XMLSubtreePruner} class removes identical subtrees from two XML documents before they are
+ * compared by XMLUnit.
+ * <p>
+ * Every element is hashed bottom-up from its name, namespace, attributes, text and the hashes of its children.
+ * Starting from the roots, the child elements of two differing elements are paired by hash: identical pairs are
+ * removed from both documents, while the remaining children are descended into only when {@link OntologyNodeMatcher}
+ * pairs them the same way, by RDF identifier or by unique name and text.
+ * XMLUnit then only has to compare the parts of the documents that actually changed.
+ * </p>
+ * <p>
+ * Removing siblings shifts the positional XPaths and the child counts reported by XMLUnit, so the surviving
+ * nodes remember their original position. {@link #originalXPath(Comparison.Detail)} and
+ * {@link #originalValue(Comparison, Comparison.Detail)} translate the XMLUnit results back to the unpruned
+ * documents.
+ * </p>
+ */
+public class XMLSubtreePruner {
+
+    private static final String ORIGINAL_POSITION = "XMLSubtreePruner.originalPosition";
+    private static final String ORIGINAL_CHILD_COUNT = "XMLSubtreePruner.originalChildCount";
+
+    /**
+     * Parses the given source and applies the normalizations {@code XMLDiffChecker} needs in a single pass:
+     * comments are removed, whitespace in text is trimmed and collapsed, and whitespace-only text is dropped.
+     * <p>
+     * This matches what XMLUnit does with {@code ignoreWhitespace}, {@code normalizeWhitespace},
+     * {@code ignoreComments} and {@code ignoreElementContentWhitespace}, without cloning the document four times.
+     * </p>
+     *
+     * @param source The XML source to parse.
+     * @return The normalized document.
+     */
+    public static Document normalize(Source source) {
+        return normalize(Convert.toDocument(source));
+    }
+
+    /**
+     * Applies the same normalizations as {@link #normalize(Source)} to an already parsed document, in place.
+     *
+     * @param document The document to normalize.
+     * @return The normalized document.
+     */
+    public static Document normalize(Document document) {
+        normalizeChildren(document);
+        return document;
+    }
+
+    /**
+     * Removes comments and empty text from the children of a node, normalizing the whitespace of the remaining text.
+     *
+     * @param node The node whose children are normalized.
+     */
+    private static void normalizeChildren(Node node) {
+        Node child = node.getFirstChild();
+        while (child != null) {
+            Node next = child.getNextSibling();
+            switch (child.getNodeType()) {
+                case Node.COMMENT_NODE -> node.removeChild(child);
+                case Node.TEXT_NODE, Node.CDATA_SECTION_NODE -> {
+                    String text = normalizeWhitespace(child.getNodeValue());
+                    if (text.isEmpty())
+                        node.removeChild(child);
+                    else
+                        child.setNodeValue(text);
+                }
+                case Node.ELEMENT_NODE -> normalizeChildren(child);
+                default -> {
+                }
+            }
+            child = next;
+        }
+    }
+
+    /**
+     * Collapses every run of whitespace into a single space and trims the result.
+     *
+     * @param text The text to normalize.
+     * @return The normalized text.
+     */
+    static String normalizeWhitespace(String text) {
+        StringBuilder builder = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c))
+                pendingSpace = !builder.isEmpty();
+            else {
+                if (pendingSpace)
+                    builder.append(' ');
+                builder.append(c);
+                pendingSpace = false;
+            }
+        }
+        return builder.length() == text.length() ? text : builder.toString();
+    }
+
+    /**
+     * Removes every pair of identical subtrees from the two documents.
+     *
+     * @param control The control document, modified in place.
+     * @param test    The test document, modified in place.
+     * @return {@code true} if the documents differ, {@code false} if they are identical and nothing was pruned.
+     */
+    public static boolean prune(Document control, Document test) {
+        Map<Node, Long> hashes = new IdentityHashMap<>();
+        long controlHash = hash(control, hashes);
+        long testHash = hash(test, hashes);
+
+        if (controlHash == testHash && control.isEqualNode(test))
+            return false;
+
+        Element controlRoot = control.getDocumentElement();
+        Element testRoot = test.getDocumentElement();
+        if (controlRoot != null && testRoot != null)
+            pruneChildren(controlRoot, testRoot, hashes);
+        return true;
+    }
+
+    /**
+     * Translates the XPath of a comparison detail computed on a pruned document back to the original document.
+     *
+     * @param detail The control or test detail of an XMLUnit comparison.
+     * @return The XPath of the target node in the unpruned document.
+     */
+    public static String originalXPath(Comparison.Detail detail) {
+        return originalXPath(detail.getXPath(), detail.getTarget());
+    }
+
+    /**
+     * Translates an XPath computed on a pruned document back to the original document.
+     *
+     * @param xPath  The XPath of the target node in the pruned document.
+     * @param target The node the XPath refers to.
+     * @return The XPath of the target node in the unpruned document.
+     */
+    static String originalXPath(String xPath, Node target) {
+        if (xPath == null || target == null)
+            return xPath;
+
+        // Collect the elements the XPath steps refer to, from the root down
+        Node owner = switch (target.getNodeType()) {
+            case Node.ATTRIBUTE_NODE -> ((Attr) target).getOwnerElement();
+            case Node.ELEMENT_NODE -> target;
+            default -> target.getParentNode();
+        };
+        Deque<Node> chain = new ArrayDeque<>();
+        for (Node node = owner; node instanceof Element; node = node.getParentNode())
+            chain.push(node);
+
+        String[] steps = xPath.split("/");
+        if (steps.length <= chain.size())
+            return xPath; // Unexpected XPath shape, keep it as it is
+
+        boolean changed = false;
+        int step = 1; // steps[0] is the empty string before the leading slash
+        for (Node element : chain) {
+            if (element.getUserData(ORIGINAL_POSITION) instanceof Position position) {
+                int bracket = steps[step].lastIndexOf('[');
+                if (bracket > 0) {
+                    steps[step] = steps[step].substring(0, bracket) + "[" + position.xPathIndex() + "]";
+                    changed = true;
+                }
+            }
+            step++;
+        }
+        return changed ? String.join("/", steps) : xPath;
+    }
+
+    /**
+     * Translates the value of a comparison detail computed on a pruned document back to the original document.
+     * Only child counts and child positions are affected by pruning, every other value is returned unchanged.
+     *
+     * @param comparison The XMLUnit comparison.
+     * @param detail     The control or test detail of the comparison.
+     * @return The value of the detail in the unpruned document.
+     */
+    public static Object originalValue(Comparison comparison, Comparison.Detail detail) {
+        Node target = detail.getTarget();
+        if (target != null) {
+            if (comparison.getType() == ComparisonType.CHILD_NODELIST_LENGTH
+                    && target.getUserData(ORIGINAL_CHILD_COUNT) instanceof Integer count)
+                return count;
+            if (comparison.getType() == ComparisonType.CHILD_NODELIST_SEQUENCE
+                    && target.getUserData(ORIGINAL_POSITION) instanceof Position position)
+                return position.childIndex();
+        }
+        return detail.getValue();
+    }
+
+    /**
+     * Copies an element of a pruned document into a new document, below shallow copies of its ancestors.
+     * The copy keeps the metadata used by {@link #originalXPath} and {@link #originalValue}, and shares no state
+     * with the source document, so it can be compared on another thread.
+     *
+     * @param element The element to copy.
+     * @return The copy of the element.
+     */
+    static Element isolate(Element element) {
+        Document document = element.getOwnerDocument().getImplementation().createDocument(null, null, null);
+
+        Deque<Node> ancestors = new ArrayDeque<>();
+        for (Node node = element.getParentNode(); node instanceof Element; node = node.getParentNode())
+            ancestors.push(node);
+
+        Node parent = document;
+        for (Node ancestor : ancestors)
+            parent = parent.appendChild(copy(document, ancestor, false));
+        return (Element) parent.appendChild(copy(document, element, true));
+    }
+
+    /**
+     * Imports a node into a document together with its pruning metadata.
+     *
+     * @param document The document receiving the copy.
+     * @param node     The node to copy.
+     * @param deep     Whether the children of the node are copied as well.
+     * @return The copy of the node.
+     */
+    private static Node copy(Document document, Node node, boolean deep) {
+        Node copy = document.importNode(node, false);
+        for (String key : new String[]{ORIGINAL_POSITION, ORIGINAL_CHILD_COUNT}) {
+            Object value = node.getUserData(key);
+            if (value != null)
+                copy.setUserData(key, value, null);
+        }
+        if (deep)
+            for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling())
+                copy.appendChild(copy(document, child, true));
+        return copy;
+    }
+
+    /**
+     * Pairs the child elements of two elements by hash, removes the identical pairs and descends into the
+     * remaining pairs that XMLUnit will match.
+     *
+     * @param control The control element.
+     * @param test    The test element.
+     * @param hashes  The subtree hashes of every element of both documents.
+     */
+    private static void pruneChildren(Element control, Element test, Map<Node, Long> hashes) {
+        List<Element> controlChildren = childElements(control);
+        List<Element> testChildren = childElements(test);
+
+        Map<Long, Deque<Element>> testByHash = new HashMap<>();
+        for (Element child : testChildren)
+            testByHash.computeIfAbsent(hashes.get(child), _ -> new ArrayDeque<>()).add(child);
+
+        // Pair identical subtrees, the equality check guards against hash collisions
+        Set<Node> identical = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Element child : controlChildren) {
+            Deque<Element> candidates = testByHash.get(hashes.get(child));
+            if (candidates == null)
+                continue;
+            for (Iterator<Element> iterator = candidates.iterator(); iterator.hasNext(); ) {
+                Element candidate = iterator.next();
+                if (child.isEqualNode(candidate)) {
+                    iterator.remove();
+                    identical.add(child);
+                    identical.add(candidate);
+                    break;
+                }
+            }
+        }
+
+        List<Element> controlRest = removeIdentical(control, identical);
+        List<Element> testRest = removeIdentical(test, identical);
+
+        // Descend into the unmatched children XMLUnit pairs as well: the elements with the same RDF identifier, in
+        // document order like OntologyNodeMatcher, and the other elements only if their name and text are unique on
+        // both sides, since the fallback matcher may pair duplicates in another order
+        Map<String, Deque<Element>> testByKey = new HashMap<>();
+        for (Element child : testRest)
+            testByKey.computeIfAbsent(matchingKey(child), _ -> new ArrayDeque<>()).add(child);
+        Map<String, Integer> controlKeyCounts = new HashMap<>();
+        for (Element child : controlRest)
+            controlKeyCounts.merge(matchingKey(child), 1, Integer::sum);
+        for (Element child : controlRest) {
+            String key = matchingKey(child);
+            Deque<Element> candidates = testByKey.get(key);
+            if (candidates == null || candidates.isEmpty())
+                continue;
+            if (OntologyNodeMatcher.getKey(child) != null)
+                pruneChildren(child, candidates.poll(), hashes);
+            else if (candidates.size() == 1 && controlKeyCounts.get(key) == 1)
+                pruneChildren(child, candidates.poll(), hashes);
+        }
+    }
+
+    /**
+     * Removes the children of an element that belong to an identical pair, recording the original position
+     * of the surviving children and the original child count of the element.
+     *
+     * @param parent    The element whose children are pruned.
+     * @param identical The nodes belonging to an identical pair.
+     * @return The surviving child elements.
+     */
+    private static List<Element> removeIdentical(Element parent, Set<Node> identical) {
+        NodeList children = parent.getChildNodes();
+        List<Node> toRemove = new ArrayList<>();
+        List<Element> survivors = new ArrayList<>();
+        Map<String, Integer> nameCounts = new HashMap<>();
+
+        for (int i = 0; i < children.getLength(); i++) {
+            Node child = children.item(i);
+            if (!(child instanceof Element element))
+                continue;
+            int xPathIndex = nameCounts.merge(expandedName(element), 1, Integer::sum);
+            if (identical.contains(element))
+                toRemove.add(element);
+            else {
+                element.setUserData(ORIGINAL_POSITION, new Position(xPathIndex, i), null);
+                survivors.add(element);
+            }
+        }
+
+        if (!toRemove.isEmpty()) {
+            parent.setUserData(ORIGINAL_CHILD_COUNT, children.getLength(), null);
+            for (Node node : toRemove)
+                parent.removeChild(node);
+        }
+        return survivors;
+    }
+
+    /**
+     * Returns the child elements of an element.
+     *
+     * @param parent The parent element.
+     * @return The list of child elements in document order.
+     */
+    private static List<Element> childElements(Element parent) {
+        List<Element> elements = new ArrayList<>();
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling())
+            if (child instanceof Element element)
+                elements.add(element);
+        return elements;
+    }
+
+    /**
+     * Returns the key {@link OntologyNodeMatcher} pairs an element by: its RDF identifier, or else its name and
+     * text, as compared by {@code ElementSelectors.byNameAndText}.
+     *
+     * @param element The element.
+     * @return The matching key of the element.
+     */
+    private static String matchingKey(Element element) {
+        String key = OntologyNodeMatcher.getKey(element);
+        if (key != null)
+            return key;
+
+        StringBuilder text = new StringBuilder();
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling())
+            if (child.getNodeType() == Node.TEXT_NODE || child.getNodeType() == Node.CDATA_SECTION_NODE)
+                text.append(child.getNodeValue());
+        return expandedName(element) + "\u0000" + text;
+    }
+
+    /**
+     * Returns the name XMLUnit uses to index sibling elements in its XPaths.
+     *
+     * @param element The element.
+     * @return The namespace URI and the local name of the element.
+     */
+    private static String expandedName(Element element) {
+        String localName = element.getLocalName() != null ? element.getLocalName() : element.getNodeName();
+        return element.getNamespaceURI() == null ? localName : "{" + element.getNamespaceURI() + "}" + localName;
+    }
+
+    /**
+     * Computes the hash of a subtree, storing the hash of every element encountered.
+     * Attributes are combined in an order-independent way, children in document order.
+     *
+     * @param node   The root of the subtree.
+     * @param hashes The map receiving the element hashes.
+     * @return The hash of the subtree.
+     */
+    private static long hash(Node node, Map<Node, Long> hashes) {
+        long hash = mix(node.getNodeType());
+        hash = combine(hash, node.getNamespaceURI());
+        hash = combine(hash, node.getLocalName() != null ? node.getLocalName() : node.getNodeName());
+        hash = combine(hash, node.getPrefix());
+        hash = combine(hash, node.getNodeValue());
+
+        if (node instanceof Document document) {
+            hash = combine(hash, document.getXmlVersion());
+            hash = combine(hash, document.getXmlEncoding());
+            hash = mix(hash + (document.getXmlStandalone() ? 1 : 0));
+        }
+
+        NamedNodeMap attributes = node.getAttributes();
+        if (attributes != null) {
+            long attributesHash = 0;
+            for (int i = 0; i < attributes.getLength(); i++)
+                attributesHash += hash(attributes.item(i), hashes);
+            hash = mix(hash ^ attributesHash);
+        }
+
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling())
+            if (child.getNodeType() != Node.ATTRIBUTE_NODE)
+                hash = mix(hash * 31 + hash(child, hashes));
+
+        if (node instanceof Element)
+            hashes.put(node, hash);
+        return hash;
+    }
+
+    /**
+     * Combines a hash with the hash of a string.
+     *
+     * @param hash  The current hash.
+     * @param value The string to combine, may be null.
+     * @return The combined hash.
+     */
+    private static long combine(long hash, String value) {
+        return mix(hash * 31 + (value == null ? 0 : value.hashCode()));
+    }
+
+    /**
+     * Spreads the bits of a 64-bit value (SplitMix64 finalizer).
+     *
+     * @param value The value to mix.
+     * @return The mixed value.
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * Original position of an element that survived pruning.
+     *
+     * @param xPathIndex The index among the siblings with the same name, as used in XPaths.
+     * @param childIndex The index among all the child nodes of the parent.
+     */
+    private record Position(int xPathIndex, int childIndex) {
+    }
+}
@@ -2,22 +2,18 @@ package com.jataxmltransformer.logic.xml;
 
 import com.jataxmltransformer.logic.utilities.MyPair;
 import com.jataxmltransformer.logs.AppLogger;
-import org.xml.sax.Attributes;
-import org.xml.sax.InputSource;
-import org.xml.sax.Locator;
-import org.xml.sax.helpers.DefaultHandler;
 
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
-import java.io.StringReader;
-import java.util.*;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Parses an XML string and provides a method to retrieve the start and end line numbers for a given XPath.
  */
 public class XPathCustomParser implements IXPathCustomParser {
 
-    private final Map<String, LineData> lines;
+    private final XPathIndex index;
 
     /**
      * Constructs an XPathCustomParser with the provided XML data.
@@ -25,68 +21,77 @@ public class XPathCustomParser implements IXPathCustomParser {
      * @param xmlData The XML data as a string.
      */
     public XPathCustomParser(String xmlData) {
-        this.lines = parse(xmlData);
+        this.index = parse(xmlData);
     }
 
     /**
-     * Parses the given XML data using SAX parser and returns a map of XPath to LineData.
+     * Constructs an XPathCustomParser from an already parsed document, reusing the positions it recorded.
      *
-     * @param xmlData The XML data as a string.
-     * @return A map where the key is the XPath, and the value is the corresponding LineData.
+     * @param document The parsed XML data.
      */
-    private static Map<String, LineData> parse(String xmlData) {
-        try {
-            SAXParserFactory factory = SAXParserFactory.newInstance();
-            SAXParser saxParser = factory.newSAXParser();
-            SAXHandler handler = new SAXHandler();
-            saxParser.parse(new InputSource(new StringReader(xmlData)), handler);
-            return handler.getElements();
-        } catch (Exception e) {
-            AppLogger.severe(e.getMessage());
-            return Collections.emptyMap();
-        }
+    public XPathCustomParser(OntologyDocument document) {
+        this.index = document.getXPathIndex();
     }
 
     /**
-     * Extracts the valid part of an XPath-like string up to the first invalid segment.
-     * A valid segment follows the pattern "something[n]" where "something" is a word and "n" is a number.
+     * Indexes the positions of the elements of the given XML data, borrowing the index from the
+     * {@link XPathIndexCache} when the same data was already indexed.
      *
-     * @param xPath The XPath-like input string.
-     * @return The cut path with valid segments only.
+     * @param xmlData The XML data as a string.
+     * @return The index of the elements, or {@code null} if the XML data cannot be parsed.
      */
-    private static String getCutPath(String xPath) {
-        String regex = "^[a-zA-Z]+\\[\\d+]$";
-        String[] parts = xPath.split("/+");
-
-        StringBuilder stringBuilder = new StringBuilder();
-
-        for (String part : parts) {
-            if (part.isEmpty()) continue; // Skip empty parts
-            if (part.matches(regex)) {
-                stringBuilder.append("/"); // Maintain the XPath-like structure
-                stringBuilder.append(part);
-            } else
-                break; // Stop at the first invalid part
+    private static XPathIndex parse(String xmlData) {
+        try {
+            return XPathIndexCache.getInstance().getOrParse(xmlData);
+        } catch (Exception e) {
+            AppLogger.severe(e.getMessage());
+            return null;
         }
-
-        return stringBuilder.toString();
     }
 
     /**
      * Retrieves the start and end line numbers for the given XPath.
+     * <p>
+     * The XPath is cut at the first segment that does not follow the pattern "something[n]", where "something" is
+     * a word and "n" is a number, so text and attribute steps resolve to their element. The lookup walks the index
+     * directly on the characters of the XPath: only the returned pair is allocated.
+     * </p>
      *
      * @param xPath The XPath to search for.
      * @return A MyPair object containing the start and end line numbers, or (-1, -1) if not found.
      */
     @Override
     public MyPair<Integer, Integer> getInfoFromXPath(String xPath) {
-        // Getting the xPath cut if there are any ignorable xPath levels
-        final String key = getCutPath(xPath);
-        LineData lineData = key.isEmpty() ? null : lines.get(key);
+        int node = index == null ? XPathIndex.NOT_FOUND : index.findEnclosing(xPath);
 
-        if (lineData == null)
+        if (node == XPathIndex.NOT_FOUND)
             return new MyPair<>(-1, -1); // Default value when XPath is not found
-        return new MyPair<>(lineData.beginLineNumber, lineData.endLineNumber);
+        return new MyPair<>(index.beginLine(node), index.endLine(node));
+    }
+
+    /**
+     * Retrieves the start and end line numbers for many XPaths at once, cutting each of them like
+     * {@link #getInfoFromXPath(String)}. The XPaths are sorted and resolved in one walk of the index, in which
+     * the steps shared with the previous XPath are not walked again.
+     *
+     * @param xPaths The XPaths to search for.
+     * @return The start and end line numbers of each XPath, at index {@code 2 * i} and {@code 2 * i + 1}.
+     */
+    @Override
+    public int[] resolveAll(Collection<String> xPaths) {
+        String[] keys = new String[xPaths.size()];
+        int count = 0;
+        for (String xPath : xPaths)
+            keys[count++] = xPath == null ? "" : xPath; // An empty XPath is never found
+
+        int[] nodes = index == null ? null : index.findAllEnclosing(keys);
+        int[] lines = new int[2 * keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            boolean found = nodes != null && nodes[i] != XPathIndex.NOT_FOUND;
+            lines[2 * i] = found ? index.beginLine(nodes[i]) : -1;
+            lines[2 * i + 1] = found ? index.endLine(nodes[i]) : -1;
+        }
+        return lines;
     }
 
     /**
@@ -100,106 +105,12 @@ public class XPathCustomParser implements IXPathCustomParser {
      * If no data is available, an empty map is returned.
      */
     public Map<String, MyPair<Integer, Integer>> getAllInfo() {
-        if (lines == null)
-            return Collections.emptyMap(); // Return an empty map if lines is null
+        if (index == null)
+            return Collections.emptyMap(); // Return an empty map if the XML data could not be parsed
 
         Map<String, MyPair<Integer, Integer>> info = new HashMap<>();
-        lines.forEach((key, value) ->
-                info.put(key, new MyPair<>(value.beginLineNumber, value.endLineNumber)));
+        for (int node = 1; node <= index.size(); node++)
+            info.put(index.xPath(node), new MyPair<>(index.beginLine(node), index.endLine(node)));
         return info;
     }
-
-    /**
-     * Represents the line data for an XML element.
-     */
-    private record LineData(String tagName, int beginLineNumber, int endLineNumber) {
-        /**
-         * Constructs a LineData object.
-         *
-         * @param tagName         The tag name of the XML element.
-         * @param beginLineNumber The line number where the element starts.
-         * @param endLineNumber   The line number where the element ends.
-         */
-        private LineData {
-        }
-
-        @Override
-        public String toString() {
-            return String.format("%s, %d, %d", tagName, beginLineNumber, endLineNumber);
-        }
-    }
-
-    /**
-     * SAX handler that processes XML elements and records their XPath and line numbers.
-     */
-    private static class SAXHandler extends DefaultHandler {
-
-        private final Map<String, LineData> elements = new HashMap<>();
-        private final Deque<String> pathStack = new ArrayDeque<>();
-        private final Map<String, Map<String, Integer>> elementCount = new HashMap<>();
-        private final Map<String, Integer> startLineMap = new HashMap<>();
-        private Locator locator;
-
-        @Override
-        public void setDocumentLocator(Locator locator) {
-            this.locator = locator;
-        }
-
-        @Override
-        public void startElement(String uri, String localName, String qName, Attributes attributes) {
-            String tagName = stripNamespace(qName);
-            int lineNumber = locator.getLineNumber();
-
-            // Construct the XPath based on parent elements and current index
-            String parentXPath = pathStack.isEmpty() ? "" : pathStack.peek();
-
-            // Initialize the count map for the current parent XPath if it doesn't exist
-            if (!elementCount.containsKey(parentXPath))
-                elementCount.put(parentXPath, new HashMap<>());
-
-            // Get the current count for the tag and increment it
-            Map<String, Integer> currentCounts = elementCount.get(parentXPath);
-            int index = currentCounts.getOrDefault(tagName, 0) + 1;
-            currentCounts.put(tagName, index);
-
-            // Build the current XPath using the parent path and the updated element index
-            String xPath = String.format("%s/%s[%d]", parentXPath, tagName, index);
-
-            // Push the new XPath onto the stack
-            pathStack.push(xPath);
-
-            // Store the start line number for the current element's XPath
-            startLineMap.put(xPath, lineNumber);
-        }
-
-        @Override
-        public void endElement(String uri, String localName, String qName) {
-            String tagName = stripNamespace(qName);
-            String xPath = pathStack.pop();
-            int startLine = startLineMap.getOrDefault(xPath, -1);
-            int endLine = locator.getLineNumber();
-
-            // Store the element data with the start and end lines
-            elements.put(xPath, new LineData(tagName, startLine, endLine));
-        }
-
-        /**
-         * Strips the namespace from a qualified XML tag name.
-         *
-         * @param qName The qualified name (with namespace).
-         * @return The local part of the tag name (without namespace).
-         */
-        private String stripNamespace(String qName) {
-            return qName.contains(":") ? qName.substring(qName.indexOf(":") + 1) : qName;
-        }
-
-        /**
-         * Retrieves the map of elements with their respective line numbers.
-         *
-         * @return A map where the key is the XPath and the value is the corresponding LineData.
-         */
-        public Map<String, LineData> getElements() {
-            return elements;
-        }
-    }
-}
\ No newline at end of file
+}
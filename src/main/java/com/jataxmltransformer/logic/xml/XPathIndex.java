@@ -0,0 +1,704 @@
+package com.jataxmltransformer.logic.xml;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.SAXParserFactory;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The {@code XPathIndex} class maps the positional XPaths of the elements of a document (e.g.
+ * {@code /RDF[1]/Class[2]/label[1]}) to the lines and columns where they start and end.
+ * <p>
+ * The XPaths are never stored as strings. Element names are interned into int ids, and the elements form a trie
+ * whose nodes are indexes into primitive arrays. A single open-addressing table maps each
+ * (parent, name, position) triple to its child, and also counts the siblings with the same name while the index is
+ * built. Lookups scan the XPath in place, step by step, and walk the trie without allocating anything.
+ * </p>
+ * <p>
+ * Only steps made of ASCII letters followed by a position (e.g. {@code Class[2]}) name elements. Steps such as
+ * {@code text()[1]} or {@code @about} make {@link #find(CharSequence)} fail, while
+ * {@link #findEnclosing(CharSequence)} resolves the element before them.
+ * </p>
+ */
+public final class XPathIndex {
+
+    /**
+     * The node returned by the lookups when the XPath does not resolve to an element.
+     */
+    public static final int NOT_FOUND = -1;
+
+    private static final int ROOT = 0;
+
+    private final NameTable names = new NameTable();
+    private final ChildTable children = new ChildTable();
+    private int[] parents = new int[64];
+    private int[] nameIds = new int[64];
+    private int[] positions = new int[64];
+    private int[] lines = new int[2 * 64];   // Begin and end line of each node
+    private int[] columns = new int[2 * 64]; // Begin and end column of each node
+    private int size = 1; // Node 0 is the document
+
+    /**
+     * Constructs an empty {@code XPathIndex}, filled through a {@link Builder}.
+     */
+    private XPathIndex() {
+    }
+
+    /**
+     * Parses XML data with SAX and indexes its elements.
+     *
+     * @param xmlData The XML data as a string.
+     * @return The index of the elements.
+     * @throws Exception If the XML data cannot be parsed.
+     */
+    public static XPathIndex parse(String xmlData) throws Exception {
+        return parse(new StringReader(xmlData));
+    }
+
+    /**
+     * Parses XML data with SAX and indexes its elements.
+     *
+     * @param xmlData A reader of the XML data.
+     * @return The index of the elements.
+     * @throws Exception If the XML data cannot be parsed.
+     */
+    public static XPathIndex parse(Reader xmlData) throws Exception {
+        Builder builder = new Builder();
+        SAXParserFactory.newInstance().newSAXParser().parse(new InputSource(xmlData),
+                new DefaultHandler() {
+                    private Locator locator;
+
+                    @Override
+                    public void setDocumentLocator(Locator locator) {
+                        this.locator = locator;
+                    }
+
+                    @Override
+                    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                        builder.startElement(qName, locator.getLineNumber(), locator.getColumnNumber());
+                    }
+
+                    @Override
+                    public void endElement(String uri, String localName, String qName) {
+                        builder.endElement(locator.getLineNumber(), locator.getColumnNumber());
+                    }
+                });
+        return builder.build();
+    }
+
+    /**
+     * Finds the element at the given XPath.
+     *
+     * @param xPath The positional XPath of the element, made of local names (e.g. {@code /RDF[1]/Class[2]}).
+     * @return The node of the element, or {@link #NOT_FOUND} if there is no such element.
+     */
+    public int find(CharSequence xPath) {
+        return find(xPath, false);
+    }
+
+    /**
+     * Finds the innermost element of an XPath, ignoring the steps from the first one that is not an element step
+     * (e.g. {@code /RDF[1]/Class[2]/text()[1]} resolves to {@code /RDF[1]/Class[2]}).
+     *
+     * @param xPath The XPath to resolve.
+     * @return The node of the element, or {@link #NOT_FOUND} if there is no such element.
+     */
+    public int findEnclosing(CharSequence xPath) {
+        return find(xPath, true);
+    }
+
+    /**
+     * Finds the innermost elements of many XPaths, like {@link #findEnclosing(CharSequence)}.
+     * <p>
+     * The XPaths are resolved in sorted order, so that each one only walks the steps it does not share with the
+     * previous one.
+     * </p>
+     *
+     * @param xPaths The XPaths to resolve.
+     * @return The nodes of the elements, in the order of the XPaths, with {@link #NOT_FOUND} for the missing ones.
+     */
+    public int[] findAllEnclosing(String[] xPaths) {
+        Integer[] order = new Integer[xPaths.length];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        Arrays.sort(order, (a, b) -> xPaths[a].compareTo(xPaths[b]));
+
+        int[] nodes = new int[xPaths.length];
+        Trail trail = new Trail();
+        String previous = "";
+        for (int i : order) {
+            String xPath = xPaths[i];
+
+            // Restart from the deepest step of the previous XPath that this one shares
+            int common = 0;
+            int limit = Math.min(previous.length(), xPath.length());
+            while (common < limit && previous.charAt(common) == xPath.charAt(common))
+                common++;
+            while (trail.depth > 0) {
+                int end = trail.ends[trail.depth - 1];
+                if (end <= common && (end == xPath.length() || xPath.charAt(end) == '/'))
+                    break;
+                trail.depth--;
+            }
+            int from = trail.depth == 0 ? 0 : trail.ends[trail.depth - 1];
+            int node = trail.depth == 0 ? ROOT : trail.nodes[trail.depth - 1];
+
+            nodes[i] = walk(xPath, from, node, true, trail);
+            previous = xPath;
+        }
+        return nodes;
+    }
+
+    /**
+     * Walks the trie along the steps of an XPath.
+     *
+     * @param xPath The XPath to resolve.
+     * @param cut   Whether to stop at the first step that is not an element step instead of failing.
+     * @return The node of the element, or {@link #NOT_FOUND}.
+     */
+    private int find(CharSequence xPath, boolean cut) {
+        return walk(xPath, 0, ROOT, cut, null);
+    }
+
+    /**
+     * Walks the trie along the steps of an XPath, from a node already resolved for its first characters.
+     *
+     * @param xPath The XPath to resolve.
+     * @param i     The offset of the first step to walk.
+     * @param node  The node resolved for the characters before the offset.
+     * @param cut   Whether to stop at the first step that is not an element step instead of failing.
+     * @param trail The trail recording the resolved steps, or {@code null}.
+     * @return The node of the element, or {@link #NOT_FOUND}.
+     */
+    private int walk(CharSequence xPath, int i, int node, boolean cut, Trail trail) {
+        int length = xPath.length();
+        while (true) {
+            while (i < length && xPath.charAt(i) == '/')
+                i++;
+            if (i == length)
+                break;
+
+            // Scan a "name[position]" step
+            int nameStart = i;
+            while (i < length && isAsciiLetter(xPath.charAt(i)))
+                i++;
+            int nameEnd = i;
+            int digitsStart = i + 1;
+            if (nameEnd > nameStart && i < length && xPath.charAt(i) == '[') {
+                i++;
+                while (i < length && xPath.charAt(i) >= '0' && xPath.charAt(i) <= '9')
+                    i++;
+            }
+            int digitsEnd = i;
+            boolean step = nameEnd > nameStart && digitsEnd > digitsStart && i < length && xPath.charAt(i) == ']'
+                    && (++i == length || xPath.charAt(i) == '/');
+            if (!step) {
+                if (cut)
+                    break;
+                return NOT_FOUND;
+            }
+
+            // Positions are never written with leading zeros, and position 0 holds the sibling counts
+            if (xPath.charAt(digitsStart) == '0' || digitsEnd - digitsStart > 9)
+                return NOT_FOUND;
+            int position = 0;
+            for (int d = digitsStart; d < digitsEnd; d++)
+                position = position * 10 + (xPath.charAt(d) - '0');
+
+            int nameId = names.find(xPath, nameStart, nameEnd);
+            node = nameId < 0 ? NOT_FOUND : children.get(node, nameId, position);
+            if (node == NOT_FOUND)
+                return NOT_FOUND;
+            if (trail != null)
+                trail.push(i, node);
+        }
+        return node == ROOT ? NOT_FOUND : node;
+    }
+
+    /**
+     * Gets the number of indexed elements.
+     *
+     * @return The number of elements.
+     */
+    public int size() {
+        return size - 1;
+    }
+
+    /**
+     * Gets the line where an element starts, at the end of its start tag.
+     *
+     * @param node The node of the element, between 1 and {@link #size()}.
+     * @return The begin line.
+     */
+    public int beginLine(int node) {
+        return lines[2 * node];
+    }
+
+    /**
+     * Gets the line where an element ends, at the end of its end tag.
+     *
+     * @param node The node of the element, between 1 and {@link #size()}.
+     * @return The end line.
+     */
+    public int endLine(int node) {
+        return lines[2 * node + 1];
+    }
+
+    /**
+     * Gets the column following the start tag of an element.
+     *
+     * @param node The node of the element, between 1 and {@link #size()}.
+     * @return The begin column.
+     */
+    public int beginColumn(int node) {
+        return columns[2 * node];
+    }
+
+    /**
+     * Gets the column following the end tag of an element.
+     *
+     * @param node The node of the element, between 1 and {@link #size()}.
+     * @return The end column.
+     */
+    public int endColumn(int node) {
+        return columns[2 * node + 1];
+    }
+
+    /**
+     * Gets the parent of an element.
+     *
+     * @param node The node of the element, between 1 and {@link #size()}.
+     * @return The node of the parent element, or {@code 0} for the root element.
+     */
+    public int parent(int node) {
+        return parents[node];
+    }
+
+    /**
+     * Gets the local name of an element.
+     *
+     * @param node The node of the element, between 1 and {@link #size()}.
+     * @return The name of the element.
+     */
+    public String name(int node) {
+        return names.name(nameIds[node]);
+    }
+
+    /**
+     * Builds the XPath of an element. Nodes are numbered in document order, so iterating from 1 to
+     * {@link #size()} visits every element.
+     *
+     * @param node The node of the element, between 1 and {@link #size()}.
+     * @return The positional XPath of the element.
+     */
+    public String xPath(int node) {
+        if (node == ROOT)
+            return "";
+        return xPath(parents[node]) + "/" + names.name(nameIds[node]) + "[" + positions[node] + "]";
+    }
+
+    /**
+     * Checks whether a character is an ASCII letter.
+     *
+     * @param c The character.
+     * @return {@code true} if the character is between 'a' and 'z' or 'A' and 'Z'.
+     */
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * Hashes the ints of a table key.
+     *
+     * @param a The first int.
+     * @param b The second int.
+     * @param c The third int.
+     * @return The hash of the key.
+     */
+    private static int hash(int a, int b, int c) {
+        long hash = (a * 0x9E3779B97F4A7C15L) ^ (b * 0xC2B2AE3D27D4EB4FL) ^ (c * 0x165667B19E3779F9L);
+        hash ^= hash >>> 29;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Writes the index in a binary form, read back by {@link #read(ByteBuffer)}: the element names, then the parent,
+     * the name and the begin and end positions of each element, in document order.
+     *
+     * @param out The output.
+     * @throws IOException If the index cannot be written.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(names.size);
+        for (int id = 0; id < names.size; id++) {
+            byte[] name = names.name(id).getBytes(StandardCharsets.UTF_8);
+            out.writeInt(name.length);
+            out.write(name);
+        }
+        out.writeInt(size);
+        for (int node = ROOT + 1; node < size; node++) {
+            out.writeInt(parents[node]);
+            out.writeInt(nameIds[node]);
+            out.writeInt(lines[2 * node]);
+            out.writeInt(lines[2 * node + 1]);
+            out.writeInt(columns[2 * node]);
+            out.writeInt(columns[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Reads an index written by {@link #writeTo(DataOutput)}, rebuilding the lookup tables without parsing the
+     * document again.
+     *
+     * @param in The buffer, positioned at the start of the index and advanced past it.
+     * @return The index.
+     * @throws IllegalArgumentException If the data is not a valid index.
+     */
+    public static XPathIndex read(ByteBuffer in) {
+        try {
+            XPathIndex index = new XPathIndex();
+            int nameCount = in.getInt();
+            for (int id = 0; id < nameCount; id++) {
+                byte[] name = new byte[in.getInt()];
+                in.get(name);
+                if (index.names.intern(new String(name, StandardCharsets.UTF_8)) != id)
+                    throw new IllegalArgumentException("Duplicate element name in the XPath index");
+            }
+
+            int size = in.getInt();
+            for (int node = ROOT + 1; node < size; node++) {
+                int parent = in.getInt();
+                int nameId = in.getInt();
+                if (parent < ROOT || parent >= node || nameId < 0 || nameId >= nameCount)
+                    throw new IllegalArgumentException("Invalid element " + node + " in the XPath index");
+
+                int beginLine = in.getInt(), endLine = in.getInt();
+                int beginColumn = in.getInt(), endColumn = in.getInt();
+                int position = index.children.increment(parent, nameId, 0);
+                index.add(parent, nameId, position, beginLine, beginColumn);
+                index.children.put(parent, nameId, position, node);
+                index.lines[2 * node + 1] = endLine;
+                index.columns[2 * node + 1] = endColumn;
+            }
+            return index;
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("Truncated XPath index", e);
+        }
+    }
+
+    /**
+     * Builds an {@link XPathIndex} from the start and end events of a parse.
+     */
+    public static final class Builder {
+        private final XPathIndex index = new XPathIndex();
+        private int[] stack = new int[32];
+        private int depth;
+
+        /**
+         * Records the start of an element.
+         *
+         * @param qName  The qualified name of the element, its prefix is ignored.
+         * @param line   The line at the end of the start tag.
+         * @param column The column at the end of the start tag.
+         */
+        public void startElement(String qName, int line, int column) {
+            int colon = qName.indexOf(':');
+            int nameId = index.names.intern(colon < 0 ? qName : qName.substring(colon + 1));
+            int parent = depth == 0 ? ROOT : stack[depth - 1];
+
+            // Position 0 never names a child, it holds the number of children with the name so far
+            int position = index.children.increment(parent, nameId, 0);
+            int node = index.add(parent, nameId, position, line, column);
+            index.children.put(parent, nameId, position, node);
+
+            if (depth == stack.length)
+                stack = Arrays.copyOf(stack, depth * 2);
+            stack[depth++] = node;
+        }
+
+        /**
+         * Records the end of the innermost open element.
+         *
+         * @param line   The line at the end of the end tag.
+         * @param column The column at the end of the end tag.
+         */
+        public void endElement(int line, int column) {
+            int node = stack[--depth];
+            index.lines[2 * node + 1] = line;
+            index.columns[2 * node + 1] = column;
+        }
+
+        /**
+         * Returns the built index.
+         *
+         * @return The index.
+         */
+        public XPathIndex build() {
+            return index;
+        }
+    }
+
+    /**
+     * Appends a node.
+     *
+     * @param parent   The parent node.
+     * @param nameId   The id of the element name.
+     * @param position The position of the element among the siblings with the same name.
+     * @param line     The begin line.
+     * @param column   The begin column.
+     * @return The new node.
+     */
+    private int add(int parent, int nameId, int position, int line, int column) {
+        if (size == parents.length) {
+            parents = Arrays.copyOf(parents, size * 2);
+            nameIds = Arrays.copyOf(nameIds, size * 2);
+            positions = Arrays.copyOf(positions, size * 2);
+            lines = Arrays.copyOf(lines, size * 4);
+            columns = Arrays.copyOf(columns, size * 4);
+        }
+        parents[size] = parent;
+        nameIds[size] = nameId;
+        positions[size] = position;
+        lines[2 * size] = lines[2 * size + 1] = line;
+        columns[2 * size] = columns[2 * size + 1] = column;
+        return size++;
+    }
+
+    /**
+     * The steps resolved while walking an XPath: the offset following each step and the node it resolved to.
+     */
+    private static final class Trail {
+        private int[] ends = new int[16];
+        private int[] nodes = new int[16];
+        private int depth;
+
+        /**
+         * Records a resolved step.
+         *
+         * @param end  The offset following the step.
+         * @param node The node of the step.
+         */
+        private void push(int end, int node) {
+            if (depth == ends.length) {
+                ends = Arrays.copyOf(ends, depth * 2);
+                nodes = Arrays.copyOf(nodes, depth * 2);
+            }
+            ends[depth] = end;
+            nodes[depth++] = node;
+        }
+    }
+
+    /**
+     * Interns element names, with lookups on a range of characters that do not need a substring.
+     */
+    private static final class NameTable {
+        private String[] names = new String[16];
+        private int[] table = new int[32]; // Name id + 1, 0 marks an empty slot
+        private int size;
+
+        /**
+         * Returns the id of a name, assigning a new one if needed.
+         *
+         * @param name The name.
+         * @return The id of the name.
+         */
+        private int intern(String name) {
+            int id = find(name, 0, name.length());
+            if (id >= 0)
+                return id;
+
+            if (size == names.length)
+                names = Arrays.copyOf(names, size * 2);
+            names[size] = name;
+            table[emptySlot(hash(name, 0, name.length()))] = ++size;
+            if (size * 2 > table.length) {
+                table = new int[table.length * 2];
+                for (int i = 0; i < size; i++)
+                    table[emptySlot(hash(names[i], 0, names[i].length()))] = i + 1;
+            }
+            return size - 1;
+        }
+
+        /**
+         * Finds the id of the name made of a range of characters.
+         *
+         * @param text  The characters.
+         * @param start The start of the name, inclusive.
+         * @param end   The end of the name, exclusive.
+         * @return The id of the name, or -1 if it was never interned.
+         */
+        private int find(CharSequence text, int start, int end) {
+            int mask = table.length - 1;
+            for (int slot = hash(text, start, end) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+                String name = names[table[slot] - 1];
+                if (name.length() == end - start && contentEquals(name, text, start))
+                    return table[slot] - 1;
+            }
+            return -1;
+        }
+
+        /**
+         * Gets an interned name.
+         *
+         * @param id The id of the name.
+         * @return The name.
+         */
+        private String name(int id) {
+            return names[id];
+        }
+
+        /**
+         * Finds the first empty slot from a hash.
+         *
+         * @param hash The hash.
+         * @return The empty slot.
+         */
+        private int emptySlot(int hash) {
+            int mask = table.length - 1;
+            int slot = hash & mask;
+            while (table[slot] != 0)
+                slot = (slot + 1) & mask;
+            return slot;
+        }
+
+        /**
+         * Compares a name with a range of characters of the same length.
+         *
+         * @param name  The name.
+         * @param text  The characters.
+         * @param start The start of the range.
+         * @return {@code true} if the characters are the same.
+         */
+        private static boolean contentEquals(String name, CharSequence text, int start) {
+            for (int i = 0; i < name.length(); i++)
+                if (name.charAt(i) != text.charAt(start + i))
+                    return false;
+            return true;
+        }
+
+        /**
+         * Hashes a range of characters like {@link String#hashCode()}, spreading the bits for the table.
+         *
+         * @param text  The characters.
+         * @param start The start of the range, inclusive.
+         * @param end   The end of the range, exclusive.
+         * @return The hash.
+         */
+        private static int hash(CharSequence text, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++)
+                hash = 31 * hash + text.charAt(i);
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    /**
+     * Maps (parent, name id, position) keys to int values with open addressing on primitive arrays.
+     */
+    private static final class ChildTable {
+        private int[] keys = new int[3 * 64];
+        private int[] values = new int[64];
+        private boolean[] used = new boolean[64];
+        private int size;
+
+        /**
+         * Gets the value of a key.
+         *
+         * @param parent   The parent node.
+         * @param nameId   The name id.
+         * @param position The position.
+         * @return The value, or {@link #NOT_FOUND} if the key is missing.
+         */
+        private int get(int parent, int nameId, int position) {
+            int slot = slot(parent, nameId, position);
+            return used[slot] ? values[slot] : NOT_FOUND;
+        }
+
+        /**
+         * Sets the value of a key.
+         *
+         * @param parent   The parent node.
+         * @param nameId   The name id.
+         * @param position The position.
+         * @param value    The value.
+         */
+        private void put(int parent, int nameId, int position, int value) {
+            int slot = slot(parent, nameId, position);
+            if (!used[slot]) {
+                used[slot] = true;
+                keys[3 * slot] = parent;
+                keys[3 * slot + 1] = nameId;
+                keys[3 * slot + 2] = position;
+                if (++size * 2 > values.length) {
+                    values[slot] = value;
+                    rehash();
+                    return;
+                }
+            }
+            values[slot] = value;
+        }
+
+        /**
+         * Increments the value of a key, starting from 0.
+         *
+         * @param parent   The parent node.
+         * @param nameId   The name id.
+         * @param position The position.
+         * @return The incremented value.
+         */
+        private int increment(int parent, int nameId, int position) {
+            int value = Math.max(get(parent, nameId, position), 0) + 1;
+            put(parent, nameId, position, value);
+            return value;
+        }
+
+        /**
+         * Finds the slot of a key, or the empty slot where it would be stored.
+         *
+         * @param parent   The parent node.
+         * @param nameId   The name id.
+         * @param position The position.
+         * @return The slot.
+         */
+        private int slot(int parent, int nameId, int position) {
+            int mask = values.length - 1;
+            int slot = hash(parent, nameId, position) & mask;
+            while (used[slot] && (keys[3 * slot] != parent || keys[3 * slot + 1] != nameId
+                    || keys[3 * slot + 2] != position))
+                slot = (slot + 1) & mask;
+            return slot;
+        }
+
+        /**
+         * Doubles the table and reinserts every key.
+         */
+        private void rehash() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new int[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            used = new boolean[oldUsed.length * 2];
+            for (int i = 0; i < oldUsed.length; i++) {
+                if (!oldUsed[i])
+                    continue;
+                int slot = slot(oldKeys[3 * i], oldKeys[3 * i + 1], oldKeys[3 * i + 2]);
+                used[slot] = true;
+                keys[3 * slot] = oldKeys[3 * i];
+                keys[3 * slot + 1] = oldKeys[3 * i + 1];
+                keys[3 * slot + 2] = oldKeys[3 * i + 2];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
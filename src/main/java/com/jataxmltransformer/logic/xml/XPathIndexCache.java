@@ -0,0 +1,209 @@
+package com.jataxmltransformer.logic.xml;
+
+import com.jataxmltransformer.logic.data.Ontology;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of {@link XPathIndex}es keyed by the SHA-256 hash of the XML data they index.
+ * <p>
+ * Verifying the same ontology again, as in a fix and verify loop, finds the index built by the previous run
+ * instead of indexing the XML data again. The cache keeps the least recently used indexes within a maximum number
+ * of entries and of indexed elements, evicting the others.
+ * </p>
+ *
+ * <h3>Usage Example:</h3>
+ * <pre>
+ *     XPathIndex index = XPathIndexCache.getInstance().getOrParse(xmlData);
+ * </pre>
+ */
+public class XPathIndexCache {
+
+    private static final XPathIndexCache instance = new XPathIndexCache(8, 4_000_000);
+
+    private final int maxEntries;
+    private final long maxElements;
+    private final LinkedHashMap<String, XPathIndex> indexes = new LinkedHashMap<>(16, 0.75f, true);
+    private long elements;
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param maxEntries  The maximum number of indexes kept.
+     * @param maxElements The maximum number of elements of all the indexes kept; a larger index is not cached.
+     */
+    public XPathIndexCache(int maxEntries, long maxElements) {
+        this.maxEntries = maxEntries;
+        this.maxElements = maxElements;
+    }
+
+    /**
+     * Returns the cache shared by the application.
+     *
+     * @return The shared cache.
+     */
+    public static XPathIndexCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Gets the index of the given XML data, if it is cached.
+     *
+     * @param xmlData The XML data.
+     * @return The cached index, or {@code null}.
+     */
+    public synchronized XPathIndex get(String xmlData) {
+        return indexes.get(key(xmlData));
+    }
+
+    /**
+     * Gets the index of the XML data of an ontology, if it is cached. The data is hashed without being decoded.
+     *
+     * @param ontology The ontology.
+     * @return The cached index, or {@code null}.
+     */
+    public synchronized XPathIndex get(Ontology ontology) {
+        return indexes.get(key(ontology));
+    }
+
+    /**
+     * Gets the index of the given XML data, parsing and caching it if needed.
+     *
+     * @param xmlData The XML data.
+     * @return The index of the XML data.
+     * @throws Exception If the XML data cannot be parsed.
+     */
+    public XPathIndex getOrParse(String xmlData) throws Exception {
+        String key = key(xmlData);
+        synchronized (this) {
+            XPathIndex index = indexes.get(key);
+            if (index != null)
+                return index;
+        }
+
+        // Parse outside the lock, a concurrent parse of the same data only builds an equal index
+        XPathIndex index = XPathIndex.parse(xmlData);
+        cache(key, index);
+        return index;
+    }
+
+    /**
+     * Caches the index of the given XML data.
+     *
+     * @param xmlData The XML data.
+     * @param index   The index built from the XML data.
+     */
+    public void put(String xmlData, XPathIndex index) {
+        cache(key(xmlData), index);
+    }
+
+    /**
+     * Caches the index of the XML data of an ontology.
+     *
+     * @param ontology The ontology.
+     * @param index    The index built from the XML data.
+     */
+    public void put(Ontology ontology, XPathIndex index) {
+        cache(key(ontology), index);
+    }
+
+    /**
+     * Caches an index under a hash computed by {@link #hash(Ontology)}, for XML data that was hashed already.
+     *
+     * @param hash  The hash of the XML data.
+     * @param index The index built from the XML data.
+     */
+    public void putHashed(String hash, XPathIndex index) {
+        cache(hash, index);
+    }
+
+    /**
+     * Hashes the XML data of an ontology the way the cache keys its indexes.
+     *
+     * @param ontology The ontology.
+     * @return The hex SHA-256 hash of the UTF-8 bytes of the data.
+     */
+    public static String hash(Ontology ontology) {
+        return key(ontology);
+    }
+
+    /**
+     * Removes all the cached indexes.
+     */
+    public synchronized void clear() {
+        indexes.clear();
+        elements = 0;
+    }
+
+    /**
+     * Gets the number of cached indexes.
+     *
+     * @return The number of indexes.
+     */
+    public synchronized int size() {
+        return indexes.size();
+    }
+
+    /**
+     * Caches an index, evicting the least recently used ones beyond the bounds.
+     *
+     * @param key   The hash of the XML data.
+     * @param index The index.
+     */
+    private synchronized void cache(String key, XPathIndex index) {
+        if (index.size() > maxElements)
+            return;
+
+        XPathIndex previous = indexes.put(key, index);
+        elements += index.size() - (previous == null ? 0 : previous.size());
+
+        Iterator<Map.Entry<String, XPathIndex>> eldest = indexes.entrySet().iterator();
+        while (indexes.size() > maxEntries || elements > maxElements) {
+            XPathIndex evicted = eldest.next().getValue();
+            eldest.remove();
+            elements -= evicted.size();
+        }
+    }
+
+    /**
+     * Hashes XML data.
+     *
+     * @param xmlData The XML data.
+     * @return The hex SHA-256 hash of the UTF-8 bytes of the data.
+     */
+    private static String key(String xmlData) {
+        MessageDigest digest = sha256();
+        digest.update(xmlData.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Hashes the XML data of an ontology like {@link #key(String)}, through its fingerprint: an ontology that did not
+     * change since it was last hashed is not read again.
+     *
+     * @param ontology The ontology.
+     * @return The hex SHA-256 hash of the UTF-8 bytes of the data.
+     */
+    private static String key(Ontology ontology) {
+        return ontology.getFingerprint();
+    }
+
+    /**
+     * Creates a SHA-256 digest.
+     *
+     * @return The digest.
+     */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e); // Required on every Java platform
+        }
+    }
+}
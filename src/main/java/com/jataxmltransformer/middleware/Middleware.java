@@ -2,13 +2,20 @@ package com.jataxmltransformer.middleware;
 
 import com.jataxmltransformer.logic.cducecompiler.CDuceCodeLoader;
 import com.jataxmltransformer.logic.cducecompiler.CDuceCommandExecutor;
+import com.jataxmltransformer.logic.cducecompiler.CDuceReport;
+import com.jataxmltransformer.logic.cducecompiler.CDuceReport.RemovedElement;
+import com.jataxmltransformer.logic.cducecompiler.StructureProfileRegistry;
 import com.jataxmltransformer.logic.data.CheckStructure;
 import com.jataxmltransformer.logic.data.EditedElement;
 import com.jataxmltransformer.logic.data.ErrorInfo;
 import com.jataxmltransformer.logic.data.Ontology;
+import com.jataxmltransformer.logic.data.StructureProfile;
+import com.jataxmltransformer.logic.xml.OntologyDocument;
+import com.jataxmltransformer.logic.xml.RemovedElementReporter;
 import com.jataxmltransformer.logic.xml.XMLDiffChecker;
 import com.jataxmltransformer.logic.xml.XMLErrorReporter;
-import com.jataxmltransformer.logic.xml.XMLFormatter;
+import com.jataxmltransformer.logic.xml.XPathIndex;
+import com.jataxmltransformer.logic.xml.XPathIndexCache;
 import com.jataxmltransformer.logs.AppLogger;
 
 import java.util.ArrayList;
@@ -18,18 +25,33 @@ import java.util.List;
 /**
  * Middleware class that acts as an intermediary for ontology processing.
  * It maintains a global state and facilitates interactions between various components.
+ * <p>
+ * The results of the last verification, transformation and error report are kept with the
+ * {@linkplain Ontology#getFingerprint() fingerprints} of the ontologies and the structure they were computed from,
+ * so running them again on unchanged documents returns the previous result without calling CDuce or diffing.
+ * </p>
+ * <p>
+ * With {@linkplain #setDirectErrors(boolean) direct errors}, the errors of a transformed ontology are built from the
+ * elements the transformation reported as removed, skipping the diff of the input and output ontologies.
+ * </p>
  */
 public class Middleware {
     private static Middleware instance;
     private static CheckStructure checkStructure;
+    private static StructureProfile profile; // The compiled form of the structure, null until it is compiled
     private static Ontology ontologyInput;
     private static Ontology ontologyOutput;
+    private static Result<Boolean> lastVerification;     // The result of the last verification
+    private static Result<Transformation> lastTransformation; // The output of the last transformation
+    private static boolean directErrors;                  // Whether errors come from the removed elements
+    private static Result<List<ErrorInfo>> lastErrors;    // The errors reported for the last input and output
 
     /**
      * Private constructor to enforce a singleton pattern.
      */
     private Middleware() {
         checkStructure = new CheckStructure();
+        profile = null;
         ontologyInput = new Ontology();
         ontologyOutput = new Ontology();
     }
@@ -53,8 +75,13 @@ public class Middleware {
     public static void resetInstance() {
         instance = null;
         checkStructure = new CheckStructure();
+        profile = null;
         ontologyInput = new Ontology();
         ontologyOutput = new Ontology();
+        lastVerification = null;
+        lastTransformation = null;
+        lastErrors = null;
+        directErrors = false;
         AppLogger.close();
     }
 
@@ -75,22 +102,90 @@ public class Middleware {
             return Collections.emptyList();
         }
 
-        // Parse ontology XML and get the differences
-        Ontology ontologyInput = XMLFormatter.formatOntology(Middleware.ontologyInput);
-        Ontology ontologyOutput = XMLFormatter.formatOntology(Middleware.ontologyOutput);
+        // Unchanged ontologies have the same errors as the last time
+        List<Object> key = List.of(Middleware.ontologyInput.getFingerprint(),
+                Middleware.ontologyOutput.getFingerprint(), directErrors);
+        if (lastErrors != null && lastErrors.key().equals(key))
+            return new ArrayList<>(lastErrors.value());
+
+        List<ErrorInfo> errors = findErrors();
+        lastErrors = new Result<>(key, List.copyOf(errors));
+        return errors;
+    }
+
+    /**
+     * Compares the input and output ontologies and generates the error information of their differences.
+     *
+     * @return A list of {@link ErrorInfo} objects, empty if there are no differences.
+     * @throws Exception If an error occurs while processing the ontologies or generating the error information.
+     */
+    private static List<ErrorInfo> findErrors() throws Exception {
+        List<RemovedElement> removedElements = removedElements();
+        if (removedElements != null) {
+            // The transformation located the errors itself, only the positions of the input are needed
+            XPathIndexCache cache = XPathIndexCache.getInstance();
+            XPathIndex index = cache.get(Middleware.ontologyInput);
+            if (index == null) {
+                index = XPathIndex.parse(Middleware.ontologyInput.openXmlReader());
+                cache.put(Middleware.ontologyInput, index);
+            }
+            return new RemovedElementReporter(index).generateErrorInfo(removedElements);
+        }
+
+        // Parse each ontology once, the diff ignores formatting so there's no need to format them first.
+        // The element positions of an input verified before are borrowed from the XPathIndexCache
+        OntologyDocument inputDocument = OntologyDocument.parse(Middleware.ontologyInput);
+        OntologyDocument outputDocument = OntologyDocument.parse(Middleware.ontologyOutput);
 
         XMLDiffChecker xmlDiffChecker = new XMLDiffChecker();
-        List<EditedElement> differences = xmlDiffChecker.diffOntologies(ontologyInput, ontologyOutput);
+        List<EditedElement> differences = xmlDiffChecker.diffDocuments(inputDocument, outputDocument);
 
         // If no differences, return an empty list
         if (differences.isEmpty())
-            return Collections.emptyList();
+            return new ArrayList<>();
 
-        // Generate error info based on the differences
-        XMLErrorReporter reporter = new XMLErrorReporter(Middleware.ontologyInput.getXmlData());
+        // Generate error info based on the differences, reusing the positions recorded by the parse
+        XMLErrorReporter reporter = new XMLErrorReporter(inputDocument);
         return reporter.generateErrorInfo(differences);
     }
 
+    /**
+     * Gets the elements removed by the transformation that produced the current output, if errors are built from
+     * them.
+     *
+     * @return The removed elements, or {@code null} if direct errors are disabled or the current input and output
+     * do not come from the last transformation.
+     */
+    private static List<RemovedElement> removedElements() {
+        if (!directErrors || lastTransformation == null)
+            return null;
+        List<Object> key = List.of(ontologyInput.getFingerprint(), structureKey());
+        Transformation transformation = lastTransformation.value();
+        if (!lastTransformation.key().equals(key)
+                || !transformation.output().getFingerprint().equals(ontologyOutput.getFingerprint()))
+            return null;
+        return transformation.removedElements();
+    }
+
+    /**
+     * Sets whether the errors of a transformed ontology are built directly from the elements the transformation
+     * removed, instead of diffing the input and output ontologies.
+     *
+     * @param enabled {@code true} to build the errors from the removed elements.
+     */
+    public static void setDirectErrors(boolean enabled) {
+        directErrors = enabled;
+    }
+
+    /**
+     * Checks whether the errors of a transformed ontology are built from the removed elements.
+     *
+     * @return {@code true} if direct errors are enabled.
+     */
+    public static boolean isDirectErrors() {
+        return directErrors;
+    }
+
     public Ontology getOntologyOutput() {
         return ontologyOutput;
     }
@@ -132,19 +227,7 @@ public class Middleware {
      * @param namespaces list of namespaces
      */
     public void setNamespaces(List<String> namespaces) {
-        List<String> cleanedNamespaces = new ArrayList<>();
-
-        List<String> defaultNamespaces = checkStructure.getDefaultNamespaces();
-
-        for (String namespace : namespaces) {
-            if (!namespace.isBlank() && !defaultNamespaces.contains(namespace.replace(";;", ""))) {
-                if (!namespace.contains(";;"))
-                    namespace = namespace.concat(";;");
-                cleanedNamespaces.add(namespace);
-            }
-        }
-
-        checkStructure.setNamespaces(cleanedNamespaces);
+        checkStructure.setNamespaces(checkStructure.cleanNamespaces(namespaces));
     }
 
     /**
@@ -217,8 +300,37 @@ public class Middleware {
         checkStructure.setAttributes(attributes);
     }
 
+    /**
+     * Switches to a profile of the {@link StructureProfileRegistry}. The namespaces, structure, classes and
+     * attributes are replaced with editable copies of the ones of the profile, and its precompiled CDuce code is
+     * used by {@link #loadStructure()} as long as they are not changed.
+     *
+     * @param name the name of the profile
+     * @return true if the profile exists, false otherwise
+     */
+    public boolean useProfile(String name) {
+        StructureProfile registered = StructureProfileRegistry.getInstance().get(name);
+        if (registered == null) {
+            AppLogger.severe("Middleware: useProfile: no structure profile named " + name);
+            return false;
+        }
+        checkStructure = new CheckStructure(registered);
+        profile = registered;
+        return true;
+    }
+
+    /**
+     * Gets the profile the structure was last loaded or compiled from.
+     *
+     * @return the profile, or null if the structure was never loaded
+     */
+    public StructureProfile getProfile() {
+        return profile;
+    }
+
     /**
      * Loads the ontology structure into the system using CDuce.
+     * The CDuce code is generated again only if the structure changed since it was last compiled.
      *
      * @return true if the structure is successfully loaded, false otherwise
      */
@@ -228,11 +340,9 @@ public class Middleware {
             AppLogger.severe("Middleware: loadStructure: structure or classes or attributes is empty");
             return false;
         }
-        CDuceCodeLoader.loadCheckStructure(
-                checkStructure.getNamespaces(),
-                checkStructure.getStructure(),
-                checkStructure.getAttributes(),
-                checkStructure.getClasses());
+        if (profile == null || !profile.matches(checkStructure))
+            profile = CDuceCodeLoader.compileCheckStructure(null, checkStructure);
+        CDuceCodeLoader.loadCheckStructure(profile);
         return true;
     }
 
@@ -248,7 +358,16 @@ public class Middleware {
             AppLogger.severe("Middleware: verifyOntology: ontology is empty");
             return false;
         }
-        return executor.verifyOntology(ontologyInput);
+
+        List<Object> key = List.of(ontologyInput.getFingerprint(), structureKey());
+        if (lastVerification != null && lastVerification.key().equals(key)) {
+            AppLogger.info("Middleware: verifyOntology: ontology unchanged, skipping the verification");
+            return lastVerification.value();
+        }
+
+        boolean valid = executor.verifyOntology(ontologyInput);
+        lastVerification = new Result<>(key, valid);
+        return valid;
     }
 
     /**
@@ -265,17 +384,38 @@ public class Middleware {
      * @throws Exception if an error occurs during the transformation process.
      */
     public boolean transformOntology() throws Exception {
-        CDuceCommandExecutor executor = new CDuceCommandExecutor();
-        Ontology content = executor.transformOntology(ontologyInput);
-        if (content == null)
-            return false;
+        // An unchanged input has the same output as the last time
+        List<Object> key = List.of(ontologyInput.getFingerprint(), structureKey());
+        Ontology content;
+        if (lastTransformation != null && lastTransformation.key().equals(key)) {
+            AppLogger.info("Middleware: transformOntology: ontology unchanged, skipping the transformation");
+            content = lastTransformation.value().output();
+        } else {
+            CDuceCommandExecutor executor = new CDuceCommandExecutor();
+            content = executor.transformOntology(ontologyInput);
+            if (content == null)
+                return false;
+            CDuceReport report = executor.getLastReport();
+            lastTransformation = new Result<>(key, new Transformation(new Ontology(content),
+                    report == null ? List.of() : List.copyOf(report.getRemovedElements())));
+        }
 
-        ontologyOutput.setXmlData(content.getXmlData());
+        ontologyOutput.setXmlDataFrom(content); // Shares the loaded bytes without decoding them
         ontologyOutput.setOntologyName(ontologyInput.getOntologyName());
         ontologyOutput.setOntologyExtension(ontologyInput.getOntologyExtension());
         return true;
     }
 
+    /**
+     * Builds the part of the keys of the cached results describing the structure the ontology is checked against.
+     *
+     * @return A copy of the namespaces, structure, attributes and classes.
+     */
+    private static List<List<String>> structureKey() {
+        return List.of(List.copyOf(checkStructure.getNamespaces()), List.copyOf(checkStructure.getStructure()),
+                List.copyOf(checkStructure.getAttributes()), List.copyOf(checkStructure.getClasses()));
+    }
+
     /**
      * Returns a list of default namespaces commonly used in RDF and OWL structures.
      *
@@ -284,4 +424,23 @@ public class Middleware {
     public List<String> getDefaultNamespaces() {
         return checkStructure.getDefaultNamespaces();
     }
-}
\ No newline at end of file
+
+    /**
+     * A cached result, with the key of the inputs it was computed from.
+     *
+     * @param key   The fingerprints and settings the result depends on.
+     * @param value The result.
+     * @param <T>   The type of the result.
+     */
+    private record Result<T>(List<?> key, T value) {
+    }
+
+    /**
+     * The output of a transformation, with the elements it removed from the input.
+     *
+     * @param output          A copy of the transformed ontology.
+     * @param removedElements The removed elements, in document order.
+     */
+    private record Transformation(Ontology output, List<RemovedElement> removedElements) {
+    }
+}
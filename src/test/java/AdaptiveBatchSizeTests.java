@@ -0,0 +1,48 @@
+import com.jataxmltransformer.logic.cducecompiler.AdaptiveBatchSize;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link AdaptiveBatchSize} class.
+ */
+class AdaptiveBatchSizeTests {
+
+    private static final long STARTUP = 2_000_000_000L; // CDuce startup and type-checking, in nanoseconds
+    private static final long PER_FILE = 10_000_000L;
+
+    /**
+     * Tests that the size grows while the startup dominates, then settles below the maximum.
+     */
+    @Test
+    void testGrowsUntilTheCostPerFileSettles() {
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(4, 1 << 20, Duration.ofMinutes(10));
+        for (int run = 0; run < 20; run++) {
+            int files = batchSize.get();
+            batchSize.record(files, STARTUP + files * PER_FILE);
+        }
+        // Doubling stops paying 5% once the startup is a small share of the batch, past 1800 files here
+        assertEquals(4096, batchSize.get());
+    }
+
+    /**
+     * Tests that the size shrinks when a batch is too long or fails, and that partial batches do not change it.
+     */
+    @Test
+    void testShrinks() {
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(64, 1024, Duration.ofSeconds(1));
+        batchSize.record(10, STARTUP); // Over the target
+        assertEquals(5, batchSize.get());
+
+        batchSize.record(2, 1_000_000L);
+        assertEquals(5, batchSize.get());
+
+        batchSize.failed();
+        batchSize.failed();
+        batchSize.failed();
+        assertEquals(1, batchSize.get());
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveBatchSize(0, 10, Duration.ofSeconds(1)));
+    }
+}
@@ -0,0 +1,44 @@
+import com.jataxmltransformer.logic.cducecompiler.CDuceBatchReport;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link CDuceBatchReport} class.
+ */
+class CDuceBatchReportTests {
+
+    /**
+     * Tests that the records are split by file, and that lines before the first file are kept apart.
+     */
+    @Test
+    void testSplitByFile() {
+        CDuceBatchReport report = new CDuceBatchReport(3);
+        for (String line : new String[]{"Warning: unused branch", "JXT FILE 1", "JXT LOADED", "JXT INVALID",
+                "JXT REMOVED CLASS 2 unknown", "JXT SAVED", "JXT FILE 3", "JXT SYNTAX_ERROR", "JXT SAVED",
+                "JXT FILE 4", "JXT FILE x", "JXT END"})
+            report.accept(line);
+
+        assertTrue(report.isEnded());
+        assertTrue(report.isComplete(0));
+        assertFalse(report.getReport(0).getValid());
+        assertEquals(1, report.getReport(0).getRemovedElements().size());
+        assertFalse(report.isComplete(1));
+        assertNull(report.getReport(1));
+        assertTrue(report.isComplete(2));
+        assertFalse(report.getReport(2).getSaved()); // A file with a syntax error is never saved
+    }
+
+    /**
+     * Tests that the output of a run stopped before any file describes the failure.
+     */
+    @Test
+    void testStoppedBeforeAnyFile() {
+        CDuceBatchReport report = new CDuceBatchReport(2);
+        report.accept("File \"batch_code.cd\", line 40: Type error");
+
+        assertFalse(report.isEnded());
+        assertFalse(report.isComplete(0));
+        assertEquals("File \"batch_code.cd\", line 40: Type error", report.getOtherOutput());
+    }
+}
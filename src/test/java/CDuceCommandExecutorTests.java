@@ -1,6 +1,7 @@
 import com.jataxmltransformer.logic.cducecompiler.CDuceCodeLoader;
 import com.jataxmltransformer.logic.cducecompiler.CDuceCommandExecutor;
 import com.jataxmltransformer.logic.data.Ontology;
+import com.jataxmltransformer.logic.shellinterface.ProcessExecutorInterface;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.xml.sax.InputSource;
@@ -12,9 +13,14 @@ import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
+import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -375,6 +381,87 @@ public class CDuceCommandExecutorTests {
         assertEquals(formatXMLFromString(output.getXmlData()), formatXMLFromString(expected.getXmlData()));
     }
 
+    /**
+     * Verifies that a batch keeps the results of the files completed before CDuce stopped, reports the file it
+     * stopped at as failed and runs the remaining files again. The process executor replays CDuce records.
+     *
+     * @throws Exception If there is an error during the batch.
+     */
+    @Test
+    void processBatchAfterFailure() throws Exception {
+        List<Integer> runs = new ArrayList<>();
+        ProcessExecutorInterface fake = new ProcessExecutorInterface() {
+            @Override
+            public String execute(List<String> command) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void execute(List<String> command, Consumer<String> onLine) {
+                runs.add(runs.size());
+                for (int i = 1; i <= 16; i++) { // Files beyond the batch are ignored
+                    onLine.accept("JXT FILE " + i);
+                    onLine.accept("JXT LOADED");
+                    if (runs.size() == 1 && i == 2)
+                        return; // CDuce stops on the second file of the first run
+                    onLine.accept(i % 2 == 0 ? "JXT VALID" : "JXT INVALID");
+                    onLine.accept("JXT SAVED");
+                }
+                onLine.accept("JXT END");
+            }
+        };
+        List<Path> inputs = IntStream.rangeClosed(1, 20).mapToObj(i -> Path.of("in", "o" + i + ".owl")).toList();
+
+        List<CDuceCommandExecutor.BatchResult> results = new CDuceCommandExecutor(fake) {
+            @Override
+            protected void loadBatchCode(List<Path> inputs, List<Path> outputs) {
+                // The fake executor does not read the code
+            }
+        }.processBatch(inputs, Path.of("out"));
+
+        assertEquals(3, runs.size()); // 16 files, stopped at the second; then 8 and the remaining 10
+        assertEquals(20, results.size());
+        assertTrue(results.getFirst().saved());
+        assertFalse(results.get(1).saved()); // The file CDuce stopped at
+        assertNull(results.get(1).report().getSaved());
+        for (int i = 2; i < 20; i++) {
+            assertEquals(inputs.get(i), results.get(i).input());
+            assertEquals(Path.of("out", "o" + (i + 1) + ".owl"), results.get(i).output());
+            assertTrue(results.get(i).saved());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new CDuceCommandExecutor(fake)
+                .processBatch(List.of(Path.of("a", "o.owl"), Path.of("b", "o.owl")), Path.of("out")));
+    }
+
+    /**
+     * Tests that a batch is aborted, without running CDuce, when its code cannot be written, since the code left by
+     * an earlier batch would process other files.
+     */
+    @Test
+    void processBatchAbortsWhenCodeCannotBeLoaded() {
+        List<List<String>> runs = new ArrayList<>();
+        ProcessExecutorInterface fake = new ProcessExecutorInterface() {
+            @Override
+            public String execute(List<String> command) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void execute(List<String> command, Consumer<String> onLine) {
+                runs.add(command);
+            }
+        };
+        CDuceCommandExecutor executor = new CDuceCommandExecutor(fake) {
+            @Override
+            protected void loadBatchCode(List<Path> inputs, List<Path> outputs) throws IOException {
+                throw new IOException("Disk full");
+            }
+        };
+
+        assertThrows(IOException.class, () -> executor.processBatch(List.of(Path.of("in", "o.owl")), Path.of("out")));
+        assertTrue(runs.isEmpty());
+    }
+
     /**
      * Utility method to format XML data for comparison.
      *
@@ -0,0 +1,187 @@
+import com.jataxmltransformer.logic.cducecompiler.CDuceCodeLoader;
+import com.jataxmltransformer.logic.cducecompiler.CDuceCommandExecutor;
+import com.jataxmltransformer.logic.cducecompiler.CDuceFilterGenerator;
+import com.jataxmltransformer.logic.data.Ontology;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link CDuceFilterGenerator} class, using the templates shipped with the application.
+ */
+class CDuceFilterGeneratorTests {
+
+    private static final Map<String, String> templates = new HashMap<>();
+
+    /**
+     * Loads the substitution templates from the resources.
+     */
+    @BeforeAll
+    static void setUp() throws IOException {
+        try (InputStream in = CDuceFilterGeneratorTests.class
+                .getResourceAsStream("/cducesourcecode/substitute_templates.json")) {
+            assertNotNull(in);
+            JSONObject json = new JSONObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            json.keySet().forEach(name -> templates.put(name, json.getString(name)));
+        }
+    }
+
+    /**
+     * Tests that the attributes are merged into a single union-type branch.
+     */
+    @Test
+    void testGroupedAttributes() {
+        List<String> attributes = List.of("Label", "Comment", "Note");
+        String perElement = new CDuceFilterGenerator(templates, CDuceFilterGenerator.Mode.PER_ELEMENT)
+                .attributeFilter(attributes);
+        String grouped = new CDuceFilterGenerator(templates, CDuceFilterGenerator.Mode.GROUPED)
+                .attributeFilter(attributes);
+
+        assertEquals(3, count(perElement, "filter_valid_attributes rest"));
+        assertEquals("| (s & (Label | Comment | Note), rest) -> [s] @ filter_valid_attributes rest\n", grouped);
+    }
+
+    /**
+     * Tests that the class patterns are merged into a single branch, without their captures, and that a pattern
+     * which is not a tag pattern keeps its own branch.
+     */
+    @Test
+    void testGroupedClasses() {
+        List<String> classes = List.of("<owl:Class rdf:about=cls>", "<owl:Thing rdf:about=thing rdf:ID=\"x=y\">",
+                "(<a>_ | <b>_)");
+        String grouped = new CDuceFilterGenerator(templates, CDuceFilterGenerator.Mode.GROUPED).classFilter(classes);
+
+        assertEquals(2, count(grouped, "let valid_attributes"));
+        assertTrue(grouped.contains("& (<owl:Class rdf:about=_> _ | <owl:Thing rdf:about=_ rdf:ID=\"x=y\"> _), rest)"));
+        assertTrue(grouped.contains("[<(class_tag) (class_attributes)> valid_attributes]"));
+        assertTrue(grouped.contains("| ((<a>_ | <b>_) (att & [ AnyXml* ]), rest)"));
+    }
+
+    /**
+     * Tests that a single entry, an empty list or a missing template keep the per-element output.
+     */
+    @Test
+    void testFallbacks() {
+        CDuceFilterGenerator generator = new CDuceFilterGenerator(templates, CDuceFilterGenerator.Mode.GROUPED);
+        CDuceFilterGenerator perElement = new CDuceFilterGenerator(templates, CDuceFilterGenerator.Mode.PER_ELEMENT);
+
+        assertEquals("", generator.classFilter(List.of()));
+        assertEquals(perElement.classFilter(List.of("<owl:Class rdf:about=cls>")),
+                generator.classFilter(List.of("<owl:Class rdf:about=cls>")));
+        assertNull(new CDuceFilterGenerator(Map.of(), CDuceFilterGenerator.Mode.GROUPED)
+                .attributeFilter(List.of("Label")));
+    }
+
+    /**
+     * Tests that the linear functions are built on {@code transform}, without recursion or appends, in both modes.
+     */
+    @Test
+    void testLinearFunctions() {
+        List<String> attributes = List.of("Label", "Note");
+        List<String> classes = List.of("<owl:Class rdf:about=cls>", "<owl:Thing rdf:about=thing>");
+
+        String recursive = new CDuceFilterGenerator(templates, CDuceFilterGenerator.Mode.PER_ELEMENT)
+                .filterFunctions(attributes, classes);
+        assertTrue(recursive.contains("| (s & Label, rest) -> [s] @ filter_valid_attributes rest"));
+        assertTrue(recursive.contains("filter_valid_classes rest"));
+
+        for (CDuceFilterGenerator.Mode mode : CDuceFilterGenerator.Mode.values()) {
+            String linear = new CDuceFilterGenerator(templates, mode, true).filterFunctions(attributes, classes);
+            assertEquals(2, count(linear, "transform "), mode.name());
+            assertFalse(linear.contains(" @ "), mode.name());
+            assertFalse(linear.contains(" rest"), mode.name());
+            assertFalse(linear.contains("_BRANCHES}"), mode.name());
+        }
+        assertTrue(new CDuceFilterGenerator(templates, CDuceFilterGenerator.Mode.PER_ELEMENT, true)
+                .filterFunctions(attributes, classes).contains("| (s & Label) -> [s]"));
+        assertTrue(new CDuceFilterGenerator(templates, CDuceFilterGenerator.Mode.GROUPED, true)
+                .filterFunctions(attributes, classes).contains("| (s & (Label | Note)) -> [s]"));
+    }
+
+    /**
+     * Benchmarks the recursive and the linear filters on synthetic ontologies of increasing size, each class having
+     * an element to remove. It needs CDuce and a configured environment, so it only runs with
+     * {@code -Dcduce.benchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "cduce.benchmark", matches = "true")
+    void benchmarkFilters() throws Exception {
+        List<String> structure = List.of("type Ontology = <rdf:RDF xml:base=String> [ Class* ]",
+                "type Class = <owl:Class rdf:about=String> [ Label+ ]",
+                "type Label = <rdfs:label xml:lang=String> String");
+        CDuceCommandExecutor executor = new CDuceCommandExecutor();
+        boolean linear = CDuceCodeLoader.isLinearFilters();
+        try {
+            for (int size : new int[]{100, 1000, 10000}) {
+                StringBuilder xml = new StringBuilder("""
+                        <rdf:RDF xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#"
+                            xmlns:owl="http://www.w3.org/2002/07/owl#"
+                            xmlns:rdfs="http://www.w3.org/2000/01/rdf-schema#" xml:base="http://example/">
+                        """);
+                for (int i = 0; i < size; i++)
+                    xml.append("<owl:Class rdf:about=\"#C").append(i).append("\"><rdfs:label xml:lang=\"en\">C")
+                            .append(i).append("</rdfs:label><owl:unknown/></owl:Class>\n");
+                Ontology ontology = new Ontology();
+                ontology.setXmlData(xml.append("</rdf:RDF>\n").toString());
+
+                for (boolean variant : new boolean[]{false, true}) {
+                    CDuceCodeLoader.setLinearFilters(variant);
+                    CDuceCodeLoader.loadCheckStructure(List.of(), structure, List.of("Label"),
+                            List.of("<owl:Class rdf:about=cls>"));
+                    long start = System.nanoTime();
+                    assertNotNull(executor.transformOntology(ontology));
+                    System.out.printf("%6d classes, %s filters: %d ms%n", size, variant ? "linear" : "recursive",
+                            (System.nanoTime() - start) / 1_000_000);
+                }
+            }
+        } finally {
+            CDuceCodeLoader.setLinearFilters(linear);
+        }
+    }
+
+    /**
+     * Measures the generated code for structures of increasing size: the grouped code grows with the length of the
+     * names only, the per-element code with a whole branch per entry.
+     */
+    @Test
+    void testGeneratedSize() {
+        for (int size : new int[]{10, 100, 1000, 5000}) {
+            List<String> attributes = IntStream.range(0, size).mapToObj(i -> "Attribute" + i).toList();
+            List<String> classes = IntStream.range(0, size).mapToObj(i -> "<ex:Class" + i + " rdf:about=c>")
+                    .toList();
+
+            int perElement = size(CDuceFilterGenerator.Mode.PER_ELEMENT, attributes, classes);
+            int grouped = size(CDuceFilterGenerator.Mode.GROUPED, attributes, classes);
+            System.out.printf("%5d entries: %9d characters per element, %8d grouped%n", size, perElement, grouped);
+            assertTrue(grouped * 4 < perElement, size + " entries");
+        }
+    }
+
+    /**
+     * Generates the filters for a structure.
+     *
+     * @return The length of the generated code.
+     */
+    private static int size(CDuceFilterGenerator.Mode mode, List<String> attributes, List<String> classes) {
+        CDuceFilterGenerator generator = new CDuceFilterGenerator(templates, mode);
+        return generator.attributeFilter(attributes).length() + generator.classFilter(classes).length();
+    }
+
+    /**
+     * Counts the occurrences of a string.
+     */
+    private static int count(String text, String part) {
+        return text.split(java.util.regex.Pattern.quote(part), -1).length - 1;
+    }
+}
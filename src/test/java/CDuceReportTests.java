@@ -0,0 +1,90 @@
+import com.jataxmltransformer.logic.cducecompiler.CDuceReport;
+import com.jataxmltransformer.logic.cducecompiler.CDuceReport.Kind;
+import com.jataxmltransformer.logic.cducecompiler.CDuceReport.RemovedElement;
+import com.jataxmltransformer.logic.shellinterface.ProcessExecutorInterface;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link CDuceReport} class.
+ */
+class CDuceReportTests {
+
+    /**
+     * Feeds lines to a new report.
+     */
+    private static CDuceReport report(String... lines) {
+        CDuceReport report = new CDuceReport();
+        for (String line : lines)
+            report.accept(line);
+        return report;
+    }
+
+    /**
+     * Tests the results of a verification.
+     */
+    @Test
+    void testVerification() {
+        assertTrue(report("JXT LOADED", "JXT VALID", "JXT END").getValid());
+        assertFalse(report("JXT LOADED", "JXT INVALID", "JXT END").getValid());
+        assertFalse(report("JXT SYNTAX_ERROR", "JXT VALID", "JXT END").getValid()); // The empty fallback is valid
+        assertNull(report("JXT LOADED", "Fatal error").getValid());
+        assertNull(report("JXT VALID").getValid());
+    }
+
+    /**
+     * Tests that the removed elements and the counters of a transformation are read, ignoring other lines.
+     */
+    @Test
+    void testTransformation() {
+        CDuceReport report = report("Processing RDF structure...", "JXT LOADED",
+                "JXT REMOVED ATTRIBUTE 1 3 unknown", "JXT REMOVED CLASS 2 unknown", "JXT REMOVED ATTRIBUTE 3 1 unknown",
+                "JXT REMOVED CLASS 3 empty", "JXT COUNTS 2 2", "JXT SAVED", "JXT END");
+
+        assertTrue(report.getSaved());
+        assertTrue(report.isEnded());
+        assertEquals(2, report.getRemovedClasses());
+        assertEquals(2, report.getRemovedAttributes());
+        assertEquals(List.of(new RemovedElement(Kind.ATTRIBUTE, 1, 3, "unknown"),
+                new RemovedElement(Kind.CLASS, 2, 0, "unknown"),
+                new RemovedElement(Kind.ATTRIBUTE, 3, 1, "unknown"),
+                new RemovedElement(Kind.CLASS, 3, 0, "empty")), report.getRemovedElements());
+        assertEquals("Processing RDF structure...", report.getOtherOutput());
+
+        assertFalse(report("JXT LOADED", "JXT FAILED").getSaved());
+        assertFalse(report("JXT SYNTAX_ERROR", "JXT FAILED").getSaved());
+        assertNull(report("JXT LOADED").getSaved());
+    }
+
+    /**
+     * Tests that malformed records are skipped and that only the last lines of other output are kept.
+     */
+    @Test
+    void testMalformedAndOtherOutput() {
+        CDuceReport report = report("JXT LOADED", "JXT REMOVED CLASS x unknown", "JXT REMOVED ATTRIBUTE 1",
+                "JXT SOMETHING", "JXT COUNTS 1");
+        assertTrue(report.getRemovedElements().isEmpty());
+        assertTrue(report.isLoaded());
+
+        IntStream.range(0, 1000).forEach(i -> report.accept("line " + i));
+        assertEquals(20, report.getOtherOutput().lines().count());
+        assertTrue(report.getOtherOutput().endsWith("line 999"));
+    }
+
+    /**
+     * Tests that a process executor without streaming support hands its output to the report line by line.
+     */
+    @Test
+    void testDefaultStreaming() throws Exception {
+        ProcessExecutorInterface executor = _ -> "JXT LOADED\nJXT INVALID\nJXT END\n";
+        CDuceReport report = new CDuceReport();
+        executor.execute(List.of("cduce verify_code.cd"), report);
+
+        assertFalse(report.getValid());
+        assertTrue(report.isEnded());
+    }
+}
@@ -0,0 +1,42 @@
+import com.jataxmltransformer.logic.data.EditedElement;
+import org.junit.jupiter.api.Test;
+import org.xmlunit.diff.ComparisonType;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link EditedElement} class.
+ */
+class EditedElementTests {
+
+    /**
+     * Tests that the identifier is built from the typed fields.
+     */
+    @Test
+    void testIdIsBuiltFromFields() {
+        EditedElement editedElement = new EditedElement("/RDF[1]/Class[1]/label[1]", "/RDF[1]/Class[1]/label[2]",
+                ComparisonType.TEXT_VALUE, "owl:Class", "rdfs:label", "Ind");
+
+        assertEquals("Control XPath: /RDF[1]/Class[1]/label[1] => Test XPath: /RDF[1]/Class[1]/label[2] | "
+                + "Context: Class: owl:Class, Property: rdfs:label", editedElement.getId());
+        assertSame(editedElement.getId(), editedElement.getId());
+        assertEquals("/RDF[1]/Class[1]/label[2]", editedElement.getTestPath());
+        assertEquals(ComparisonType.TEXT_VALUE, editedElement.getType());
+        assertEquals("Ind", editedElement.getData());
+    }
+
+    /**
+     * Tests that the test XPath is extracted from an identifier given to the legacy constructor.
+     */
+    @Test
+    void testTestPathFromId() {
+        assertEquals("/RDF[1]/Class[2]", new EditedElement("data",
+                "Control XPath: /RDF[1]/Class[1] => Test XPath: /RDF[1]/Class[2] | Context: Class: a, Property: b",
+                "/RDF[1]/Class[1]").getTestPath());
+        assertEquals("/RDF[1]", new EditedElement("data", "Test XPath: /RDF[1]  ", "/RDF[1]").getTestPath());
+        assertNull(new EditedElement("data", "Control XPath: /a[1] => Test XPath: null | Context: x", "/a[1]")
+                .getTestPath());
+        assertNull(new EditedElement("data", "elementId", "/a[1]").getTestPath());
+        assertNull(new EditedElement("data", null, "/a[1]").getId());
+    }
+}
@@ -0,0 +1,92 @@
+import com.jataxmltransformer.logic.data.ErrorIndex;
+import com.jataxmltransformer.logic.data.ErrorInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link ErrorIndex} class.
+ */
+class ErrorIndexTests {
+
+    private static final ErrorInfo FIRST = new ErrorInfo(4, 7, "First", "Class");
+    private static final ErrorInfo NESTED = new ErrorInfo(5, 6, "Nested", "label");
+    private static final ErrorInfo OVERLAPPING = new ErrorInfo(7, 9, "Overlapping", "Class");
+    private static final ErrorInfo SINGLE = new ErrorInfo(12, 12, "Single", "domain");
+
+    /**
+     * Tests that overlapping errors are merged into one block reported with the error starting first.
+     */
+    @Test
+    void testMergesOverlappingErrors() {
+        ErrorIndex index = new ErrorIndex(List.of(SINGLE, NESTED, OVERLAPPING, FIRST));
+
+        assertEquals(2, index.size());
+        ErrorIndex.Block block = index.getBlocks().getFirst();
+        assertEquals(4, block.startLine());
+        assertEquals(9, block.endLine());
+        assertEquals(List.of(FIRST, NESTED, OVERLAPPING), block.errors());
+        assertEquals(FIRST, block.firstError());
+    }
+
+    /**
+     * Tests the lookup of the block covering a line.
+     */
+    @Test
+    void testBlockAt() {
+        ErrorIndex index = new ErrorIndex(List.of(FIRST, NESTED, OVERLAPPING, SINGLE));
+
+        assertNull(index.blockAt(3));
+        assertEquals(4, index.blockAt(4).startLine());
+        assertEquals(4, index.blockAt(9).startLine());
+        assertNull(index.blockAt(10));
+        assertEquals(SINGLE, index.blockAt(12).firstError());
+        assertNull(index.blockAt(13));
+        assertEquals(1, index.indexOf(index.blockAt(12)));
+    }
+
+    /**
+     * Tests the lookup of the next block after a line.
+     */
+    @Test
+    void testNextBlock() {
+        ErrorIndex index = new ErrorIndex(List.of(FIRST, SINGLE));
+
+        assertEquals(FIRST, index.nextBlock(0).firstError());
+        assertEquals(SINGLE, index.nextBlock(4).firstError());
+        assertEquals(SINGLE, index.nextBlock(11).firstError());
+        assertNull(index.nextBlock(12));
+    }
+
+    /**
+     * Tests that an index without valid errors is empty.
+     */
+    @Test
+    void testEmptyIndex() {
+        ErrorIndex index = new ErrorIndex(List.of(new ErrorInfo(5, 4, "Invalid", "range")));
+
+        assertTrue(index.isEmpty());
+        assertNull(index.blockAt(5));
+        assertNull(index.nextBlock(0));
+    }
+
+    /**
+     * Tests the mapping between lines and rows when each block is collapsed into a single row.
+     */
+    @Test
+    void testRows() {
+        ErrorIndex index = new ErrorIndex(List.of(FIRST, OVERLAPPING, SINGLE)); // Blocks 4-9 and 12
+
+        int[] expectedLines = {1, 2, 3, 4, 10, 11, 12, 13, 14};
+        assertEquals(expectedLines.length, index.rowCount(14));
+        for (int row = 1; row <= expectedLines.length; row++) {
+            assertEquals(expectedLines[row - 1], index.lineOfRow(row));
+            assertEquals(row, index.rowOfLine(expectedLines[row - 1]));
+        }
+        assertEquals(4, index.rowOfLine(7));
+        assertEquals(4, index.rowCount(6)); // The lines end inside the first block
+        assertEquals(0, index.rowCount(0));
+    }
+}
@@ -0,0 +1,106 @@
+import com.jataxmltransformer.logic.data.LineIndex;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link LineIndex} class.
+ */
+class LineIndexTests {
+
+    private static final String ONTOLOGY = """
+            <?xml version="1.0"?>
+            <!DOCTYPE rdf:RDF [
+                <!ENTITY owl "http://www.w3.org/2002/07/owl#" >
+            ]>
+            <rdf:RDF xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#">
+                <!-- <owl:Class rdf:about="#Commented"/> -->
+                <owl:Class rdf:about="#Café">
+                    <rdfs:label>a &lt; b > c</rdfs:label>
+                </owl:Class>
+                <owl:ObjectProperty rdf:about="#has&gt;Part" rdfs:comment="x > y"/>
+                <owl:Class rdf:about="#Text"><rdfs:comment><![CDATA[<owl:Class>]]></rdfs:comment></owl:Class>
+            </rdf:RDF>
+            """;
+
+    /**
+     * Tests that the lines are the ones of {@code split("\n")}, including multibyte characters.
+     */
+    @Test
+    void testLinesMatchSplit() {
+        LineIndex index = LineIndex.of(ONTOLOGY.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(Arrays.asList(ONTOLOGY.split("\n")), index.lines());
+        assertEquals("    <owl:Class rdf:about=\"#Café\">", index.line(6));
+    }
+
+    /**
+     * Tests that carriage returns are kept and that a text without a final line feed keeps its last line.
+     */
+    @Test
+    void testLineEndings() {
+        LineIndex index = LineIndex.of("<a>\r\n<b/>\r\n</a>".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(List.of("<a>\r", "<b/>\r", "</a>"), index.lines());
+        assertEquals(0, LineIndex.of(new byte[0]).lineCount());
+    }
+
+    /**
+     * Tests that the line of an offset is found, at line starts and in the middle of lines.
+     */
+    @Test
+    void testLineOf() {
+        LineIndex index = LineIndex.of("ab\ncd\n\nef".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(0, index.lineOf(0));
+        assertEquals(0, index.lineOf(2));
+        assertEquals(1, index.lineOf(3));
+        assertEquals(2, index.lineOf(6));
+        assertEquals(3, index.lineOf(8));
+    }
+
+    /**
+     * Tests that the top-level elements are the children of the root, ignoring comments, CDATA sections, the
+     * document type declaration and {@code >} in attribute values.
+     */
+    @Test
+    void testTopLevelElements() {
+        LineIndex index = LineIndex.of(ONTOLOGY.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(3, index.elementCount());
+        assertEquals("""
+                <owl:Class rdf:about="#Café">
+                        <rdfs:label>a &lt; b > c</rdfs:label>
+                    </owl:Class>""", index.element(0));
+        assertEquals("<owl:ObjectProperty rdf:about=\"#has&gt;Part\" rdfs:comment=\"x > y\"/>", index.element(1));
+        assertTrue(index.element(2).endsWith("<![CDATA[<owl:Class>]]></rdfs:comment></owl:Class>"));
+        assertEquals(9, index.lineOf(index.elementStart(1)));
+    }
+
+    /**
+     * Tests that the word-wide scan finds the lines at every alignment, only the last line feed not starting a
+     * line.
+     */
+    @Test
+    void testRandomText() {
+        Random random = new Random(42);
+        for (int run = 0; run < 200; run++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(100);
+            for (int i = 0; i < length; i++)
+                text.append("ab\n<é>x".charAt(random.nextInt(7)));
+            List<String> expected = new ArrayList<>(Arrays.asList(text.toString().split("\n", -1)));
+            if (expected.getLast().isEmpty())
+                expected.removeLast();
+
+            LineIndex index = LineIndex.of(text.toString().getBytes(StandardCharsets.UTF_8));
+            assertEquals(expected, index.lines(), text.toString());
+        }
+    }
+}
@@ -373,4 +373,26 @@ class MiddlewareTests {
         assertEquals(8, error.startLine()); // Checking the start line
         assertEquals(8, error.endLine());   // Checking the end line
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that the errors of unchanged ontologies are reused, and found again once the output changes.
+     */
+    @Test
+    void testGetErrors_ReusedForUnchangedOntologies() throws Exception {
+        Middleware middleware = Middleware.getInstance();
+        Ontology outputOntology = getOntologyInput();
+        outputOntology.setXmlData(xmlDataCheck.replace("""
+                        <rdfs:label xml:lang="it">Ind</rdfs:label>
+                """, ""));
+        middleware.setOntologyInput(getOntologyInput());
+        middleware.setOntologyOutput(outputOntology);
+
+        List<ErrorInfo> errors = Middleware.getErrors();
+        assertEquals(1, errors.size());
+        errors.clear(); // The returned list is the caller's own copy
+        assertEquals(1, Middleware.getErrors().size());
+
+        outputOntology.setXmlData(xmlDataCheck);
+        assertEquals(Collections.emptyList(), Middleware.getErrors());
+    }
+}
@@ -0,0 +1,105 @@
+import com.jataxmltransformer.logic.data.EditedElement;
+import com.jataxmltransformer.logic.data.Ontology;
+import com.jataxmltransformer.logic.xml.OntologyDocument;
+import com.jataxmltransformer.logic.xml.XMLDiffChecker;
+import com.jataxmltransformer.logic.xml.XMLFormatter;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link OntologyDocument} class.
+ */
+class OntologyDocumentTests {
+
+    private static final String XML = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <rdf:RDF xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#" xmlns:owl="http://www.w3.org/2002/07/owl#" xmlns:rdfs="http://www.w3.org/2000/01/rdf-schema#">
+                <!-- A comment -->
+                <owl:Class rdf:about="http://www.persone#Individuo">
+                    <rdfs:label xml:lang="it">Ind</rdfs:label>
+                </owl:Class>
+                <owl:Class rdf:about="http://www.persone#Persona">
+                    <rdfs:label xml:lang="it"><![CDATA[Per & sona]]></rdfs:label>
+                    <rdfs:subClassOf rdf:resource="http://www.persone#Individuo"/>
+                </owl:Class>
+            </rdf:RDF>
+            """;
+
+    /**
+     * Tests that the positional XPaths and the lines of the elements are recorded.
+     */
+    @Test
+    void testRecordsPositions() throws Exception {
+        OntologyDocument document = OntologyDocument.parse(XML);
+
+        assertEquals(2, document.getPosition("/RDF[1]").beginLine());
+        assertEquals(11, document.getPosition("/RDF[1]").endLine());
+        assertEquals(4, document.getPosition("/RDF[1]/Class[1]").beginLine());
+        assertEquals(6, document.getPosition("/RDF[1]/Class[1]").endLine());
+        assertEquals(9, document.getPosition("/RDF[1]/Class[2]/subClassOf[1]").beginLine());
+        assertEquals(35, document.getPosition("/RDF[1]/Class[1]/label[1]").beginColumn());
+        assertNull(document.getPosition("/RDF[1]/Class[3]"));
+        assertEquals(6, document.getPositions().size());
+    }
+
+    /**
+     * Tests that formatting the parsed document gives the same result as formatting the XML data.
+     */
+    @Test
+    void testFormatsLikeTheXmlData() throws Exception {
+        OntologyDocument document = OntologyDocument.parse(XML);
+
+        assertEquals(XMLFormatter.formatXMLFromString(XML), XMLFormatter.formatDocument(document));
+        assertEquals(XMLFormatter.formatXMLFromString(XML), XMLFormatter.formatDocument(document),
+                "Formatting should not modify the shared document");
+    }
+
+    /**
+     * Tests that copies of the document are independent of each other.
+     */
+    @Test
+    void testCopiesAreIndependent() throws Exception {
+        OntologyDocument document = OntologyDocument.parse(XML);
+
+        Document copy = document.copyDocument();
+        copy.getDocumentElement().removeChild(copy.getDocumentElement().getFirstChild());
+
+        assertNotEquals(copy.getDocumentElement().getChildNodes().getLength(),
+                document.copyDocument().getDocumentElement().getChildNodes().getLength());
+    }
+
+    /**
+     * Tests that comparing parsed documents reports the same differences as comparing the ontologies.
+     */
+    @Test
+    void testDiffDocumentsMatchesDiffOntologies() throws Exception {
+        String modified = XML.replace("<rdfs:label xml:lang=\"it\">Ind</rdfs:label>", "");
+        Ontology input = new Ontology("Input", "xml");
+        input.setXmlData(XML);
+        Ontology output = new Ontology("Output", "xml");
+        output.setXmlData(modified);
+
+        XMLDiffChecker diffChecker = new XMLDiffChecker();
+        List<EditedElement> expected = diffChecker.diffOntologies(input, output);
+        List<EditedElement> actual = diffChecker.diffDocuments(OntologyDocument.parse(input),
+                OntologyDocument.parse(output));
+
+        assertFalse(actual.isEmpty());
+        assertEquals(expected.stream().map(EditedElement::getId).toList(),
+                actual.stream().map(EditedElement::getId).toList());
+    }
+
+    /**
+     * Tests that malformed XML data is rejected with its position.
+     */
+    @Test
+    void testRejectsMalformedXml() {
+        Exception exception = assertThrows(Exception.class,
+                () -> OntologyDocument.parse("<rdf:RDF xmlns:rdf=\"urn:rdf\"><a></rdf:RDF>"));
+        assertTrue(exception.getMessage().startsWith("XML syntax error"));
+    }
+}
@@ -0,0 +1,120 @@
+import com.jataxmltransformer.logic.data.Ontology;
+import com.jataxmltransformer.logic.xml.OntologyIndexFile;
+import com.jataxmltransformer.logic.xml.XPathIndex;
+import com.jataxmltransformer.logic.xml.XPathIndexCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link OntologyIndexFile} class.
+ */
+class OntologyIndexFileTests {
+
+    private static final String ONTOLOGY = """
+            <?xml version="1.0"?>
+            <rdf:RDF xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#"
+                     xmlns:owl="http://www.w3.org/2002/07/owl#">
+                <owl:Class rdf:about="#A"/>
+                <owl:Class rdf:about="#B">
+                    <owl:label>B</owl:label>
+                </owl:Class>
+            </rdf:RDF>
+            """;
+
+    @TempDir
+    private Path directory;
+    private Path source;
+    private Ontology ontology;
+
+    /**
+     * Writes the ontology file and loads it.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        source = directory.resolve("ontology.owl");
+        Files.writeString(source, ONTOLOGY, StandardCharsets.UTF_8);
+        ontology = new Ontology();
+        ontology.loadXmlFromFile(source.toString());
+    }
+
+    /**
+     * Tests that a written sidecar is read back with the same indexes.
+     */
+    @Test
+    void testWriteAndOpen() throws Exception {
+        assertNull(OntologyIndexFile.open(source, ontology));
+        OntologyIndexFile.build(ontology).write(source);
+
+        OntologyIndexFile indexFile = OntologyIndexFile.open(source, ontology);
+        assertNotNull(indexFile);
+        assertEquals(XPathIndexCache.hash(ontology), indexFile.getContentHash());
+        assertEquals(Arrays.asList(ONTOLOGY.split("\n")), indexFile.getLineIndex().lines());
+        assertEquals("<owl:Class rdf:about=\"#A\"/>", indexFile.getLineIndex().element(0));
+
+        XPathIndex expected = XPathIndex.parse(ONTOLOGY);
+        XPathIndex index = indexFile.getXPathIndex();
+        assertEquals(expected.size(), index.size());
+        for (String xPath : new String[]{"/RDF[1]", "/RDF[1]/Class[2]", "/RDF[1]/Class[2]/label[1]"}) {
+            int node = index.find(xPath);
+            assertEquals(expected.beginLine(expected.find(xPath)), index.beginLine(node), xPath);
+            assertEquals(expected.endLine(expected.find(xPath)), index.endLine(node), xPath);
+            assertEquals(expected.endColumn(expected.find(xPath)), index.endColumn(node), xPath);
+            assertEquals(xPath, index.xPath(node));
+        }
+        assertEquals(XPathIndex.NOT_FOUND, index.find("/RDF[1]/Class[3]"));
+    }
+
+    /**
+     * Tests that the sidecar is ignored once the ontology file changes.
+     */
+    @Test
+    void testStaleWhenTheFileChanges() throws Exception {
+        OntologyIndexFile.build(ontology).write(source);
+
+        Files.writeString(source, ONTOLOGY.replace("#A", "#C"), StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 2000));
+        ontology.loadXmlFromFile(source.toString());
+
+        assertNull(OntologyIndexFile.open(source, ontology));
+    }
+
+    /**
+     * Tests that the sidecar is ignored if the loaded content does not match, even with the same size and time.
+     */
+    @Test
+    void testStaleWhenTheContentDiffers() throws Exception {
+        OntologyIndexFile.build(ontology).write(source);
+
+        Ontology edited = new Ontology();
+        edited.setXmlData(ONTOLOGY.replace("#A", "#C"));
+
+        assertNull(OntologyIndexFile.open(source, edited));
+    }
+
+    /**
+     * Tests that a corrupted sidecar fails its checksum.
+     */
+    @Test
+    void testCorrupted() throws Exception {
+        OntologyIndexFile.build(ontology).write(source);
+        Path sidecar = OntologyIndexFile.sidecarPath(source);
+        byte[] bytes = Files.readAllBytes(sidecar);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(sidecar, bytes);
+
+        assertNull(OntologyIndexFile.open(source, ontology));
+
+        Files.write(sidecar, Arrays.copyOf(bytes, 10));
+        assertNull(OntologyIndexFile.open(source, ontology));
+    }
+}
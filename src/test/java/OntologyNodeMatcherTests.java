@@ -0,0 +1,106 @@
+import com.jataxmltransformer.logic.xml.OntologyNodeMatcher;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for the {@link OntologyNodeMatcher} class.
+ */
+class OntologyNodeMatcherTests {
+
+    private static final String RDF_NAMESPACE = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+
+    /**
+     * Parses the XML data and returns the child nodes of the root element.
+     *
+     * @param xml The XML data.
+     * @return The children of the root element.
+     * @throws Exception If the XML data cannot be parsed.
+     */
+    private static List<Node> children(String xml) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        Document document = factory.newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+
+        List<Node> children = new ArrayList<>();
+        for (Node child = document.getDocumentElement().getFirstChild(); child != null;
+             child = child.getNextSibling())
+            if (child instanceof Element)
+                children.add(child);
+        return children;
+    }
+
+    /**
+     * Wraps the given elements in an RDF root element.
+     *
+     * @param content The content of the root element.
+     * @return The XML data.
+     */
+    private static String rdf(String content) {
+        return "<rdf:RDF xmlns:rdf=\"" + RDF_NAMESPACE + "\" xmlns:owl=\"http://www.w3.org/2002/07/owl#\" "
+                + "xmlns:rdfs=\"http://www.w3.org/2000/01/rdf-schema#\">" + content + "</rdf:RDF>";
+    }
+
+    /**
+     * Tests that classes are paired by their rdf:about attribute regardless of their order.
+     */
+    @Test
+    void testMatchesByAboutRegardlessOfOrder() throws Exception {
+        List<Node> control = children(rdf("<owl:Class rdf:about=\"#A\"/><owl:Class rdf:about=\"#B\"/>"
+                + "<owl:Class rdf:about=\"#C\"/>"));
+        List<Node> test = children(rdf("<owl:Class rdf:about=\"#C\"/><owl:Class rdf:about=\"#A\"/>"));
+
+        List<Map.Entry<Node, Node>> matches = new ArrayList<>();
+        new OntologyNodeMatcher().match(control, test).forEach(matches::add);
+
+        assertEquals(2, matches.size(), "Only A and C should be matched");
+        assertEquals("#A", ((Element) matches.get(0).getValue()).getAttributeNS(RDF_NAMESPACE, "about"));
+        assertEquals("#C", ((Element) matches.get(1).getValue()).getAttributeNS(RDF_NAMESPACE, "about"));
+        assertEquals(test.get(1), matches.get(0).getValue());
+        assertEquals(test.get(0), matches.get(1).getValue());
+    }
+
+    /**
+     * Tests that rdf:ID is used as a key when rdf:about is missing.
+     */
+    @Test
+    void testMatchesByID() throws Exception {
+        List<Node> control = children(rdf("<owl:Class rdf:ID=\"A\"/><owl:Class rdf:ID=\"B\"/>"));
+        List<Node> test = children(rdf("<owl:Class rdf:ID=\"B\"/>"));
+
+        List<Map.Entry<Node, Node>> matches = new ArrayList<>();
+        new OntologyNodeMatcher().match(control, test).forEach(matches::add);
+
+        assertEquals(1, matches.size());
+        assertEquals(control.get(1), matches.getFirst().getKey());
+    }
+
+    /**
+     * Tests that nodes without an RDF identifier are matched by name and text.
+     */
+    @Test
+    void testFallsBackToNameAndText() throws Exception {
+        List<Node> control = children(rdf("<rdfs:label>One</rdfs:label><rdfs:label>Two</rdfs:label>"
+                + "<owl:Class rdf:about=\"#A\"/>"));
+        List<Node> test = children(rdf("<owl:Class rdf:about=\"#A\"/><rdfs:label>Two</rdfs:label>"));
+
+        List<Map.Entry<Node, Node>> matches = new ArrayList<>();
+        new OntologyNodeMatcher().match(control, test).forEach(matches::add);
+
+        assertEquals(2, matches.size());
+        assertEquals(control.get(1), matches.get(0).getKey(), "The second label should match by text");
+        assertEquals(test.get(1), matches.get(0).getValue());
+        assertEquals(control.get(2), matches.get(1).getKey(), "The class should match by rdf:about");
+        assertEquals(test.get(0), matches.get(1).getValue());
+    }
+}
@@ -0,0 +1,140 @@
+import com.jataxmltransformer.logic.data.Ontology;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link Ontology} class.
+ */
+class OntologyTests {
+
+    private static final String XML = "<?xml version=\"1.0\"?>\r\n<rdf:RDF>\r\n  <owl:Class rdf:about=\"#Café\"/>\r\n"
+            + "</rdf:RDF>";
+
+    /**
+     * Tests that loading a file keeps its bytes, line endings included, and decodes them as UTF-8.
+     */
+    @Test
+    void testLoadKeepsBytes(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("ontology.owl");
+        Files.writeString(file, XML, StandardCharsets.UTF_8);
+
+        Ontology ontology = new Ontology();
+        ontology.loadXmlFromFile(file.toString());
+
+        assertTrue(ontology.hasXmlData());
+        assertEquals(XML, ontology.getXmlData());
+    }
+
+    /**
+     * Tests that a mapped file has the same content as a loaded one, and that saving writes the same bytes.
+     */
+    @Test
+    void testMapAndSave(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("ontology.owl");
+        Path copy = directory.resolve("copy.owl");
+        Files.writeString(file, XML, StandardCharsets.UTF_8);
+
+        Ontology ontology = new Ontology();
+        ontology.mapXmlFile(file.toString());
+        ontology.saveXmlToFile(copy.toString());
+
+        assertArrayEquals(Files.readAllBytes(file), Files.readAllBytes(copy));
+        assertEquals(XML, ontology.getXmlData());
+    }
+
+    /**
+     * Tests that the reader and the stream return the content of both byte-backed and string-backed ontologies.
+     */
+    @Test
+    void testReaderAndStream() throws IOException {
+        Ontology fromBytes = new Ontology();
+        fromBytes.setXmlBytes(XML.getBytes(StandardCharsets.UTF_8));
+        Ontology fromString = new Ontology();
+        fromString.setXmlData(XML);
+
+        for (Ontology ontology : new Ontology[]{fromBytes, fromString}) {
+            try (Reader reader = ontology.openXmlReader()) {
+                StringBuilder text = new StringBuilder();
+                char[] buffer = new char[7];
+                for (int read; (read = reader.read(buffer)) >= 0; )
+                    text.append(buffer, 0, read);
+                assertEquals(XML, text.toString());
+            }
+            assertArrayEquals(XML.getBytes(StandardCharsets.UTF_8), ontology.openXmlStream().readAllBytes());
+        }
+    }
+
+    /**
+     * Tests that the digest of an ontology is the hash of its UTF-8 bytes, whether it holds bytes or a string.
+     */
+    @Test
+    void testDigest() throws Exception {
+        String xml = XML.repeat(10_000); // Large enough to be hashed in several chunks
+        String expected = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                .digest(xml.getBytes(StandardCharsets.UTF_8)));
+
+        Ontology fromBytes = new Ontology();
+        fromBytes.setXmlBytes(xml.getBytes(StandardCharsets.UTF_8));
+        Ontology fromString = new Ontology();
+        fromString.setXmlData(xml);
+
+        for (Ontology ontology : new Ontology[]{fromBytes, fromString}) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ontology.updateDigest(digest);
+            assertEquals(expected, HexFormat.of().formatHex(digest.digest()));
+        }
+    }
+
+    /**
+     * Tests that copying an ontology shares its content and that setting a string replaces the bytes.
+     */
+    @Test
+    void testCopyAndReplace() {
+        Ontology ontology = new Ontology("ontology", ".owl");
+        ontology.setXmlBytes(XML.getBytes(StandardCharsets.UTF_8));
+
+        Ontology copy = new Ontology(ontology);
+        ontology.setXmlData("<a/>");
+
+        assertEquals(XML, copy.getXmlData());
+        assertEquals("<a/>", ontology.getXmlData());
+        assertEquals(4, ontology.getXmlBuffer().remaining());
+        assertNull(new Ontology().openXmlReader());
+    }
+
+    /**
+     * Tests that every change of the content increments the version and that the fingerprint follows the content.
+     */
+    @Test
+    void testVersionAndFingerprint() {
+        Ontology ontology = new Ontology();
+        ontology.setXmlData(XML);
+        long version = ontology.getVersion();
+        String fingerprint = ontology.getFingerprint();
+
+        Ontology fromBytes = new Ontology();
+        fromBytes.setXmlBytes(XML.getBytes(StandardCharsets.UTF_8));
+        assertEquals(fingerprint, fromBytes.getFingerprint());
+        assertTrue(ontology.hasSameContent(fromBytes));
+
+        ontology.setXmlData("<a/>");
+        assertEquals(version + 1, ontology.getVersion());
+        assertNotEquals(fingerprint, ontology.getFingerprint());
+        assertFalse(ontology.hasSameContent(fromBytes));
+
+        ontology.setXmlDataFrom(fromBytes);
+        assertEquals(version + 2, ontology.getVersion());
+        assertEquals(fingerprint, ontology.getFingerprint());
+        assertEquals(fingerprint, new Ontology(ontology).getFingerprint());
+    }
+}
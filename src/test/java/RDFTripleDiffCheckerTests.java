@@ -0,0 +1,176 @@
+import com.jataxmltransformer.logic.data.EditedElement;
+import com.jataxmltransformer.logic.data.Ontology;
+import com.jataxmltransformer.logic.xml.RDFTripleDiffChecker;
+import com.jataxmltransformer.logic.xml.RDFTripleDiffChecker.TripleDifference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link RDFTripleDiffChecker} class.
+ */
+public class RDFTripleDiffCheckerTests {
+
+    private static final String HEADER = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <rdf:RDF xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#"
+                xmlns:owl="http://www.w3.org/2002/07/owl#"
+                xmlns:rdfs="http://www.w3.org/2000/01/rdf-schema#"
+                xml:base="http://www.persone">
+            """;
+
+    private RDFTripleDiffChecker rdfTripleDiffChecker;
+
+    /**
+     * Builds an ontology with the given content inside the rdf:RDF element.
+     *
+     * @param content The node elements of the ontology.
+     * @return The ontology.
+     */
+    private static Ontology ontology(String content) {
+        Ontology ontology = new Ontology("TestOntology", "xml");
+        ontology.setXmlData(HEADER + content + "</rdf:RDF>\n");
+        return ontology;
+    }
+
+    /**
+     * Setup method to initialize the RDFTripleDiffChecker before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        rdfTripleDiffChecker = new RDFTripleDiffChecker();
+    }
+
+    /**
+     * Tests that the same facts written in a different order and syntax produce no differences.
+     */
+    @Test
+    public void testEquivalentSyntaxHasNoDifferences() throws Exception {
+        Ontology input = ontology("""
+                <owl:Class rdf:about="#A">
+                    <rdfs:label xml:lang="it">A</rdfs:label>
+                    <rdfs:subClassOf rdf:resource="#B"/>
+                </owl:Class>
+                <owl:Class rdf:ID="B" rdfs:comment="Base"/>
+                """);
+        Ontology output = ontology("""
+                <rdf:Description rdf:about="http://www.persone#B">
+                    <rdfs:comment>Base</rdfs:comment>
+                    <rdf:type rdf:resource="http://www.w3.org/2002/07/owl#Class"/>
+                </rdf:Description>
+                <owl:Class rdf:about="#A">
+                    <rdfs:subClassOf rdf:resource="#B"/>
+                    <rdfs:label xml:lang="it">A</rdfs:label>
+                </owl:Class>
+                """);
+
+        assertEquals(List.of(), rdfTripleDiffChecker.diffOntologies(input, output));
+        assertFalse(rdfTripleDiffChecker.isDifferent(input, output));
+    }
+
+    /**
+     * Tests that a changed literal is reported as a removed and an added triple with XPaths and lines.
+     */
+    @Test
+    public void testChangedLiteralIsReportedWithPosition() throws Exception {
+        String input = ontology("""
+                <owl:Class rdf:about="#A">
+                    <rdfs:label xml:lang="it">A</rdfs:label>
+                </owl:Class>
+                """).getXmlData();
+        String output = ontology("""
+                <owl:Class rdf:about="#A">
+                    <rdfs:label xml:lang="en">A</rdfs:label>
+                </owl:Class>
+                """).getXmlData();
+
+        List<TripleDifference> differences =
+                rdfTripleDiffChecker.diffTriples(new StringReader(input), new StringReader(output));
+
+        assertEquals(2, differences.size());
+        TripleDifference removed = differences.get(0);
+        assertFalse(removed.added());
+        assertEquals("<http://www.persone#A>", removed.subject());
+        assertEquals("\"A\"@it", removed.object());
+        assertEquals("/RDF[1]/Class[1]/label[1]", removed.xPath());
+        assertEquals(7, removed.beginLine());
+        assertEquals(7, removed.endLine());
+        assertTrue(differences.get(1).added());
+        assertEquals("\"A\"@en", differences.get(1).object());
+    }
+
+    /**
+     * Tests that removed triples are converted to edited elements carrying the control XPath.
+     */
+    @Test
+    public void testRemovedTripleAsEditedElement() {
+        Ontology input = ontology("""
+                <owl:Class rdf:about="#A"/>
+                <owl:Class rdf:about="#B"/>
+                """);
+        Ontology output = ontology("""
+                <owl:Class rdf:about="#B"/>
+                """);
+
+        List<EditedElement> differences = rdfTripleDiffChecker.diffOntologies(input, output);
+
+        assertEquals(1, differences.size());
+        assertEquals("/RDF[1]/Class[1]", differences.getFirst().getXPath());
+        assertTrue(differences.getFirst().getId().contains("Test XPath: null"));
+        assertEquals("<http://www.persone#A> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> "
+                + "<http://www.w3.org/2002/07/owl#Class> .", differences.getFirst().getData());
+    }
+
+    /**
+     * Tests that anonymous restrictions are labelled by their content: swapping them states the same facts, while
+     * changing one reports the restriction as removed and added.
+     */
+    @Test
+    public void testSwappedRestrictionsHaveNoDifferences() throws Exception {
+        String first = """
+                    <rdfs:subClassOf>
+                        <owl:Restriction>
+                            <owl:onProperty rdf:resource="#hasParent"/>
+                            <owl:someValuesFrom rdf:resource="#Person"/>
+                        </owl:Restriction>
+                    </rdfs:subClassOf>
+                """;
+        String second = """
+                    <rdfs:subClassOf>
+                        <owl:Restriction>
+                            <owl:onProperty rdf:resource="#hasName"/>
+                            <owl:cardinality>1</owl:cardinality>
+                        </owl:Restriction>
+                    </rdfs:subClassOf>
+                """;
+        Ontology input = ontology("<owl:Class rdf:about=\"#A\">\n" + first + second + "</owl:Class>\n");
+        Ontology swapped = ontology("<owl:Class rdf:about=\"#A\">\n" + second + first + "</owl:Class>\n");
+        Ontology changed = ontology("<owl:Class rdf:about=\"#A\">\n" + second.replace(">1<", ">2<") + first
+                + "</owl:Class>\n");
+
+        assertEquals(List.of(), rdfTripleDiffChecker.diffOntologies(input, swapped));
+        assertFalse(rdfTripleDiffChecker.isDifferent(input, swapped));
+
+        List<TripleDifference> differences = rdfTripleDiffChecker.diffTriples(
+                new StringReader(input.getXmlData()), new StringReader(changed.getXmlData()));
+        assertEquals(8, differences.size()); // The subClassOf link and the three triples of the restriction
+        assertEquals(4, differences.stream().filter(TripleDifference::added).count());
+        assertTrue(differences.stream().anyMatch(d -> d.object().equals("\"2\"")));
+    }
+
+    /**
+     * Tests that malformed XML data is reported as {@code null}.
+     */
+    @Test
+    public void testMalformedXml() {
+        Ontology input = ontology("<owl:Class rdf:about=\"#A\"/>");
+        Ontology output = new Ontology("TestOntology", "xml");
+        output.setXmlData(HEADER + "<owl:Class rdf:about=\"#A\">");
+
+        assertNull(rdfTripleDiffChecker.diffOntologies(input, output));
+    }
+}
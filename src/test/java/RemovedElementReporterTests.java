@@ -0,0 +1,81 @@
+import com.jataxmltransformer.logic.cducecompiler.CDuceReport.Kind;
+import com.jataxmltransformer.logic.cducecompiler.CDuceReport.RemovedElement;
+import com.jataxmltransformer.logic.data.ErrorInfo;
+import com.jataxmltransformer.logic.xml.RemovedElementReporter;
+import com.jataxmltransformer.logic.xml.XPathIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link RemovedElementReporter} class.
+ */
+class RemovedElementReporterTests {
+
+    private static final String ONTOLOGY = """
+            <?xml version="1.0"?>
+            <rdf:RDF xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#"
+                     xmlns:owl="http://www.w3.org/2002/07/owl#"
+                     xmlns:rdfs="http://www.w3.org/2000/01/rdf-schema#">
+                <owl:Class rdf:about="#A">
+                    <rdfs:label>A</rdfs:label>
+                    <rdfs:comment>
+                        Not in the structure
+                    </rdfs:comment>
+                </owl:Class>
+                <!-- Comments are not elements -->
+                <rdfs:label>Outside a class</rdfs:label>
+                <owl:Class rdf:about="#B">
+                    <rdfs:comment>B</rdfs:comment>
+                </owl:Class>
+            </rdf:RDF>
+            """;
+
+    private RemovedElementReporter reporter;
+
+    /**
+     * Indexes the ontology.
+     */
+    @BeforeEach
+    void setUp() throws Exception {
+        reporter = new RemovedElementReporter(XPathIndex.parse(ONTOLOGY));
+    }
+
+    /**
+     * Tests that removed classes and attributes are located by their positions.
+     */
+    @Test
+    void testGenerateErrorInfo() {
+        List<ErrorInfo> errors = reporter.generateErrorInfo(List.of(
+                new RemovedElement(Kind.ATTRIBUTE, 1, 2, "unknown"),
+                new RemovedElement(Kind.CLASS, 2, 0, "unknown"),
+                new RemovedElement(Kind.ATTRIBUTE, 3, 1, "unknown"),
+                new RemovedElement(Kind.CLASS, 3, 0, "empty")));
+
+        assertEquals(4, errors.size());
+        assertEquals(7, errors.get(0).startLine());
+        assertEquals(9, errors.get(0).endLine());
+        assertEquals("XPath: /RDF[1]/Class[1]/comment[1] | Context: Class: Class, Property: comment",
+                errors.get(0).elementDetails());
+        assertEquals(12, errors.get(1).startLine());
+        assertTrue(errors.get(1).errorMessage().contains("does not match any class"));
+        assertEquals(14, errors.get(2).startLine());
+        assertEquals(13, errors.get(3).startLine());
+        assertEquals(15, errors.get(3).endLine());
+        assertTrue(errors.get(3).errorMessage().contains("no valid attributes"));
+    }
+
+    /**
+     * Tests that positions missing from the input are skipped.
+     */
+    @Test
+    void testUnknownPositions() {
+        assertTrue(reporter.generateErrorInfo(List.of()).isEmpty());
+        assertTrue(reporter.generateErrorInfo(List.of(new RemovedElement(Kind.CLASS, 4, 0, "unknown"),
+                new RemovedElement(Kind.ATTRIBUTE, 1, 3, "unknown"),
+                new RemovedElement(Kind.ATTRIBUTE, 0, 1, "unknown"))).isEmpty());
+    }
+}
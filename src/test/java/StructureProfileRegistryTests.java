@@ -0,0 +1,113 @@
+import com.jataxmltransformer.logic.cducecompiler.StructureProfileRegistry;
+import com.jataxmltransformer.logic.data.CheckStructure;
+import com.jataxmltransformer.logic.data.StructureProfile;
+import com.jataxmltransformer.middleware.Middleware;
+import org.json.JSONException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link StructureProfileRegistry} class and the {@link StructureProfile}s it holds.
+ */
+class StructureProfileRegistryTests {
+
+    private static final String PROFILE = """
+            {
+                "namespaces": ["namespace www = \\"http://www.persone#\\"", {"namespace": "namespace ex = \\"x\\";;"}],
+                "structure": ["type Ontology = <rdf:RDF xml:base=String> [ Class* ]",
+                              "type Label = <rdfs:label xml:lang=String> String"],
+                "classes": ["<owl:Class rdf:about=cls>"],
+                "attributes": ["Label"]
+            }
+            """;
+
+    private StructureProfileRegistry registry;
+
+    /**
+     * Starts each test with an empty shared registry.
+     */
+    @BeforeEach
+    void setUp() {
+        registry = StructureProfileRegistry.getInstance();
+        registry.clear();
+        Middleware.resetInstance();
+    }
+
+    /**
+     * Tests that a profile is parsed from the JSON format of the structure editor, with cleaned namespaces.
+     */
+    @Test
+    void testLoadJson() {
+        StructureProfile profile = registry.loadJson("persons", PROFILE);
+
+        assertSame(profile, registry.get("persons"));
+        assertEquals("persons", profile.getName());
+        assertEquals(List.of("<owl:Class rdf:about=cls>"), profile.getClasses());
+        assertTrue(profile.getNamespaces().containsAll(new CheckStructure().getDefaultNamespaces()));
+        assertTrue(profile.getNamespaces().contains("namespace www = \"http://www.persone#\";;"));
+        assertTrue(profile.getNamespaces().contains("namespace ex = \"x\";;"));
+        assertTrue(profile.getCduceCode().get("{STRUCTURE_PLACEHOLDER}").contains("type Label"));
+        assertTrue(profile.isClass("<owl:Class rdf:about=cls>"));
+        assertTrue(profile.isAttribute("Label"));
+        assertFalse(profile.isAttribute("Note"));
+        assertThrows(UnsupportedOperationException.class, () -> profile.getAttributes().add("Note"));
+    }
+
+    /**
+     * Tests that registering a profile again replaces it without changing the previous one.
+     */
+    @Test
+    void testReplaceProfile() {
+        StructureProfile first = registry.loadJson("persons", PROFILE);
+        StructureProfile second = registry.loadJson("persons", PROFILE.replace("\"Label\"]", "\"Label\", \"Note\"]"));
+
+        assertSame(second, registry.get("persons"));
+        assertEquals(List.of("Label"), first.getAttributes());
+        assertEquals(List.of("Label", "Note"), second.getAttributes());
+        assertEquals(Set.of("persons"), registry.getNames());
+        assertTrue(registry.remove("persons"));
+        assertNull(registry.get("persons"));
+    }
+
+    /**
+     * Tests that the profiles of a directory are loaded by file name, skipping invalid files.
+     */
+    @Test
+    void testLoadDirectory(@TempDir Path directory) throws Exception {
+        Files.writeString(directory.resolve("persons.json"), PROFILE);
+        Files.writeString(directory.resolve("broken.json"), "{\"structure\": []}");
+
+        assertEquals(1, registry.loadDirectory(directory).size());
+        assertEquals(Set.of("persons"), registry.getNames());
+        assertThrows(JSONException.class, () -> registry.loadJson("broken", "[]"));
+    }
+
+    /**
+     * Tests that the middleware switches to a profile by name and keeps using it until the structure is edited.
+     */
+    @Test
+    void testUseProfile() {
+        StructureProfile profile = registry.loadJson("persons", PROFILE);
+        Middleware middleware = Middleware.getInstance();
+
+        assertFalse(middleware.useProfile("unknown"));
+        assertTrue(middleware.useProfile("persons"));
+        assertEquals(profile.getStructure(), middleware.getStructure());
+        assertTrue(middleware.loadStructure());
+        assertSame(profile, middleware.getProfile());
+
+        middleware.getAttributes().add("Note"); // The editable copy changes, not the profile
+        assertTrue(middleware.loadStructure());
+        assertNotSame(profile, middleware.getProfile());
+        assertEquals(List.of("Label"), profile.getAttributes());
+        assertEquals(List.of("Label", "Note"), middleware.getProfile().getAttributes());
+    }
+}
@@ -0,0 +1,97 @@
+import com.jataxmltransformer.logic.data.TextDocument;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link TextDocument} class.
+ */
+class TextDocumentTests {
+
+    /**
+     * Tests that the text is split into lines and rebuilt with a line feed after each of them.
+     */
+    @Test
+    void testLoadAndText() {
+        TextDocument document = new TextDocument("<a>\n  <b/>\n</a>\n");
+
+        assertEquals(3, document.lineCount());
+        assertEquals("  <b/>", document.line(1));
+        assertEquals("<a>\n  <b/>\n</a>\n", document.snapshot().text());
+    }
+
+    /**
+     * Tests that snapshots are not changed by later edits.
+     */
+    @Test
+    void testSnapshotsAreImmutable() {
+        TextDocument document = new TextDocument("1\n2\n3");
+        TextDocument.Snapshot before = document.snapshot();
+
+        document.splice(1, 2, List.of("two", "deux"));
+        document.set(0, "one");
+
+        assertEquals(List.of("1", "2", "3"), before.lines());
+        assertEquals(List.of("one", "two", "deux", "3"), document.snapshot().lines());
+    }
+
+    /**
+     * Tests undo and redo, with consecutive changes of the same line undone together.
+     */
+    @Test
+    void testUndoRedo() {
+        TextDocument document = new TextDocument("1\n2\n3");
+
+        document.set(1, "t");
+        document.set(1, "tw");
+        document.set(1, "two");
+        document.splice(0, 1, List.of());
+
+        assertTrue(document.undo());
+        assertEquals(List.of("1", "two", "3"), document.snapshot().lines());
+        assertTrue(document.undo());
+        assertEquals(List.of("1", "2", "3"), document.snapshot().lines());
+        assertFalse(document.undo());
+
+        assertTrue(document.redo());
+        assertTrue(document.redo());
+        assertEquals(List.of("two", "3"), document.snapshot().lines());
+        assertFalse(document.redo());
+
+        document.undo();
+        document.set(2, "three"); // A new edit forgets the undone ones
+        assertFalse(document.redo());
+    }
+
+    /**
+     * Tests random edits of a large document against a list.
+     */
+    @Test
+    void testRandomSplicesMatchList() {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 5000; i++)
+            expected.add("line " + i);
+        TextDocument document = new TextDocument();
+        document.load(expected);
+
+        Random random = new Random(42);
+        for (int edit = 0; edit < 2000; edit++) {
+            int from = random.nextInt(expected.size() + 1);
+            int to = Math.min(expected.size(), from + random.nextInt(100));
+            List<String> lines = new ArrayList<>();
+            for (int i = random.nextInt(100); i > 0; i--)
+                lines.add("edit " + edit + "." + i);
+
+            document.splice(from, to, lines);
+            expected.subList(from, to).clear();
+            expected.addAll(from, lines);
+        }
+
+        assertEquals(expected, document.snapshot().lines());
+        assertThrows(IndexOutOfBoundsException.class, () -> document.splice(2, 1, List.of()));
+    }
+}
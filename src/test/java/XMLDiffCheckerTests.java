@@ -1,10 +1,13 @@
 import com.jataxmltransformer.logic.data.EditedElement;
+import com.jataxmltransformer.logic.data.Ontology;
 import com.jataxmltransformer.logic.xml.XMLDiffChecker;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -142,4 +145,187 @@ public class XMLDiffCheckerTests {
         // Assert that error was found
         assertNull(differences);
     }
-}
\ No newline at end of file
+
+    /**
+     * Test for the {@link XMLDiffChecker#diffOntologies(Ontology, Ontology)} method when most of the classes are
+     * untouched. Identical classes are pruned before the comparison, the XPaths must still refer to the original
+     * positions in the documents.
+     *
+     * @throws Exception If an error occurs during the comparison.
+     */
+    @Test
+    public void testDiffOntologiesKeepsOriginalXPaths() throws Exception {
+        Ontology inputOntology = new Ontology("TestOntology", "xml");
+        inputOntology.setXmlData(buildOntology(6, -1, -1));
+        Ontology outputOntology = new Ontology("TestOntology", "xml");
+        outputOntology.setXmlData(buildOntology(6, 3, 5)); // Label of Class[3] and Class[5] removed
+
+        List<EditedElement> differences = xmlDiffChecker.diffOntologies(inputOntology, outputOntology);
+
+        assertNotNull(differences, "Differences list should not be null.");
+        List<String> xPaths = differences.stream().map(EditedElement::getXPath).toList();
+        assertTrue(xPaths.contains("/RDF[1]/Class[3]/label[1]"), "The removed label should keep its XPath.");
+        assertTrue(xPaths.contains("/RDF[1]/Class[5]"), "The removed class should keep its XPath.");
+        assertFalse(xPaths.contains("/RDF[1]/Class[1]"), "Untouched classes should not be reported.");
+    }
+
+    /**
+     * Tests that the listener-based comparison pushes the same differences as the list-based one,
+     * and that it stops once the maximum number of differences has been reported.
+     *
+     * @throws Exception If an error occurs during the comparison.
+     */
+    @Test
+    public void testDiffOntologiesPushesDifferencesToSink() throws Exception {
+        Ontology inputOntology = new Ontology("TestOntology", "xml");
+        inputOntology.setXmlData(buildOntology(6, -1, -1));
+        Ontology outputOntology = new Ontology("TestOntology", "xml");
+        outputOntology.setXmlData(buildOntology(6, 3, 5));
+
+        List<EditedElement> collected = xmlDiffChecker.diffOntologies(inputOntology, outputOntology);
+        List<EditedElement> pushed = new ArrayList<>();
+        assertTrue(xmlDiffChecker.diffOntologies(inputOntology, outputOntology, pushed::add, Integer.MAX_VALUE));
+        assertEquals(collected.stream().map(EditedElement::getId).toList(),
+                pushed.stream().map(EditedElement::getId).toList(), "Both modes should report the same differences.");
+
+        List<EditedElement> capped = new ArrayList<>();
+        assertTrue(xmlDiffChecker.diffOntologies(inputOntology, outputOntology, capped::add, 1));
+        assertEquals(1, capped.size(), "The comparison should stop after the first difference.");
+        assertEquals(pushed.getFirst().getId(), capped.getFirst().getId());
+    }
+
+    /**
+     * Tests that the parallel comparison reports the same differences, in the same order and with the same
+     * XPaths, as the sequential one.
+     *
+     * @throws Exception If an error occurs during the comparison.
+     */
+    @Test
+    public void testDiffOntologiesInParallelMatchesSequentialDiff() throws Exception {
+        Ontology inputOntology = new Ontology("TestOntology", "xml");
+        inputOntology.setXmlData(buildOntology(40, -1, -1));
+        Ontology outputOntology = new Ontology("TestOntology", "xml");
+        outputOntology.setXmlData(buildOntology(40, 7, 23));
+
+        List<EditedElement> sequential = xmlDiffChecker.diffOntologies(inputOntology, outputOntology);
+        List<EditedElement> parallel;
+        try (ForkJoinPool pool = new ForkJoinPool(4)) {
+            parallel = xmlDiffChecker.diffOntologiesInParallel(inputOntology, outputOntology, pool);
+        }
+
+        assertNotNull(parallel, "Differences list should not be null.");
+        assertEquals(sequential.stream().map(EditedElement::getId).toList(),
+                parallel.stream().map(EditedElement::getId).toList());
+        assertTrue(parallel.stream().anyMatch(e -> "/RDF[1]/Class[7]/label[1]".equals(e.getXPath())));
+        assertTrue(parallel.stream().anyMatch(e -> "/RDF[1]/Class[23]".equals(e.getXPath())));
+    }
+
+    /**
+     * Tests that the pruner descends into the same pairs of classes as the node matcher. Both classes have the
+     * same children, so pairing them by name would prune the comment of #B against the one of #A and report it as
+     * missing once #B is paired with its own counterpart.
+     *
+     * @throws Exception If an error occurs during the comparison.
+     */
+    @Test
+    public void testDiffOntologiesPairsClassesByIdentifier() throws Exception {
+        String header = """
+                <rdf:RDF xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#"
+                    xmlns:owl="http://www.w3.org/2002/07/owl#"
+                    xmlns:rdfs="http://www.w3.org/2000/01/rdf-schema#">
+                """;
+        Ontology inputOntology = new Ontology("TestOntology", "xml");
+        inputOntology.setXmlData(header + """
+                    <owl:Class rdf:about="#A"><rdfs:label>same</rdfs:label><rdfs:comment>same</rdfs:comment></owl:Class>
+                    <owl:Class rdf:about="#B"><rdfs:label>same</rdfs:label><rdfs:comment>same</rdfs:comment></owl:Class>
+                </rdf:RDF>
+                """);
+        Ontology outputOntology = new Ontology("TestOntology", "xml");
+        outputOntology.setXmlData(header + """
+                    <owl:Class rdf:about="#B"><rdfs:comment>same</rdfs:comment></owl:Class>
+                </rdf:RDF>
+                """);
+
+        List<EditedElement> differences = xmlDiffChecker.diffOntologies(inputOntology, outputOntology);
+
+        assertNotNull(differences, "Differences list should not be null.");
+        List<String> xPaths = differences.stream().map(EditedElement::getXPath).toList();
+        assertFalse(xPaths.contains("/RDF[1]/Class[2]/comment[1]"), "The kept comment should not be reported.");
+        assertTrue(xPaths.contains("/RDF[1]/Class[1]"), "The removed class should be reported.");
+        assertTrue(xPaths.contains("/RDF[1]/Class[2]/label[1]"), "The removed label should be reported.");
+    }
+
+    /**
+     * Tests that the parallel comparison reports the attribute differences of top-level elements once, as the
+     * sequential one does.
+     *
+     * @throws Exception If an error occurs during the comparison.
+     */
+    @Test
+    public void testDiffOntologiesInParallelReportsTopLevelAttributesOnce() throws Exception {
+        String about = "rdf:about=\"http://www.persone#C12\"";
+        Ontology inputOntology = new Ontology("TestOntology", "xml");
+        inputOntology.setXmlData(buildOntology(40, -1, -1).replace(about, about + " xml:lang=\"it\""));
+        Ontology outputOntology = new Ontology("TestOntology", "xml");
+        outputOntology.setXmlData(buildOntology(40, -1, -1).replace(about, about + " xml:lang=\"en\"")
+                .replace("#C30\">", "#C30\" xml:lang=\"en\">"));
+
+        List<EditedElement> sequential = xmlDiffChecker.diffOntologies(inputOntology, outputOntology);
+        List<EditedElement> parallel;
+        try (ForkJoinPool pool = new ForkJoinPool(4)) {
+            parallel = xmlDiffChecker.diffOntologiesInParallel(inputOntology, outputOntology, pool);
+        }
+
+        assertNotNull(parallel, "Differences list should not be null.");
+        assertTrue(sequential.stream().anyMatch(e -> "/RDF[1]/Class[12]/@lang".equals(e.getXPath())));
+        assertEquals(sequential.stream().map(EditedElement::getId).toList(),
+                parallel.stream().map(EditedElement::getId).toList());
+    }
+
+    /**
+     * Tests that the yes/no check agrees with the full comparison.
+     *
+     * @throws Exception If an error occurs during the comparison.
+     */
+    @Test
+    public void testIsDifferent() throws Exception {
+        Ontology inputOntology = new Ontology("TestOntology", "xml");
+        inputOntology.setXmlData(buildOntology(6, -1, -1));
+        Ontology sameOntology = new Ontology("TestOntology", "xml");
+        sameOntology.setXmlData(buildOntology(6, -1, -1).replace("\n", "\n  "));
+        Ontology outputOntology = new Ontology("TestOntology", "xml");
+        outputOntology.setXmlData(buildOntology(6, 4, -1));
+
+        assertFalse(xmlDiffChecker.isDifferent(inputOntology, sameOntology));
+        assertTrue(xmlDiffChecker.isDifferent(inputOntology, outputOntology));
+        assertThrows(Exception.class, () -> xmlDiffChecker.isDifferent(inputOntology, new Ontology("Bad", "xml")));
+    }
+
+    /**
+     * Builds an ontology with the given number of classes, each one with a label and a scope note.
+     *
+     * @param classes      The number of classes.
+     * @param withoutLabel The position of the class without a label, or -1.
+     * @param removedClass The position of the class to leave out, or -1.
+     * @return The XML data of the ontology.
+     */
+    private static String buildOntology(int classes, int withoutLabel, int removedClass) {
+        StringBuilder xml = new StringBuilder("""
+                <?xml version="1.0" encoding="UTF-8"?>
+                <rdf:RDF xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#"
+                    xmlns:owl="http://www.w3.org/2002/07/owl#"
+                    xmlns:rdfs="http://www.w3.org/2000/01/rdf-schema#"
+                    xmlns:skos="http://www.w3.org/2004/02/skos/core#">
+                """);
+        for (int i = 1; i <= classes; i++) {
+            if (i == removedClass)
+                continue;
+            xml.append("    <owl:Class rdf:about=\"http://www.persone#C").append(i).append("\">\n");
+            if (i != withoutLabel)
+                xml.append("        <rdfs:label xml:lang=\"it\">Label ").append(i).append("</rdfs:label>\n");
+            xml.append("        <skos:scopeNote xml:lang=\"it\">Class</skos:scopeNote>\n");
+            xml.append("    </owl:Class>\n");
+        }
+        return xml.append("</rdf:RDF>\n").toString();
+    }
+}
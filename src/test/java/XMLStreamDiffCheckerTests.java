@@ -0,0 +1,190 @@
+import com.jataxmltransformer.logic.data.EditedElement;
+import com.jataxmltransformer.logic.data.Ontology;
+import com.jataxmltransformer.logic.xml.XMLDiffChecker;
+import com.jataxmltransformer.logic.xml.XMLStreamDiffChecker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xmlunit.diff.ComparisonType;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link XMLStreamDiffChecker} class.
+ */
+public class XMLStreamDiffCheckerTests {
+
+    private static final String HEADER = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <rdf:RDF xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#"
+                xmlns:owl="http://www.w3.org/2002/07/owl#"
+                xmlns:rdfs="http://www.w3.org/2000/01/rdf-schema#">
+            """;
+
+    private XMLStreamDiffChecker xmlStreamDiffChecker;
+
+    /**
+     * Builds an ontology from the given classes.
+     *
+     * @param classes The XML of the classes.
+     * @return The ontology.
+     */
+    private static Ontology ontology(String classes) {
+        Ontology ontology = new Ontology("TestOntology", "xml");
+        ontology.setXmlData(HEADER + classes + "</rdf:RDF>\n");
+        return ontology;
+    }
+
+    /**
+     * Setup method to initialize the XMLStreamDiffChecker before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        xmlStreamDiffChecker = new XMLStreamDiffChecker(2);
+    }
+
+    /**
+     * Test that differences are found between two different XML files.
+     */
+    @Test
+    public void testDiffWithDifferences() throws Exception {
+        List<EditedElement> differences = xmlStreamDiffChecker.diffXmlFiles(
+                "src/main/resources/io/test/input.xml", "src/main/resources/io/test/output.xml");
+
+        assertNotNull(differences, "Differences list should not be null.");
+        assertFalse(differences.isEmpty(), "There should be differences between the two XML files.");
+    }
+
+    /**
+     * Test that no differences are found between two equivalent XML files.
+     */
+    @Test
+    public void testDiffWithNoDifferences() throws Exception {
+        List<EditedElement> differences = xmlStreamDiffChecker.diffXmlFiles(
+                "src/main/resources/io/test/input.xml", "src/main/resources/io/test/output_no_diff.xml");
+
+        assertNotNull(differences, "Differences list should not be null.");
+        assertEquals(0, differences.size(), "There should be no differences between the two XML files.");
+    }
+
+    /**
+     * Test that null is returned when one of the files is not well-formed.
+     */
+    @Test
+    public void testDiffWithMissingRootElement() throws Exception {
+        assertNull(xmlStreamDiffChecker.diffXmlFiles(
+                "src/main/resources/io/test/input.xml", "src/main/resources/io/test/output_missing_root.xml"));
+    }
+
+    /**
+     * Test that an exception is thrown when the files do not exist.
+     */
+    @Test
+    public void testDiffWithInvalidFilePaths() {
+        assertThrows(Exception.class, () -> xmlStreamDiffChecker.diffXmlFiles(
+                "src/main/resources/io/test/non_existent_input.xml",
+                "src/main/resources/io/test/non_existent_output.xml"));
+    }
+
+    /**
+     * Test that classes reordered within the window are not reported and removed elements keep their XPath.
+     */
+    @Test
+    public void testReorderedClassesWithinWindow() throws Exception {
+        Ontology input = ontology("""
+                <owl:Class rdf:about="#A"><rdfs:label>A</rdfs:label></owl:Class>
+                <owl:Class rdf:about="#B"><rdfs:label>B</rdfs:label></owl:Class>
+                <owl:Class rdf:about="#C"><rdfs:label>C</rdfs:label></owl:Class>
+                """);
+        Ontology output = ontology("""
+                <owl:Class rdf:about="#B"><rdfs:label>B</rdfs:label></owl:Class>
+                <owl:Class rdf:about="#A"><rdfs:label>A</rdfs:label></owl:Class>
+                <owl:Class rdf:about="#C"></owl:Class>
+                """);
+
+        List<EditedElement> differences = xmlStreamDiffChecker.diffOntologies(input, output);
+
+        assertNotNull(differences);
+        List<String> xPaths = differences.stream().map(EditedElement::getXPath).toList();
+        assertTrue(xPaths.contains("/RDF[1]/Class[3]/label[1]"), "The removed label should be reported");
+        assertFalse(xPaths.contains("/RDF[1]/Class[1]"), "Reordered classes should not be reported");
+        assertFalse(xPaths.contains("/RDF[1]/Class[2]"), "Reordered classes should not be reported");
+    }
+
+    /**
+     * Test that differences are pushed to the sink and that a removed class is reported with its XPath.
+     */
+    @Test
+    public void testRemovedClassIsPushedToSink() throws Exception {
+        Ontology input = ontology("""
+                <owl:Class rdf:about="#A"/>
+                <owl:Class rdf:about="#B"/>
+                """);
+        Ontology output = ontology("""
+                <owl:Class rdf:about="#B"/>
+                """);
+
+        List<EditedElement> differences = new ArrayList<>();
+        xmlStreamDiffChecker.diff(new StringReader(input.getXmlData()), new StringReader(output.getXmlData()),
+                differences::add);
+
+        assertEquals(2, differences.size());
+        assertEquals("/RDF[1]/Class[1]", differences.getFirst().getXPath());
+        assertTrue(differences.getFirst().getId().contains("Test XPath: null"));
+        assertEquals(ComparisonType.CHILD_NODELIST_LENGTH, differences.getLast().getType());
+        assertEquals("/RDF[1]", differences.getLast().getXPath());
+        assertEquals("1", differences.getLast().getData());
+    }
+
+    /**
+     * Test that both checkers report the same differences, the child count of the root included, when top-level
+     * classes are removed.
+     */
+    @Test
+    public void testSameDifferencesAsXMLDiffChecker() throws Exception {
+        Ontology input = ontology("""
+                <owl:Class rdf:about="#A"><rdfs:label>A</rdfs:label></owl:Class>
+                <owl:Class rdf:about="#B"><rdfs:label>B</rdfs:label><rdfs:comment>B</rdfs:comment></owl:Class>
+                <owl:Class rdf:about="#C"><rdfs:label>C</rdfs:label></owl:Class>
+                <owl:Class rdf:about="#D"><rdfs:label>D</rdfs:label></owl:Class>
+                """);
+        Ontology output = ontology("""
+                <owl:Class rdf:about="#B"><rdfs:label>B</rdfs:label></owl:Class>
+                <owl:Class rdf:about="#D"><rdfs:label>D</rdfs:label></owl:Class>
+                """);
+
+        List<String> expected = new XMLDiffChecker().diffOntologies(input, output).stream()
+                .map(EditedElement::getId).sorted().toList();
+        List<String> actual = xmlStreamDiffChecker.diffOntologies(input, output).stream()
+                .map(EditedElement::getId).sorted().toList();
+
+        assertTrue(expected.stream().anyMatch(id -> id.startsWith("Control XPath: /RDF[1] => Test XPath: /RDF[1] ")));
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Test that the yes/no check agrees with the full comparison.
+     */
+    @Test
+    public void testIsDifferent() throws Exception {
+        Ontology input = ontology("""
+                <owl:Class rdf:about="#A"><rdfs:label>A</rdfs:label></owl:Class>
+                <owl:Class rdf:about="#B"/>
+                """);
+        Ontology reformatted = ontology("""
+                <owl:Class rdf:about="#A">
+                    <rdfs:label>A</rdfs:label>
+                </owl:Class>
+                <owl:Class rdf:about="#B"/>
+                """);
+        Ontology output = ontology("""
+                <owl:Class rdf:about="#A"><rdfs:label>A</rdfs:label></owl:Class>
+                """);
+
+        assertFalse(xmlStreamDiffChecker.isDifferent(input, reformatted));
+        assertTrue(xmlStreamDiffChecker.isDifferent(input, output));
+    }
+}
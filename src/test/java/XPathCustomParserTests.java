@@ -3,6 +3,8 @@ import com.jataxmltransformer.logic.xml.XPathCustomParser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
@@ -178,4 +180,24 @@ class XPathCustomParserTests {
         assertEquals(5, labelInfo.getFirst(), "Start line for label in first Class should be 5");
         assertEquals(5, labelInfo.getSecond(), "End line for label in first Class should be 5");
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that resolving many XPaths at once gives the same lines as resolving them one by one.
+     */
+    @Test
+    void testResolveAll() {
+        List<String> xPaths = List.of("/RDF[1]/Class[2]/scopeNote[1]", "/RDF[1]/Class[1]/label[1]/text()[1]",
+                "/RDF[1]/Class[1]", "/RDF[1]/Class[3]", "/RDF[1]/Class[1]/label[1]", "/RDF[1]/ObjectProperty[1]",
+                "/RDF[1]/Class[2]/scopeNote[1]");
+
+        int[] lines = parser.resolveAll(xPaths);
+
+        assertEquals(2 * xPaths.size(), lines.length);
+        for (int i = 0; i < xPaths.size(); i++) {
+            MyPair<Integer, Integer> info = parser.getInfoFromXPath(xPaths.get(i));
+            assertEquals(info.getFirst(), lines[2 * i], "Start line for " + xPaths.get(i));
+            assertEquals(info.getSecond(), lines[2 * i + 1], "End line for " + xPaths.get(i));
+        }
+        assertEquals(-1, lines[6]);
+    }
+}
@@ -0,0 +1,83 @@
+import com.jataxmltransformer.logic.xml.OntologyDocument;
+import com.jataxmltransformer.logic.xml.XPathIndex;
+import com.jataxmltransformer.logic.xml.XPathIndexCache;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link XPathIndexCache} class.
+ */
+class XPathIndexCacheTests {
+
+    /**
+     * Builds XML data with the given number of child elements.
+     *
+     * @param children The number of child elements.
+     * @return The XML data.
+     */
+    private static String xml(int children) {
+        return "<root>" + "<child/>".repeat(children) + "</root>";
+    }
+
+    /**
+     * Tests that the same XML data borrows the cached index.
+     */
+    @Test
+    void testReusesIndexOfSameData() throws Exception {
+        XPathIndexCache cache = new XPathIndexCache(4, 1000);
+
+        XPathIndex index = cache.getOrParse(xml(2));
+
+        assertSame(index, cache.getOrParse(new String(xml(2).toCharArray())));
+        assertNotSame(index, cache.getOrParse(xml(3)));
+        assertEquals(2, cache.size());
+    }
+
+    /**
+     * Tests that the least recently used indexes are evicted beyond the maximum number of entries.
+     */
+    @Test
+    void testEvictsLeastRecentlyUsedEntries() throws Exception {
+        XPathIndexCache cache = new XPathIndexCache(2, 1000);
+
+        XPathIndex first = cache.getOrParse(xml(1));
+        cache.getOrParse(xml(2));
+        cache.getOrParse(xml(1)); // Uses the first index again
+        cache.getOrParse(xml(3));
+
+        assertEquals(2, cache.size());
+        assertSame(first, cache.get(xml(1)));
+        assertNull(cache.get(xml(2)));
+    }
+
+    /**
+     * Tests that the indexes are evicted beyond the maximum number of elements.
+     */
+    @Test
+    void testBoundsIndexedElements() throws Exception {
+        XPathIndexCache cache = new XPathIndexCache(10, 10);
+
+        cache.getOrParse(xml(4)); // 5 elements
+        cache.getOrParse(xml(5)); // 6 elements
+        cache.getOrParse(xml(20)); // Larger than the cache
+
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get(xml(5)));
+        assertNull(cache.get(xml(20)));
+    }
+
+    /**
+     * Tests that parsing a document shares its index through the shared cache.
+     */
+    @Test
+    void testOntologyDocumentSharesIndex() throws Exception {
+        String xml = "<rdf:RDF xmlns:rdf=\"urn:rdf\"><a/><a><b/></a></rdf:RDF>";
+
+        XPathIndex index = OntologyDocument.parse(xml).getXPathIndex();
+
+        assertSame(index, XPathIndexCache.getInstance().get(xml));
+        assertSame(index, OntologyDocument.parse(xml).getXPathIndex());
+        assertNotEquals(XPathIndex.NOT_FOUND, index.find("/RDF[1]/a[2]/b[1]"));
+    }
+}
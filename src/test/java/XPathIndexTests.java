@@ -0,0 +1,99 @@
+import com.jataxmltransformer.logic.xml.XPathIndex;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link XPathIndex} class.
+ */
+class XPathIndexTests {
+
+    private static final String XML = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <rdf:RDF xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#" xmlns:owl="http://www.w3.org/2002/07/owl#" xmlns:rdfs="http://www.w3.org/2000/01/rdf-schema#">
+                <owl:Class rdf:about="http://www.persone#Individuo">
+                    <rdfs:label xml:lang="it">Ind</rdfs:label>
+                </owl:Class>
+                <owl:Class rdf:about="http://www.persone#Persona">
+                    <rdfs:label xml:lang="it">Persona</rdfs:label>
+                    <rdfs:subClassOf rdf:resource="http://www.persone#Individuo"/>
+                </owl:Class>
+            </rdf:RDF>
+            """;
+
+    /**
+     * Tests that elements are found by their positional XPath.
+     */
+    @Test
+    void testFindsElements() throws Exception {
+        XPathIndex index = XPathIndex.parse(XML);
+
+        assertEquals(6, index.size());
+        int node = index.find("/RDF[1]/Class[2]/subClassOf[1]");
+        assertEquals(8, index.beginLine(node));
+        assertEquals(8, index.endLine(node));
+        assertEquals(3, index.beginLine(index.find("/RDF[1]/Class[1]")));
+        assertEquals(5, index.endLine(index.find("/RDF[1]/Class[1]")));
+        assertEquals("/RDF[1]/Class[2]/subClassOf[1]", index.xPath(node));
+    }
+
+    /**
+     * Tests that unknown elements and malformed steps are not found.
+     */
+    @Test
+    void testMissingElements() throws Exception {
+        XPathIndex index = XPathIndex.parse(XML);
+
+        assertEquals(XPathIndex.NOT_FOUND, index.find("/RDF[1]/Class[3]"));
+        assertEquals(XPathIndex.NOT_FOUND, index.find("/RDF[1]/Property[1]"));
+        assertEquals(XPathIndex.NOT_FOUND, index.find("/RDF[1]/Class[0]"));
+        assertEquals(XPathIndex.NOT_FOUND, index.find("/RDF[1]/Class[01]"));
+        assertEquals(XPathIndex.NOT_FOUND, index.find("/RDF[1]/Class[1]/text()[1]"));
+        assertEquals(XPathIndex.NOT_FOUND, index.find(""));
+    }
+
+    /**
+     * Tests that the enclosing element of a text or attribute XPath is found.
+     */
+    @Test
+    void testFindsEnclosingElements() throws Exception {
+        XPathIndex index = XPathIndex.parse(XML);
+
+        assertEquals(index.find("/RDF[1]/Class[2]/label[1]"),
+                index.findEnclosing("/RDF[1]/Class[2]/label[1]/text()[1]"));
+        assertEquals(index.find("/RDF[1]/Class[1]"), index.findEnclosing("//RDF[1]//Class[1]/@about"));
+        assertEquals(XPathIndex.NOT_FOUND, index.findEnclosing("/text()[1]"));
+    }
+
+    /**
+     * Tests that an index of many siblings grows its tables correctly.
+     */
+    @Test
+    void testManySiblings() throws Exception {
+        StringBuilder xml = new StringBuilder("<root>\n");
+        for (int i = 0; i < 1000; i++)
+            xml.append("<a/><b><c/></b>\n");
+        xml.append("</root>");
+
+        XPathIndex index = XPathIndex.parse(xml.toString());
+
+        assertEquals(3001, index.size());
+        assertEquals(1001, index.beginLine(index.find("/root[1]/b[1000]/c[1]")));
+        assertEquals(501, index.beginLine(index.find("/root[1]/a[500]")));
+    }
+
+    /**
+     * Tests that resolving sorted batches reuses shared steps without mixing up similar XPaths.
+     */
+    @Test
+    void testFindAllEnclosing() throws Exception {
+        XPathIndex index = XPathIndex.parse(XML);
+        String[] xPaths = {"/RDF[1]/Class[1]/label[1]", "/RDF[1]/Class[1]", "/RDF[1]/Class[1]x", "/RDF[1]/Class[10]",
+                "/RDF[1]/Class[2]/label[1]/@lang", "/RDF[1]/Class[2]/label[1]", "", "/RDF[1]/Class[2]/label[1]"};
+
+        int[] nodes = index.findAllEnclosing(xPaths);
+
+        for (int i = 0; i < xPaths.length; i++)
+            assertEquals(index.findEnclosing(xPaths[i]), nodes[i], xPaths[i]);
+    }
+}